@@ -0,0 +1,9 @@
+#!/bin/sh
+set -e
+
+# lets service-db-replica stream the primary's WAL
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname postgres <<-SQL
+	CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD 'replicator';
+SQL
+
+echo "host replication replicator all md5" >> "$PGDATA/pg_hba.conf"
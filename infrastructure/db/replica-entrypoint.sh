@@ -0,0 +1,16 @@
+#!/bin/sh
+set -e
+
+# the first start clones the primary and configures the copy as a streaming standby
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until su-exec postgres pg_basebackup --pgdata="$PGDATA" --write-recovery-conf --wal-method=stream \
+            --host=service-db --username=replicator; do
+        echo "Waiting for service-db to accept replication connections"
+        rm -rf "$PGDATA"/*
+        sleep 2
+    done
+    chmod 0700 "$PGDATA"
+fi
+
+chown -R postgres:postgres "$PGDATA"
+exec su-exec postgres postgres
@@ -0,0 +1,67 @@
+// k6 load test for comparing platform-thread and virtual-thread modes.
+//
+//   k6 run -e BASE_URL=http://localhost:8181 --summary-export=build/k6-platform.json infrastructure/load/account-load.js
+//
+// Run once against the default profile and once with SPRING_PROFILES_ACTIVE=virtual-threads,
+// then compare http_req_duration p(99) and http_reqs rate in the two summaries.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8181';
+const ACCOUNTS = parseInt(__ENV.ACCOUNTS || '100');
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 200 },
+                { duration: '2m', target: 1000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const accountNumbers = [];
+    for (let i = 0; i < ACCOUNTS; i++) {
+        const created = http.post(`${BASE_URL}/accounts/create`, JSON.stringify({
+            email: `load${i}@example.com`,
+            password: 'password',
+            confirmPassword: 'password',
+        }), { headers: { 'Content-Type': 'application/json' } });
+        const accountNumber = created.json('accountNumber');
+        http.post(`${BASE_URL}/accounts/deposit?accountNumber=${accountNumber}&depositAmount=1000000`);
+        accountNumbers.push(accountNumber);
+    }
+    return { accountNumbers };
+}
+
+export default function (data) {
+    const accounts = data.accountNumbers;
+    const sender = accounts[Math.floor(Math.random() * accounts.length)];
+    let receiver = accounts[Math.floor(Math.random() * accounts.length)];
+    if (receiver === sender) {
+        receiver = accounts[(accounts.indexOf(sender) + 1) % accounts.length];
+    }
+
+    const roll = Math.random();
+    let response;
+    if (roll < 0.5) {
+        response = http.get(`${BASE_URL}/accounts/${sender}`, { tags: { name: 'get' } });
+    } else if (roll < 0.7) {
+        response = http.post(`${BASE_URL}/accounts/deposit?accountNumber=${sender}&depositAmount=1.00`,
+            null, { tags: { name: 'deposit' } });
+    } else if (roll < 0.85) {
+        response = http.post(`${BASE_URL}/accounts/withdraw?accountNumber=${sender}&withdrawAmount=1.00`,
+            null, { tags: { name: 'withdraw' } });
+    } else {
+        response = http.post(`${BASE_URL}/accounts/transfer?senderAccountNumber=${sender}`
+            + `&receiverAccountNumber=${receiver}&transferAmount=1.00`, null, { tags: { name: 'transfer' } });
+    }
+
+    check(response, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
@@ -0,0 +1,38 @@
+package com.example.banking_solution.dto;
+
+import com.example.banking_solution.utils.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountDTOSerializationBenchmark {
+
+    ObjectMapper objectMapper;
+    ObjectWriter accountWriter;
+    AccountDTO accountDTO;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        accountWriter = objectMapper.writerFor(AccountDTO.class);
+        accountDTO = new AccountDTO(UUID.randomUUID().toString(), "benchmark@example.com",
+                "123456789", Money.valueOf("1250.75"), "USER");
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(accountDTO);
+    }
+
+    @Benchmark
+    public byte[] objectWriter() throws JsonProcessingException {
+        return accountWriter.writeValueAsBytes(accountDTO);
+    }
+}
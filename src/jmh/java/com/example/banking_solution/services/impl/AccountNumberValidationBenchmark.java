@@ -0,0 +1,28 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.utils.AccountNumbers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the account number check every lookup and money operation in {@link AccountServiceImpl} runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountNumberValidationBenchmark {
+
+    @Param({"123456789", "12345678a"})
+    String accountNumber;
+
+    @Benchmark
+    public boolean stringMatches() {
+        return accountNumber.matches("\\d{9}");
+    }
+
+    @Benchmark
+    public boolean accountNumbersIsValid() {
+        return AccountNumbers.isValid(accountNumber);
+    }
+}
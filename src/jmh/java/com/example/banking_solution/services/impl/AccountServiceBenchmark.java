@@ -0,0 +1,99 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.BankingSolutionApplication;
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.services.AccountService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link AccountServiceImpl} end to end against an embedded Postgres. H2 is not an option here:
+ * the repositories rely on {@code RETURNING}, {@code ON CONFLICT} and a partitioned ledger table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountServiceBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    EmbeddedPostgres postgres;
+    ConfigurableApplicationContext context;
+    AccountService accountService;
+    String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        postgres = EmbeddedPostgres.start();
+
+        context = new SpringApplicationBuilder(BankingSolutionApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "banking.audit.file=" + Files.createTempDirectory("audit").resolve("audit.ndjson"))
+                .run();
+
+        accountService = context.getBean(AccountService.class);
+
+        accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = accountService.createAccount(
+                    new AccountRequestDTO("benchmark" + i + "@example.com", "password", "password"));
+            accountService.depositFundsIntoAnAccount(account.getAccountNumber(), INITIAL_BALANCE);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public Account createAccount() {
+        return accountService.createAccount(new AccountRequestDTO("benchmark@example.com", "password", "password"));
+    }
+
+    @Benchmark
+    public AccountDTO findAccountDTO() {
+        return accountService.findAccountDTO(randomAccountNumber());
+    }
+
+    @Benchmark
+    public Account deposit() {
+        return accountService.depositFundsIntoAnAccount(randomAccountNumber(), AMOUNT);
+    }
+
+    @Benchmark
+    public Account withdraw() {
+        return accountService.withdrawFundsFromAnAccount(randomAccountNumber(), AMOUNT);
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(ACCOUNTS);
+        int receiver = (sender + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        accountService.transferFundsBetweenTwoAccount(accountNumbers[sender], accountNumbers[receiver], AMOUNT);
+    }
+
+    private String randomAccountNumber() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+    }
+}
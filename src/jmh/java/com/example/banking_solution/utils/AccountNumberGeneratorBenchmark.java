@@ -0,0 +1,23 @@
+package com.example.banking_solution.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountNumberGeneratorBenchmark {
+
+    AccountNumberGenerator accountNumberGenerator;
+
+    @Setup
+    public void setup() {
+        accountNumberGenerator = new AccountNumberGenerator();
+    }
+
+    @Benchmark
+    public String generateAccountNumber() {
+        return accountNumberGenerator.generateAccountNumber();
+    }
+}
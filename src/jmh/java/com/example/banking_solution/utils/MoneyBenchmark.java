@@ -0,0 +1,107 @@
+package com.example.banking_solution.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Money} with the {@link BigDecimal} it replaced on what a money operation does:
+ * parse the amount, apply it to a balance, check the balance and render it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    @Param({"1250.75", "98765432109.99"})
+    String amount;
+
+    BigDecimal[] bigDecimalAmounts;
+    Money[] moneyAmounts;
+    BigDecimal bigDecimalBalance;
+    Money moneyBalance;
+
+    @Setup
+    public void setup() {
+
+        bigDecimalAmounts = new BigDecimal[AMOUNTS];
+        moneyAmounts = new Money[AMOUNTS];
+
+        for (int i = 0; i < AMOUNTS; i++) {
+            long cents = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+            bigDecimalAmounts[i] = BigDecimal.valueOf(cents, 2);
+            moneyAmounts[i] = Money.ofCents(cents);
+        }
+
+        bigDecimalBalance = new BigDecimal(amount);
+        moneyBalance = Money.valueOf(amount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalParse() {
+        return new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public Money moneyParse() {
+        return Money.valueOf(amount);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public BigDecimal bigDecimalSum() {
+        BigDecimal total = bigDecimalBalance;
+        for (BigDecimal value : bigDecimalAmounts) {
+            total = total.add(value);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public Money moneySum() {
+        Money total = moneyBalance;
+        for (Money value : moneyAmounts) {
+            total = total.plus(value);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public int bigDecimalSufficientFunds() {
+        int sufficient = 0;
+        for (BigDecimal value : bigDecimalAmounts) {
+            if (bigDecimalBalance.compareTo(value) >= 0) {
+                sufficient++;
+            }
+        }
+        return sufficient;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public int moneySufficientFunds() {
+        int sufficient = 0;
+        for (Money value : moneyAmounts) {
+            if (!moneyBalance.isLessThan(value)) {
+                sufficient++;
+            }
+        }
+        return sufficient;
+    }
+
+    @Benchmark
+    public String bigDecimalToString() {
+        return bigDecimalBalance.toPlainString();
+    }
+
+    @Benchmark
+    public String moneyToString() {
+        return moneyBalance.toString();
+    }
+}
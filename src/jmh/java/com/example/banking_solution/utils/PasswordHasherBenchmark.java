@@ -0,0 +1,67 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many more callers than CPUs, like a busy request pool creating accounts. {@code inline} hashes on the calling
+ * threads, which all compete for the CPUs, so every call gets slower as callers are added. {@code pooled} goes through
+ * {@link PasswordHasher}: completed hashes stay at what the CPUs can do, and the overflow is refused quickly, counted
+ * as {@code rejected}, instead of holding a caller for the duration of the whole backlog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class PasswordHasherBenchmark {
+
+    @Param({"10"})
+    int strength;
+
+    @Param({"64"})
+    int queueCapacity;
+
+    BCryptPasswordEncoder passwordEncoder;
+    PasswordHasher passwordHasher;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long hashed;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+        passwordHasher = new PasswordHasher(new SimpleMeterRegistry(), strength, 0, queueCapacity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.close();
+    }
+
+    @Benchmark
+    public String inline(Outcomes outcomes) {
+        String hash = passwordEncoder.encode("password");
+        outcomes.hashed++;
+        return hash;
+    }
+
+    @Benchmark
+    public String pooled(Outcomes outcomes) {
+        try {
+            String hash = passwordHasher.hash("password");
+            outcomes.hashed++;
+            return hash;
+        } catch (RejectedExecutionException ex) {
+            outcomes.rejected++;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.banking_solution.utils.mappers;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.RoleType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountDTOMapperBenchmark {
+
+    @Param({"0.0", "1250.75", "98765432109.99"})
+    String balance;
+
+    AccountDTOMapper accountDTOMapper;
+    Account account;
+    Money balanceValue;
+
+    @Setup
+    public void setup() {
+        accountDTOMapper = new AccountDTOMapper();
+        balanceValue = Money.valueOf(balance);
+
+        account = new Account();
+        account.setId(UUID.randomUUID().toString());
+        account.setEmail("benchmark@example.com");
+        account.setAccountNumber("123456789");
+        account.setBalance(balanceValue);
+        account.setRole(RoleType.USER);
+    }
+
+    @Benchmark
+    public AccountDTO apply() {
+        return accountDTOMapper.apply(account);
+    }
+
+    @Benchmark
+    public String balanceToString() {
+        return balanceValue.toString();
+    }
+}
@@ -4,16 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.Random;
-
 @Configuration
 public class ApiConfig {
 
-    @Bean
-    Random getRandom() {
-        return new Random();
-    }
-
     @Bean
     public ObjectMapper getObjectMapper() {
         return new ObjectMapper();
@@ -0,0 +1,50 @@
+package com.example.banking_solution.configurations;
+
+import com.example.banking_solution.services.impl.BalanceProjector;
+import com.example.banking_solution.utils.engine.BalanceEngine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Starts the {@link BalanceEngine} for the {@code in-memory} profile: recovers it from
+ * {@code banking.engine.directory}, or seeds it from Postgres on first start, and has the
+ * {@link BalanceProjector} follow its log. The engine publishes {@code banking.engine.*} meters;
+ * {@code banking.engine.projection.lag} is the number of durable records not yet in Postgres.
+ */
+@Configuration
+@Profile("in-memory")
+public class BalanceEngineConfig {
+
+    @Bean(destroyMethod = "close")
+    public BalanceEngine balanceEngine(BalanceProjector balanceProjector,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${banking.engine.directory}") Path directory,
+                                       @Value("${banking.engine.queue-capacity}") int queueCapacity,
+                                       @Value("${banking.engine.batch-size}") int batchSize,
+                                       @Value("${banking.engine.wal.segment-size-bytes}") int segmentSize,
+                                       @Value("${banking.engine.snapshot-interval}") long snapshotInterval) throws IOException {
+
+        BalanceEngine engine = new BalanceEngine(directory, queueCapacity, batchSize, segmentSize, snapshotInterval);
+
+        engine.start(balanceProjector::seed);
+        balanceProjector.follow(engine);
+
+        Gauge.builder("banking.engine.queue.size", engine, BalanceEngine::queueSize).register(meterRegistry);
+        Gauge.builder("banking.engine.sequence", engine, BalanceEngine::durableSequence).register(meterRegistry);
+        Gauge.builder("banking.engine.projection.lag", engine,
+                e -> e.durableSequence() - e.projectedSequence()).register(meterRegistry);
+        Gauge.builder("banking.engine.halted", engine, e -> e.isHalted() ? 1 : 0).register(meterRegistry);
+        FunctionCounter.builder("banking.engine.commands", engine, BalanceEngine::processedCommands).register(meterRegistry);
+        FunctionCounter.builder("banking.engine.batches", engine, BalanceEngine::batches).register(meterRegistry);
+
+        return engine;
+    }
+}
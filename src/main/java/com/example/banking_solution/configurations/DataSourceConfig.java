@@ -0,0 +1,106 @@
+package com.example.banking_solution.configurations;
+
+import com.example.banking_solution.utils.ReadAfterWriteFilter;
+import com.example.banking_solution.utils.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to read replicas when {@code banking.datasource.replica.urls} is set. The application
+ * data source is a {@link LazyConnectionDataSourceProxy}: it takes no connection until the first statement, by which
+ * time the transaction has marked it read-only or not, and then takes it from the primary or from the
+ * {@link ReplicaRoutingDataSource}. Everything else, including Liquibase, keeps using the primary.
+ * <p>
+ * Hibernate is switched to releasing its connection after every transaction, so a read-write transaction never
+ * runs on a replica connection an earlier read-only one in the same request left behind.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "banking.datasource.replica", name = "urls")
+// sharding replaces the data source, see ShardingConfig
+@ConditionalOnExpression("'${banking.sharding.urls:}'.isEmpty()")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${banking.datasource.replica.urls}") List<String> urls,
+                                                             @Value("${banking.datasource.replica.pool-size}") int poolSize,
+                                                             @Value("${banking.datasource.replica.connection-timeout-ms}") long connectionTimeout,
+                                                             @Value("${banking.datasource.replica.max-lag-ms}") long maxLag,
+                                                             @Value("${banking.datasource.replica.check-interval-ms}") long checkInterval) {
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+        for (int i = 0; i < urls.size(); i++) {
+
+            HikariDataSource replica = new HikariDataSource();
+
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeout);
+            replica.setReadOnly(true);
+            // a replica that is down must not stop the application from starting
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricRegistry(meterRegistry);
+
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                maxLag, checkInterval, meterRegistry);
+        routingDataSource.checkReplicas();
+
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+
+        return dataSource;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReadAfterWriteFilter readAfterWriteFilter(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                                     @Value("${banking.datasource.read-after-write.cookie-max-age-seconds}") int cookieMaxAge) {
+        return new ReadAfterWriteFilter(replicaRoutingDataSource, cookieMaxAge);
+    }
+}
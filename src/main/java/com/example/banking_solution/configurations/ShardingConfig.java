@@ -0,0 +1,92 @@
+package com.example.banking_solution.configurations;
+
+import com.example.banking_solution.utils.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads accounts over several databases when {@code banking.sharding.urls} is set. Shard 0 is
+ * {@code spring.datasource}, the listed URLs are shards 1 and up, and all of them get the same Liquibase schema.
+ * The application data source is a {@link LazyConnectionDataSourceProxy} over a {@link ShardRoutingDataSource},
+ * so a transaction takes its connection from the shard it was bound to, once its first statement runs.
+ * <p>
+ * Hibernate releases its connection after every transaction, so one request can work on several shards in turn.
+ * Read replicas are not used together with sharding.
+ */
+@Configuration
+@Profile("!reactive & !in-memory")
+@ConditionalOnProperty(prefix = "banking.sharding", name = "urls")
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource defaultShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource defaultShardDataSource,
+                                                         DataSourceProperties properties,
+                                                         MeterRegistry meterRegistry,
+                                                         ResourceLoader resourceLoader,
+                                                         @Value("${spring.liquibase.change-log}") String changeLog,
+                                                         @Value("${banking.sharding.urls}") List<String> urls,
+                                                         @Value("${banking.sharding.pool-size}") int poolSize) throws Exception {
+
+        List<DataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(defaultShardDataSource);
+
+        for (String url : urls) {
+
+            HikariDataSource shard = new HikariDataSource();
+
+            shard.setPoolName("shard-" + shards.size());
+            shard.setJdbcUrl(url.trim());
+            shard.setUsername(properties.determineUsername());
+            shard.setPassword(properties.determinePassword());
+            shard.setMaximumPoolSize(poolSize);
+            shard.setMetricRegistry(meterRegistry);
+
+            // Spring Boot only migrates the application data source, which starts out on shard 0
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(shard);
+            liquibase.setChangeLog(changeLog);
+            liquibase.setResourceLoader(resourceLoader);
+            liquibase.afterPropertiesSet();
+
+            shards.add(shard);
+        }
+
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseShardConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -1,22 +1,34 @@
 package com.example.banking_solution.controllers;
 
 
+import com.example.banking_solution.dto.AccountDTO;
 import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
 import com.example.banking_solution.models.Account;
 import com.example.banking_solution.services.AccountService;
+import com.example.banking_solution.utils.ReplicaRoutingDataSource;
 import com.example.banking_solution.utils.mappers.AccountDTOMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/accounts")
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AccountController {
@@ -24,11 +36,14 @@ public class AccountController {
 
     AccountService accountService;
     AccountDTOMapper accountDTOMapper;
+    ObjectWriter accountWriter;
 
     @Autowired
-    public AccountController(AccountService accountService, AccountDTOMapper accountDTOMapper) {
+    public AccountController(AccountService accountService, AccountDTOMapper accountDTOMapper,
+                             ObjectMapper objectMapper) {
         this.accountService = accountService;
         this.accountDTOMapper = accountDTOMapper;
+        this.accountWriter = objectMapper.writerFor(AccountDTO.class);
     }
 
     @PostMapping("/create")
@@ -40,17 +55,52 @@ public class AccountController {
                 .body(accountDTOMapper.apply(account));
     }
 
+    @PostMapping("/create/batch")
+    public ResponseEntity<?> createAccounts(@RequestBody List<AccountRequestDTO> accountRequestDTOs) {
+
+        List<Account> accounts = accountService.createAccounts(accountRequestDTOs);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(accounts.stream().map(accountDTOMapper).toList());
+    }
+
     @GetMapping("/{accountNumber}")
     public ResponseEntity<?> getAccount(@PathVariable String accountNumber) {
 
-        Account account = accountService.findByAccountNumber(accountNumber);
+        return ResponseEntity.ok(accountService.findAccountDTO(accountNumber));
+    }
 
-        return ResponseEntity.ok(accountDTOMapper.apply(account));
+    @GetMapping
+    public ResponseEntity<?> getAccountsPage(@RequestParam(defaultValue = "") String after,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(accountService.getPage(after, limit));
     }
 
     @GetMapping("/all")
-    public ResponseEntity<?> getAllAccounts() {
-        return ResponseEntity.ok(accountService.getAll());
+    public ResponseEntity<StreamingResponseBody> getAllAccounts() {
+
+        // the body is written on an async thread, which does not see the client's read-after-write position
+        Long lastWrite = ReplicaRoutingDataSource.readAfterWritePosition();
+
+        StreamingResponseBody body = outputStream -> {
+            ReplicaRoutingDataSource.readAfterWrite(lastWrite);
+            try {
+                accountService.streamAll(account -> {
+                    try {
+                        outputStream.write(accountWriter.writeValueAsBytes(account));
+                        outputStream.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } finally {
+                ReplicaRoutingDataSource.clearReadAfterWrite();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping("/deposit")
@@ -71,6 +121,15 @@ public class AccountController {
         return ResponseEntity.ok(accountDTOMapper.apply(account));
     }
 
+    @PostMapping("/{accountNumber}/shards")
+    public ResponseEntity<?> addBalanceShards(@PathVariable String accountNumber,
+                                              @RequestParam int count) {
+
+        Account account = accountService.addBalanceShards(accountNumber, count);
+
+        return ResponseEntity.ok(accountDTOMapper.apply(account));
+    }
+
     @PostMapping("/transfer")
     public ResponseEntity<?> transferFundsBetweenAccounts(@RequestParam String senderAccountNumber,
                                                           @RequestParam String receiverAccountNumber,
@@ -80,5 +139,10 @@ public class AccountController {
 
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<?> transferFundsInBatch(@RequestBody List<TransferRequestDTO> transfers) {
+        return ResponseEntity.ok(accountService.transferFundsInBatch(transfers));
+    }
 }
 
@@ -0,0 +1,47 @@
+package com.example.banking_solution.controllers;
+
+import com.example.banking_solution.services.SnapshotExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/accounts")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AccountExportController {
+
+    SnapshotExportService snapshotExportService;
+
+    @Autowired
+    public AccountExportController(SnapshotExportService snapshotExportService) {
+        this.snapshotExportService = snapshotExportService;
+    }
+
+    /**
+     * Written on the request thread rather than as an async body, so a long export is not cut off by the async timeout.
+     */
+    @GetMapping("/export")
+    public void exportAccounts(@RequestParam(defaultValue = "true") boolean gzip,
+                               @RequestParam(defaultValue = "false") boolean snapshot,
+                               HttpServletResponse response) throws IOException {
+
+        String fileName = gzip ? "accounts.csv.gz" : "accounts.csv";
+
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+
+        snapshotExportService.exportCsv(Channels.newChannel(response.getOutputStream()), gzip, snapshot);
+    }
+}
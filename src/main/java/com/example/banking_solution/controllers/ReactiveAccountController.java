@@ -0,0 +1,103 @@
+package com.example.banking_solution.controllers;
+
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.services.ReactiveAccountService;
+import com.example.banking_solution.utils.mappers.AccountDTOMapper;
+import jakarta.validation.Valid;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+
+/**
+ * WebFlux mirror of {@link AccountController} for the reactive profile. Routes, status codes and
+ * error bodies are the same; errors are mapped by the shared {@code ControllerAdvisor}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/accounts")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReactiveAccountController {
+
+
+    ReactiveAccountService accountService;
+    AccountDTOMapper accountDTOMapper;
+
+    @Autowired
+    public ReactiveAccountController(ReactiveAccountService accountService, AccountDTOMapper accountDTOMapper) {
+        this.accountService = accountService;
+        this.accountDTOMapper = accountDTOMapper;
+    }
+
+    @PostMapping("/create")
+    public Mono<ResponseEntity<AccountDTO>> createAccount(@Valid @RequestBody AccountRequestDTO accountRequestDTO) {
+
+        return accountService.createAccount(accountRequestDTO)
+                .map(account -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(accountDTOMapper.apply(account)));
+    }
+
+    @GetMapping("/{accountNumber}")
+    public Mono<ResponseEntity<AccountDTO>> getAccount(@PathVariable String accountNumber) {
+
+        return accountService.findAccountDTO(accountNumber).map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<AccountPageDTO>> getAccountsPage(@RequestParam(defaultValue = "") String after,
+                                                                @RequestParam(defaultValue = "100") int limit) {
+        return accountService.getPage(after, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AccountDTO> getAllAccounts() {
+
+        return accountService.streamAll();
+    }
+
+    @PostMapping("/deposit")
+    public Mono<ResponseEntity<AccountDTO>> depositFundsIntoAccount(@RequestParam String accountNumber,
+                                                                    @RequestParam BigDecimal depositAmount) {
+
+        return accountService.depositFundsIntoAnAccount(accountNumber, depositAmount)
+                .map(account -> ResponseEntity.ok(accountDTOMapper.apply(account)));
+    }
+
+
+    @PostMapping("/withdraw")
+    public Mono<ResponseEntity<AccountDTO>> withdrawFundsIntoAccount(@RequestParam String accountNumber,
+                                                                     @RequestParam BigDecimal withdrawAmount) {
+
+        return accountService.withdrawFundsFromAnAccount(accountNumber, withdrawAmount)
+                .map(account -> ResponseEntity.ok(accountDTOMapper.apply(account)));
+    }
+
+    @PostMapping("/transfer")
+    public Mono<ResponseEntity<Void>> transferFundsBetweenAccounts(@RequestParam String senderAccountNumber,
+                                                                   @RequestParam String receiverAccountNumber,
+                                                                   @RequestParam BigDecimal transferAmount) {
+
+        return accountService.transferFundsBetweenTwoAccount(senderAccountNumber, receiverAccountNumber, transferAmount)
+                .then(Mono.just(ResponseEntity.ok().<Void>build()));
+    }
+
+    @PostMapping("/transfers/batch")
+    public Mono<ResponseEntity<List<TransferResultDTO>>> transferFundsInBatch(@RequestBody List<TransferRequestDTO> transfers) {
+        return accountService.transferFundsInBatch(transfers).map(ResponseEntity::ok);
+    }
+}
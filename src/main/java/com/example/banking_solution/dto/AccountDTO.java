@@ -1,15 +1,26 @@
 package com.example.banking_solution.dto;
 
 import com.example.banking_solution.models.Account;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.RoleType;
+
+import java.math.BigDecimal;
 
 public record AccountDTO (String id,
                           String email,
                           String accountNumber,
-                          String balance,
+                          Money balance,
                           String role
                           ) {
     public AccountDTO(Account account) {
         this(account.getId(), account.getEmail() ,account.getAccountNumber(),
-                account.getBalance().toString(), account.getRole().name());
+                account.getBalance(), account.getRole().name());
+    }
+
+    /**
+     * Used by JPQL constructor expressions, so queries can project rows straight into the DTO.
+     */
+    public AccountDTO(String id, String email, String accountNumber, BigDecimal balance, RoleType role) {
+        this(id, email, accountNumber, Money.of(balance), role.name());
     }
 }
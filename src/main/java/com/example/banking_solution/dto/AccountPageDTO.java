@@ -0,0 +1,11 @@
+package com.example.banking_solution.dto;
+
+import java.util.List;
+
+/**
+ * One page of accounts ordered by account number.
+ * {@code nextAfter} is the cursor for the next page, or null when this is the last page.
+ */
+public record AccountPageDTO (List<AccountDTO> accounts,
+                              String nextAfter) {
+}
@@ -4,11 +4,16 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 public record AccountRequestDTO (@NotBlank
-                                 @Email(regexp = ".+@.+\\..+",
+                                 @Email(regexp = AccountRequestDTO.EMAIL_REGEXP,
                                          message = "Email is not correct")
                                  String email,
                                  @NotBlank
                                  String password,
                                  @NotBlank
                                  String confirmPassword) {
+
+    /**
+     * Also checked by the services for requests that bypass bean validation, such as batch account creation.
+     */
+    public static final String EMAIL_REGEXP = ".+@.+\\..+";
 }
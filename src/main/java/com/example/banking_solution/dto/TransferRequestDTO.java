@@ -0,0 +1,8 @@
+package com.example.banking_solution.dto;
+
+import java.math.BigDecimal;
+
+public record TransferRequestDTO (String senderAccountNumber,
+                                  String receiverAccountNumber,
+                                  BigDecimal transferAmount) {
+}
@@ -0,0 +1,19 @@
+package com.example.banking_solution.dto;
+
+import com.example.banking_solution.utils.enums.TransferStatus;
+
+/**
+ * Outcome of one item of a batch transfer. {@code index} is the item's position in the request.
+ */
+public record TransferResultDTO (int index,
+                                 TransferStatus status,
+                                 String message) {
+
+    public static TransferResultDTO completed(int index) {
+        return new TransferResultDTO(index, TransferStatus.COMPLETED, null);
+    }
+
+    public static TransferResultDTO rejected(int index, String message) {
+        return new TransferResultDTO(index, TransferStatus.REJECTED, message);
+    }
+}
@@ -1,30 +1,60 @@
 package com.example.banking_solution.models;
 
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.converters.MoneyAttributeConverter;
 import com.example.banking_solution.utils.enums.RoleType;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
-import org.hibernate.annotations.UuidGenerator;
-
-import java.math.BigDecimal;
 
 
+/**
+ * A row of {@code bank_accounts}, which is hash-partitioned on the account number. The account number is the key,
+ * so every lookup and every version-checked update goes to a single partition.
+ * <p>
+ * {@link #id} is still the identifier clients see. Postgres cannot enforce it as unique on its own across
+ * partitions, so the unique index covers {@code (id, account_number)}; ids are random UUIDs and do not collide.
+ */
 @Getter
 @Setter
 @Entity
 @Table(name = "bank_accounts")
 public class Account {
 
-    @Id
-    @UuidGenerator
     private String id;
+    @Id
     @Column(name = "account_number")
     private String accountNumber;
     private String email;
     private String password;
-    private BigDecimal balance;
+    @Convert(converter = MoneyAttributeConverter.class)
+    private Money balance;
     @Enumerated(EnumType.STRING)
     private RoleType role;
+    @Version
+    private Long version;
+    /**
+     * Number of {@link AccountBalanceShard} rows holding part of the balance, 0 for a regular account.
+     */
+    @Column(name = "balance_shards")
+    private int balanceShards;
+
+    /**
+     * Returns a detached copy of this account with the given balance, leaving the managed entity unchanged.
+     */
+    public Account withBalance(Money balance) {
+
+        Account copy = new Account();
 
+        copy.setId(id);
+        copy.setAccountNumber(accountNumber);
+        copy.setEmail(email);
+        copy.setPassword(password);
+        copy.setRole(role);
+        copy.setVersion(version);
+        copy.setBalanceShards(balanceShards);
+        copy.setBalance(balance);
 
+        return copy;
+    }
 }
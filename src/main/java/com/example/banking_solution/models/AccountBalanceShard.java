@@ -0,0 +1,43 @@
+package com.example.banking_solution.models;
+
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.converters.MoneyAttributeConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+
+/**
+ * One sub-balance of a sharded account. The account's balance is the {@code bank_accounts} row balance
+ * plus the balances of all its shards; deposits land on a random shard so they do not serialize on one row.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "account_balance_shards")
+@IdClass(AccountBalanceShard.Key.class)
+public class AccountBalanceShard {
+
+    @Id
+    @Column(name = "account_number")
+    private String accountNumber;
+    @Id
+    private Integer shard;
+    @Convert(converter = MoneyAttributeConverter.class)
+    private Money balance;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String accountNumber;
+        private Integer shard;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banking_solution.models;
+
+import com.example.banking_solution.utils.enums.RoleType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+
+/**
+ * A row of the {@code bank_account_totals} view: an account as clients see it, with its balance summed over
+ * the {@code bank_accounts} row and any {@link AccountBalanceShard}s. Read-only.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "bank_account_totals")
+public class AccountTotal {
+
+    private String id;
+    @Id
+    @Column(name = "account_number")
+    private String accountNumber;
+    private String email;
+    private BigDecimal balance;
+    @Enumerated(EnumType.STRING)
+    private RoleType role;
+}
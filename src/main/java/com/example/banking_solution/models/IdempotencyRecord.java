@@ -0,0 +1,42 @@
+package com.example.banking_solution.models;
+
+import com.example.banking_solution.utils.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+    @Column(name = "request_fingerprint")
+    private String requestFingerprint;
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    @Column(name = "response_body")
+    private String responseBody;
+    @Column(name = "created_at")
+    private Instant createdAt;
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+    /**
+     * End of the lease of an {@code IN_PROGRESS} record, after which its request is presumed dead; null once completed.
+     */
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+    /**
+     * The claim holding the key; only that request may apply, complete or release it.
+     */
+    @Column(name = "claim_id")
+    private String claimId;
+}
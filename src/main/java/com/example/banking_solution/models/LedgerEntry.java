@@ -0,0 +1,54 @@
+package com.example.banking_solution.models;
+
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.converters.MoneyAttributeConverter;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+
+/**
+ * One row of the append-only transactions ledger. Rows are never updated, and IDs come from
+ * {@code transactions_id_seq} in blocks of 50, so batched inserts do not need a round trip per ID.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "transactions")
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType type;
+    @Column(name = "account_number")
+    private String accountNumber;
+    @Column(name = "counterparty_account_number")
+    private String counterpartyAccountNumber;
+    @Convert(converter = MoneyAttributeConverter.class)
+    private Money amount;
+    @Column(name = "balance_after")
+    @Convert(converter = MoneyAttributeConverter.class)
+    private Money balanceAfter;
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public static LedgerEntry of(LedgerEntryType type, String accountNumber, String counterpartyAccountNumber,
+                                 Money amount, Money balanceAfter, Instant createdAt) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setType(type);
+        entry.setAccountNumber(accountNumber);
+        entry.setCounterpartyAccountNumber(counterpartyAccountNumber);
+        entry.setAmount(amount);
+        entry.setBalanceAfter(balanceAfter);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
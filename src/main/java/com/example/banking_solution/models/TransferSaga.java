@@ -0,0 +1,36 @@
+package com.example.banking_solution.models;
+
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.converters.MoneyAttributeConverter;
+import com.example.banking_solution.utils.enums.TransferSagaStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+
+/**
+ * A transfer between accounts on different shards, kept on the sender's shard. It is written together with the
+ * debit of the sender and stays {@link TransferSagaStatus#PENDING} until the receiver has been credited, or the
+ * sender refunded because the credit cannot be made.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "transfer_sagas")
+public class TransferSaga {
+
+    @Id
+    private String id;
+    @Column(name = "sender_account_number")
+    private String senderAccountNumber;
+    @Column(name = "receiver_account_number")
+    private String receiverAccountNumber;
+    @Convert(converter = MoneyAttributeConverter.class)
+    private Money amount;
+    @Enumerated(EnumType.STRING)
+    private TransferSagaStatus status;
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
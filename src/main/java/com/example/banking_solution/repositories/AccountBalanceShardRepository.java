@@ -0,0 +1,71 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.AccountBalanceShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Sub-balances of sharded accounts. Locks are always taken on the account's {@code bank_accounts} row
+ * first and on its shards second; a deposit locks a single shard row and nothing else.
+ */
+public interface AccountBalanceShardRepository extends JpaRepository<AccountBalanceShard, AccountBalanceShard.Key> {
+
+    /**
+     * Credits the shard {@code random mod balance_shards} of a sharded account. Reads the account row
+     * without locking it.
+     *
+     * @return the new balance of the shard, or empty if no sharded account has this number
+     */
+    @Query(value = """
+            UPDATE account_balance_shards s SET balance = s.balance + :amount
+            FROM bank_accounts a
+            WHERE a.account_number = :accountNumber AND a.balance_shards > 0
+              AND s.account_number = a.account_number AND s.shard = mod(:random, a.balance_shards)
+            RETURNING s.balance
+            """, nativeQuery = true)
+    Optional<BigDecimal> addToRandomShard(@Param("accountNumber") String accountNumber,
+                                          @Param("amount") BigDecimal amount,
+                                          @Param("random") int random);
+
+    @Query(value = "SELECT COALESCE(SUM(balance), 0) FROM account_balance_shards WHERE account_number = :accountNumber",
+            nativeQuery = true)
+    BigDecimal sumBalances(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Creates the shards numbered {@code from} to {@code to - 1} with a zero balance.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO account_balance_shards (account_number, shard, balance)
+            SELECT :accountNumber, shard, 0 FROM generate_series(:from, :to - 1) AS shard
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int createShards(@Param("accountNumber") String accountNumber, @Param("from") int from, @Param("to") int to);
+
+    /**
+     * Zeroes every shard of the account and returns what they held, so the caller can move it onto the
+     * account row. The caller must hold the lock on the account row; the shard rows stay locked until the
+     * transaction ends, so the account's total is exactly its row balance plus the returned amount.
+     *
+     * @return the sum of the shard balances before they were zeroed
+     */
+    @Query(value = """
+            WITH drained AS (
+                SELECT shard, balance FROM account_balance_shards
+                WHERE account_number = :accountNumber
+                ORDER BY shard
+                FOR UPDATE
+            ), zeroed AS (
+                UPDATE account_balance_shards s SET balance = 0
+                FROM drained d
+                WHERE s.account_number = :accountNumber AND s.shard = d.shard
+            )
+            SELECT COALESCE(SUM(balance), 0) FROM drained
+            """, nativeQuery = true)
+    BigDecimal drainShards(@Param("accountNumber") String accountNumber);
+}
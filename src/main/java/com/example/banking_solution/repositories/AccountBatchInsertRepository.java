@@ -0,0 +1,20 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.Account;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk inserts for {@link AccountRepository}, implemented over plain JDBC.
+ */
+public interface AccountBatchInsertRepository {
+
+    /**
+     * Inserts the accounts in a single multi-row statement, skipping every account whose account number
+     * is already taken, including by an earlier account of the same list.
+     *
+     * @return the account numbers that were inserted
+     */
+    Set<String> insertAllIfAccountNumbersAreFree(List<Account> accounts);
+}
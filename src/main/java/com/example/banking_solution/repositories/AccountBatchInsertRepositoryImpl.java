@@ -0,0 +1,77 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.Account;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sends the whole list as one array per column and unnests it on the server, so a batch of any size is a single
+ * statement and a single round trip, with one plan instead of one per row count.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AccountBatchInsertRepositoryImpl implements AccountBatchInsertRepository {
+
+    private static final String INSERT_ALL = """
+            INSERT INTO bank_accounts (id, account_number, email, password, balance, role, version)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::numeric[], ?::varchar[], ?::bigint[])
+            ON CONFLICT (account_number) DO NOTHING
+            RETURNING account_number
+            """;
+
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AccountBatchInsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<String> insertAllIfAccountNumbersAreFree(List<Account> accounts) {
+
+        int size = accounts.size();
+        String[] ids = new String[size];
+        String[] accountNumbers = new String[size];
+        String[] emails = new String[size];
+        String[] passwords = new String[size];
+        BigDecimal[] balances = new BigDecimal[size];
+        String[] roles = new String[size];
+        Long[] versions = new Long[size];
+
+        for (int i = 0; i < size; i++) {
+            Account account = accounts.get(i);
+            ids[i] = account.getId();
+            accountNumbers[i] = account.getAccountNumber();
+            emails[i] = account.getEmail();
+            passwords[i] = account.getPassword();
+            balances[i] = account.getBalance().toBigDecimal();
+            roles[i] = account.getRole().name();
+            versions[i] = account.getVersion();
+        }
+
+        Set<String> inserted = new HashSet<>(size * 2);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ALL);
+            statement.setArray(1, connection.createArrayOf("varchar", ids));
+            statement.setArray(2, connection.createArrayOf("varchar", accountNumbers));
+            statement.setArray(3, connection.createArrayOf("varchar", emails));
+            statement.setArray(4, connection.createArrayOf("varchar", passwords));
+            statement.setArray(5, connection.createArrayOf("numeric", balances));
+            statement.setArray(6, connection.createArrayOf("varchar", roles));
+            statement.setArray(7, connection.createArrayOf("bigint", versions));
+            return statement;
+        }, resultSet -> {
+            inserted.add(resultSet.getString(1));
+        });
+
+        return inserted;
+    }
+}
@@ -1,14 +1,123 @@
 package com.example.banking_solution.repositories;
 
+import com.example.banking_solution.dto.AccountDTO;
 import com.example.banking_solution.models.Account;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AccountRepository extends JpaRepository<Account, String> {
+public interface AccountRepository extends JpaRepository<Account, String>, AccountBatchInsertRepository {
 
+    /**
+     * Loads the account as a read-only entity: Hibernate keeps no snapshot of it and never dirty-checks it,
+     * so it must not be modified.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    /**
+     * Reads the account from {@link com.example.banking_solution.models.AccountTotal} straight into the DTO;
+     * nothing is loaded into the persistence context and the password is never read.
+     */
+    @Query("""
+            SELECT new com.example.banking_solution.dto.AccountDTO(t.id, t.email, t.accountNumber, t.balance, t.role)
+            FROM AccountTotal t
+            WHERE t.accountNumber = :accountNumber
+            """)
+    Optional<AccountDTO> findDTOByAccountNumber(@Param("accountNumber") String accountNumber);
+
     boolean existsAccountByAccountNumber(String accountNumber);
 
+    /**
+     * Keyset page: accounts with a number greater than {@code afterAccountNumber}, served from the unique index.
+     */
+    @Query("""
+            SELECT new com.example.banking_solution.dto.AccountDTO(t.id, t.email, t.accountNumber, t.balance, t.role)
+            FROM AccountTotal t
+            WHERE t.accountNumber > :afterAccountNumber
+            ORDER BY t.accountNumber
+            """)
+    List<AccountDTO> findPageAfter(@Param("afterAccountNumber") String afterAccountNumber, Limit limit);
+
+    /**
+     * Streams every account through a server-side cursor. Must be consumed inside a transaction,
+     * and the stream must be closed to release the cursor.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.banking_solution.dto.AccountDTO(t.id, t.email, t.accountNumber, t.balance, t.role)
+            FROM AccountTotal t
+            ORDER BY t.accountNumber
+            """)
+    Stream<AccountDTO> streamAll();
+
+    /**
+     * Loads and row-locks the given accounts. Rows are locked in account number order,
+     * so transactions locking overlapping sets of accounts cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.accountNumber")
+    List<Account> lockAllByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    List<Account> findAllByAccountNumberInOrderByAccountNumber(Collection<String> accountNumbers);
+
+    /**
+     * Inserts the account unless its account number is already taken.
+     * Relies on the unique index on account_number, so the check and the insert are one statement.
+     *
+     * @return 1 if the row was inserted, 0 if the account number is already in use
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO bank_accounts (id, account_number, email, password, balance, role, version)
+            VALUES (:#{#account.id}, :#{#account.accountNumber}, :#{#account.email},
+                    :#{#account.password}, :#{#account.balance.toBigDecimal()}, :#{#account.role.name()}, :#{#account.version})
+            ON CONFLICT (account_number) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAccountNumberIsFree(@Param("account") Account account);
+
+    /**
+     * Credits a regular account in a single statement and returns the updated row. Sharded accounts
+     * are left untouched, without locking their row, and take the deposit on a shard instead.
+     *
+     * @return the updated account, or empty if no regular account has this number
+     */
+    @Query(value = """
+            UPDATE bank_accounts SET balance = balance + :amount, version = version + 1
+            WHERE account_number = :accountNumber AND balance_shards = 0
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Account> addToBalance(@Param("accountNumber") String accountNumber,
+                                   @Param("amount") BigDecimal amount);
+
+    /**
+     * Debits the account in a single statement if the balance covers the amount.
+     *
+     * @return the updated account, or empty if the account does not exist or has insufficient funds
+     */
+    @Query(value = """
+            UPDATE bank_accounts SET balance = balance - :amount, version = version + 1
+            WHERE account_number = :accountNumber AND balance >= :amount
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Account> subtractFromBalanceIfSufficient(@Param("accountNumber") String accountNumber,
+                                                      @Param("amount") BigDecimal amount);
+
 }
@@ -0,0 +1,97 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims the key for a new request, leased until {@code lockedUntil}. An expired record with the same key is
+     * taken over, and so is an in-progress record whose lease ran out because its request died. A record whose
+     * balance change was applied is never taken over before it expires.
+     *
+     * @return 1 if the key was claimed, 0 if a live record already holds it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO idempotency_keys (idempotency_key, claim_id, request_fingerprint, status, created_at, expires_at, locked_until)
+            VALUES (:key, :claimId, :fingerprint, 'IN_PROGRESS', :now, :expiresAt, :lockedUntil)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET claim_id = excluded.claim_id,
+                request_fingerprint = excluded.request_fingerprint,
+                status = excluded.status,
+                response_status = NULL,
+                response_body = NULL,
+                created_at = excluded.created_at,
+                expires_at = excluded.expires_at,
+                locked_until = excluded.locked_until
+            WHERE idempotency_keys.expires_at < :now
+               OR (idempotency_keys.status = 'IN_PROGRESS' AND idempotency_keys.locked_until < :now)
+            """, nativeQuery = true)
+    int claim(@Param("key") String key, @Param("claimId") String claimId, @Param("fingerprint") String fingerprint,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt, @Param("lockedUntil") Instant lockedUntil);
+
+    /**
+     * Marks the claim's balance change as applied, in the transaction making that change. The row stays locked
+     * until that transaction ends, so a takeover of the key waits for it and then finds the key applied.
+     *
+     * @return 1, or 0 if the claim no longer holds the key or already applied a change
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("""
+            UPDATE IdempotencyRecord r
+            SET r.status = com.example.banking_solution.utils.enums.IdempotencyStatus.APPLIED
+            WHERE r.key = :key AND r.claimId = :claimId
+              AND r.status = com.example.banking_solution.utils.enums.IdempotencyStatus.IN_PROGRESS
+            """)
+    int markApplied(@Param("key") String key, @Param("claimId") String claimId);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE IdempotencyRecord r
+            SET r.status = com.example.banking_solution.utils.enums.IdempotencyStatus.COMPLETED,
+                r.responseStatus = :responseStatus,
+                r.responseBody = :responseBody,
+                r.lockedUntil = NULL
+            WHERE r.key = :key AND r.claimId = :claimId
+            """)
+    int complete(@Param("key") String key, @Param("claimId") String claimId, @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Deletes the claim's record unless its balance change was applied, in which case the key must stay held.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            DELETE FROM IdempotencyRecord r
+            WHERE r.key = :key AND r.claimId = :claimId
+              AND r.status = com.example.banking_solution.utils.enums.IdempotencyStatus.IN_PROGRESS
+            """)
+    int release(@Param("key") String key, @Param("claimId") String claimId);
+
+    /**
+     * Deletes at most {@code batchSize} expired records, so one cleanup pass never holds locks on a large range.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM idempotency_keys
+            WHERE idempotency_key IN (
+                SELECT idempotency_key FROM idempotency_keys
+                WHERE expires_at < :now
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteExpired(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,8 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+}
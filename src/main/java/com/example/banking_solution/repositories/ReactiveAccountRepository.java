@@ -0,0 +1,205 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.RoleType;
+import io.r2dbc.spi.Row;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of {@link AccountRepository} for the reactive profile. The statements are the same
+ * single-statement updates and ordered row locks, so both stacks keep the same atomicity guarantees.
+ */
+@Repository
+@Profile("reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReactiveAccountRepository {
+
+    DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveAccountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Reads the account from the {@code bank_account_totals} view, with its balance summed over the account row
+     * and any balance shards.
+     */
+    public Mono<AccountDTO> findAccountDTO(String accountNumber) {
+        return databaseClient.sql("""
+                        SELECT id, email, account_number, balance, role
+                        FROM bank_account_totals
+                        WHERE account_number = :accountNumber
+                        """)
+                .bind("accountNumber", accountNumber)
+                .map((row, metadata) -> toAccountDTO(row))
+                .one();
+    }
+
+    public Mono<Boolean> existsByAccountNumber(String accountNumber) {
+        return databaseClient.sql("SELECT 1 FROM bank_accounts WHERE account_number = :accountNumber")
+                .bind("accountNumber", accountNumber)
+                .map((row, metadata) -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Flux<AccountDTO> findPageAfter(String afterAccountNumber, int limit) {
+        return databaseClient.sql("""
+                        SELECT id, email, account_number, balance, role
+                        FROM bank_account_totals
+                        WHERE account_number > :afterAccountNumber
+                        ORDER BY account_number
+                        LIMIT :limit
+                        """)
+                .bind("afterAccountNumber", afterAccountNumber)
+                .bind("limit", limit)
+                .map((row, metadata) -> toAccountDTO(row))
+                .all();
+    }
+
+    public Flux<AccountDTO> streamAll() {
+        return databaseClient.sql("""
+                        SELECT id, email, account_number, balance, role
+                        FROM bank_account_totals
+                        ORDER BY account_number
+                        """)
+                .map((row, metadata) -> toAccountDTO(row))
+                .all();
+    }
+
+    /**
+     * Loads and row-locks the given accounts in account number order. Must run inside a transaction.
+     */
+    public Flux<Account> lockAllByAccountNumberIn(Collection<String> accountNumbers) {
+        return databaseClient.sql("""
+                        SELECT * FROM bank_accounts
+                        WHERE account_number = ANY(:accountNumbers)
+                        ORDER BY account_number
+                        FOR UPDATE
+                        """)
+                .bind("accountNumbers", accountNumbers.toArray(String[]::new))
+                .map((row, metadata) -> toAccount(row))
+                .all();
+    }
+
+    /**
+     * @return 1 if the row was inserted, 0 if the account number is already in use
+     */
+    public Mono<Long> insertIfAccountNumberIsFree(Account account) {
+        return databaseClient.sql("""
+                        INSERT INTO bank_accounts (id, account_number, email, password, balance, role, version)
+                        VALUES (:id, :accountNumber, :email, :password, :balance, :role, :version)
+                        ON CONFLICT (account_number) DO NOTHING
+                        """)
+                .bind("id", account.getId())
+                .bind("accountNumber", account.getAccountNumber())
+                .bind("email", account.getEmail())
+                .bind("password", account.getPassword())
+                .bind("balance", account.getBalance().toBigDecimal())
+                .bind("role", account.getRole().name())
+                .bind("version", account.getVersion())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @return the updated account, or empty if no account has this number
+     */
+    public Mono<Account> addToBalance(String accountNumber, Money amount) {
+        return databaseClient.sql("""
+                        UPDATE bank_accounts SET balance = balance + :amount, version = version + 1
+                        WHERE account_number = :accountNumber
+                        RETURNING *
+                        """)
+                .bind("accountNumber", accountNumber)
+                .bind("amount", amount.toBigDecimal())
+                .map((row, metadata) -> toAccount(row))
+                .one();
+    }
+
+    /**
+     * @return the updated account, or empty if the account does not exist or has insufficient funds
+     */
+    public Mono<Account> subtractFromBalanceIfSufficient(String accountNumber, Money amount) {
+        return databaseClient.sql("""
+                        UPDATE bank_accounts SET balance = balance - :amount, version = version + 1
+                        WHERE account_number = :accountNumber AND balance >= :amount
+                        RETURNING *
+                        """)
+                .bind("accountNumber", accountNumber)
+                .bind("amount", amount.toBigDecimal())
+                .map((row, metadata) -> toAccount(row))
+                .one();
+    }
+
+    /**
+     * Writes a balance computed from a row locked by {@link #lockAllByAccountNumberIn}.
+     */
+    public Mono<Long> updateBalance(String accountNumber, Money balance) {
+        return databaseClient.sql("""
+                        UPDATE bank_accounts SET balance = :balance, version = version + 1
+                        WHERE account_number = :accountNumber
+                        """)
+                .bind("accountNumber", accountNumber)
+                .bind("balance", balance.toBigDecimal())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Zeroes every shard of the account and returns what they held. The caller must hold the lock on the
+     * account row, as in {@link AccountBalanceShardRepository#drainShards}.
+     *
+     * @return the sum of the shard balances before they were zeroed
+     */
+    public Mono<Money> drainShards(String accountNumber) {
+        return databaseClient.sql("""
+                        WITH drained AS (
+                            SELECT shard, balance FROM account_balance_shards
+                            WHERE account_number = :accountNumber
+                            ORDER BY shard
+                            FOR UPDATE
+                        ), zeroed AS (
+                            UPDATE account_balance_shards s SET balance = 0
+                            FROM drained d
+                            WHERE s.account_number = :accountNumber AND s.shard = d.shard
+                        )
+                        SELECT COALESCE(SUM(balance), 0) AS drained FROM drained
+                        """)
+                .bind("accountNumber", accountNumber)
+                .map((row, metadata) -> Money.of(row.get("drained", BigDecimal.class)))
+                .one();
+    }
+
+    private static Account toAccount(Row row) {
+        Account account = new Account();
+        account.setId(row.get("id", String.class));
+        account.setAccountNumber(row.get("account_number", String.class));
+        account.setEmail(row.get("email", String.class));
+        account.setPassword(row.get("password", String.class));
+        account.setBalance(Money.of(row.get("balance", BigDecimal.class)));
+        account.setRole(RoleType.valueOf(row.get("role", String.class)));
+        account.setVersion(row.get("version", Long.class));
+        account.setBalanceShards(row.get("balance_shards", Integer.class));
+        return account;
+    }
+
+    private static AccountDTO toAccountDTO(Row row) {
+        return new AccountDTO(row.get("id", String.class), row.get("email", String.class),
+                row.get("account_number", String.class), row.get("balance", BigDecimal.class),
+                RoleType.valueOf(row.get("role", String.class)));
+    }
+}
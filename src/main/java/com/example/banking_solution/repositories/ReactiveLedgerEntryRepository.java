@@ -0,0 +1,57 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.LedgerEntry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * R2DBC writer for the transactions ledger. Each entry takes its ID from {@code transactions_id_seq}
+ * with {@code nextval} in the insert itself, since there is no Hibernate pooled optimizer on this stack.
+ */
+@Repository
+@Profile("reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReactiveLedgerEntryRepository {
+
+    DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveLedgerEntryRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> insertAll(List<LedgerEntry> entries) {
+        return Flux.fromIterable(entries)
+                .concatMap(this::insert)
+                .then();
+    }
+
+    private Mono<Long> insert(LedgerEntry entry) {
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        INSERT INTO transactions (id, type, account_number, counterparty_account_number,
+                                                  amount, balance_after, created_at)
+                        VALUES (nextval('transactions_id_seq'), :type, :accountNumber, :counterpartyAccountNumber,
+                                :amount, :balanceAfter, :createdAt)
+                        """)
+                .bind("type", entry.getType().name())
+                .bind("accountNumber", entry.getAccountNumber())
+                .bind("amount", entry.getAmount().toBigDecimal())
+                .bind("balanceAfter", entry.getBalanceAfter().toBigDecimal())
+                .bind("createdAt", entry.getCreatedAt());
+
+        spec = entry.getCounterpartyAccountNumber() == null
+                ? spec.bindNull("counterpartyAccountNumber", String.class)
+                : spec.bind("counterpartyAccountNumber", entry.getCounterpartyAccountNumber());
+
+        return spec.fetch().rowsUpdated();
+    }
+}
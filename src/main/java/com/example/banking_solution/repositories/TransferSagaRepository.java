@@ -0,0 +1,59 @@
+package com.example.banking_solution.repositories;
+
+import com.example.banking_solution.models.TransferSaga;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transfers between shards. Sagas are read and updated on the sender's shard; credit markers are written
+ * on the receiver's shard, in the transaction that credits the receiver.
+ */
+public interface TransferSagaRepository extends JpaRepository<TransferSaga, String> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO transfer_sagas (id, sender_account_number, receiver_account_number, amount, status, created_at)
+            VALUES (:id, :senderAccountNumber, :receiverAccountNumber, :amount, 'PENDING', :createdAt)
+            """, nativeQuery = true)
+    int insertPending(@Param("id") String id,
+                      @Param("senderAccountNumber") String senderAccountNumber,
+                      @Param("receiverAccountNumber") String receiverAccountNumber,
+                      @Param("amount") BigDecimal amount,
+                      @Param("createdAt") Instant createdAt);
+
+    /**
+     * Moves a pending saga to its final status.
+     *
+     * @return 1 if the saga was pending, 0 if it was already finished
+     */
+    @Modifying
+    @Query(value = "UPDATE transfer_sagas SET status = :status WHERE id = :id AND status = 'PENDING'", nativeQuery = true)
+    int finish(@Param("id") String id, @Param("status") String status);
+
+    @Query("""
+            SELECT s FROM TransferSaga s
+            WHERE s.status = com.example.banking_solution.utils.enums.TransferSagaStatus.PENDING AND s.createdAt < :before
+            ORDER BY s.createdAt
+            """)
+    List<TransferSaga> findPendingBefore(@Param("before") Instant before, Limit limit);
+
+    /**
+     * Marks the saga as credited on the receiver's shard. Two credits of the same saga racing each other serialize
+     * on the primary key, and the second one sees the first one's row.
+     *
+     * @return 1 if this is the first credit of the saga, 0 if it was already credited
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO transfer_saga_credits (saga_id, created_at) VALUES (:sagaId, now())
+            ON CONFLICT (saga_id) DO NOTHING
+            """, nativeQuery = true)
+    int recordCredit(@Param("sagaId") String sagaId);
+}
@@ -1,18 +1,32 @@
 package com.example.banking_solution.services;
 
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
 import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
 import com.example.banking_solution.models.Account;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface AccountService {
 
      Account createAccount(AccountRequestDTO accountRequestDTO);
+     List<Account> createAccounts(List<AccountRequestDTO> accountRequestDTOs);
      Account findByAccountNumber(String accountNumber);
-     List<Account> getAll();
+     AccountDTO findAccountDTO(String accountNumber);
+     AccountPageDTO getPage(String afterAccountNumber, int limit);
+     void streamAll(Consumer<AccountDTO> consumer);
 
      Account depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount);
      Account withdrawFundsFromAnAccount(String accountNumber, BigDecimal withdrawAmount);
+
+     /**
+      * Splits the account's future deposits across {@code shards} sub-balances. Shards can be added but not removed.
+      */
+     Account addBalanceShards(String accountNumber, int shards);
      void transferFundsBetweenTwoAccount(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount);
+     List<TransferResultDTO> transferFundsInBatch(List<TransferRequestDTO> transfers);
 }
@@ -0,0 +1,48 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+
+import java.util.Optional;
+
+public interface IdempotencyService {
+
+     /**
+      * One request's hold on a key. The claim id fences the request: once its claim was taken over, it can no
+      * longer apply, complete or release anything under the key. The record lives on the database shard of
+      * {@code accountNumber}, the account whose balance the request changes first, so it can be marked applied
+      * in the same transaction as that change.
+      */
+     record Claim(String key, String claimId, String accountNumber) {
+     }
+
+     /**
+      * Claims the key for a request with the given fingerprint.
+      *
+      * @return empty if the key was claimed by this call, otherwise the live record already holding the key
+      */
+     Optional<IdempotencyRecord> claim(Claim claim, String requestFingerprint);
+
+     /**
+      * Makes the claim the one balance changes on the current thread are applied under, or clears it when null.
+      */
+     void bind(Claim claim);
+
+     Optional<Claim> boundClaim();
+
+     /**
+      * Marks the claim as applied inside the caller's transaction, so the mark commits or rolls back together
+      * with the balance change. Must be called after the transaction was bound to the account's shard.
+      *
+      * @throws com.example.banking_solution.utils.exceptions.IdempotencyConflictException if the claim lost the key
+      */
+     void markApplied(Claim claim);
+
+     void complete(Claim claim, int responseStatus, String responseBody);
+
+     /**
+      * Gives the key up, unless a balance change was already applied under the claim.
+      */
+     void release(Claim claim);
+
+     int purgeExpired();
+}
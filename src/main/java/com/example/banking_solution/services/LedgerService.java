@@ -0,0 +1,32 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+
+import java.util.List;
+
+public interface LedgerService {
+
+     void recordDeposit(String accountNumber, Money amount, Money balanceAfter);
+     void recordWithdrawal(String accountNumber, Money amount, Money balanceAfter);
+     void recordDeposits(List<Deposit> deposits);
+     void recordTransfers(List<Transfer> transfers);
+     void recordTransferLeg(LedgerEntryType type, String accountNumber, String counterpartyAccountNumber,
+                            Money amount, Money balanceAfter);
+
+     /**
+      * A completed deposit with the account balance as it was right after it was applied.
+      */
+     record Deposit(String accountNumber, Money amount, Money balanceAfter) {
+     }
+
+     /**
+      * A completed transfer with both balances as they were right after it was applied.
+      */
+     record Transfer(String senderAccountNumber,
+                     String receiverAccountNumber,
+                     Money amount,
+                     Money senderBalanceAfter,
+                     Money receiverBalanceAfter) {
+     }
+}
@@ -0,0 +1,26 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.models.Account;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ReactiveAccountService {
+
+     Mono<Account> createAccount(AccountRequestDTO accountRequestDTO);
+     Mono<AccountDTO> findAccountDTO(String accountNumber);
+     Mono<AccountPageDTO> getPage(String afterAccountNumber, int limit);
+     Flux<AccountDTO> streamAll();
+
+     Mono<Account> depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount);
+     Mono<Account> withdrawFundsFromAnAccount(String accountNumber, BigDecimal withdrawAmount);
+     Mono<Void> transferFundsBetweenTwoAccount(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount);
+     Mono<List<TransferResultDTO>> transferFundsInBatch(List<TransferRequestDTO> transfers);
+}
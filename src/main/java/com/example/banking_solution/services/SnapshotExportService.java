@@ -0,0 +1,16 @@
+package com.example.banking_solution.services;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public interface SnapshotExportService {
+
+     /**
+      * Writes every account with its total balance as CSV, ordered by account number.
+      *
+      * @param gzip               compress the output with gzip
+      * @param consistentSnapshot read all accounts from one REPEATABLE READ snapshot instead of READ COMMITTED
+      * @return the number of accounts written
+      */
+     long exportCsv(WritableByteChannel channel, boolean gzip, boolean consistentSnapshot) throws IOException;
+}
@@ -1,43 +1,110 @@
 package com.example.banking_solution.services.impl;
 
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
 import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
 import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
 import com.example.banking_solution.repositories.AccountRepository;
 import com.example.banking_solution.services.AccountService;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.services.LedgerService;
+import com.example.banking_solution.utils.AccountCache;
 import com.example.banking_solution.utils.AccountNumberGenerator;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.enums.AuditEventType;
 import com.example.banking_solution.utils.enums.RoleType;
+import com.example.banking_solution.utils.enums.TransferStatus;
 import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
 import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
 import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
+import io.micrometer.core.annotation.Timed;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static com.example.banking_solution.services.impl.AccountValidation.validateAccountNumber;
+import static com.example.banking_solution.services.impl.AccountValidation.validateAccountRequest;
+import static com.example.banking_solution.services.impl.AccountValidation.validateAmount;
+import static com.example.banking_solution.services.impl.AccountValidation.validateTransfer;
 
-@Slf4j
 @Service
+@Profile("!reactive & !in-memory")
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AccountServiceImpl implements AccountService {
 
+    private static final String OPERATION_METRIC = "banking.account.operation";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_TRANSFER_BATCH_SIZE = 10000;
+    private static final int MAX_BALANCE_SHARDS = 64;
+    private static final int MAX_CREATE_BATCH_SIZE = 10000;
+
     AccountRepository accountRepository;
+    AccountBalanceShardRepository balanceShardRepository;
     AccountNumberGenerator accountNumberGenerator;
+    TransferEngine transferEngine;
+    AccountCache accountCache;
+    LedgerService ledgerService;
+    DepositGroupCommitter depositGroupCommitter;
+    PasswordHasher passwordHasher;
+    TransactionOperations transactionOperations;
+    DatabaseShards databaseShards;
+    AuditLog auditLog;
+    IdempotencyService idempotencyService;
 
     @Autowired
     public AccountServiceImpl(AccountRepository accountRepository,
-                              AccountNumberGenerator accountNumberGenerator) {
+                              AccountBalanceShardRepository balanceShardRepository,
+                              AccountNumberGenerator accountNumberGenerator,
+                              TransferEngine transferEngine,
+                              AccountCache accountCache,
+                              LedgerService ledgerService,
+                              DepositGroupCommitter depositGroupCommitter,
+                              PasswordHasher passwordHasher,
+                              TransactionOperations transactionOperations,
+                              DatabaseShards databaseShards,
+                              AuditLog auditLog,
+                              IdempotencyService idempotencyService) {
         this.accountRepository = accountRepository;
+        this.balanceShardRepository = balanceShardRepository;
         this.accountNumberGenerator = accountNumberGenerator;
+        this.transferEngine = transferEngine;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.depositGroupCommitter = depositGroupCommitter;
+        this.passwordHasher = passwordHasher;
+        this.transactionOperations = transactionOperations;
+        this.databaseShards = databaseShards;
+        this.auditLog = auditLog;
+        this.idempotencyService = idempotencyService;
     }
 
     @Override
-    @Transactional
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "create"}, histogram = true)
     public Account createAccount(AccountRequestDTO accountRequestDTO) {
 
         if (!accountRequestDTO.password().equals(accountRequestDTO.confirmPassword())) {
@@ -48,116 +115,375 @@ public class AccountServiceImpl implements AccountService {
 
         account.setId(UUID.randomUUID().toString());
         account.setEmail(accountRequestDTO.email());
-        account.setPassword(accountRequestDTO.password());
-
-        String accountNumber;
-
-        do {
-            accountNumber = accountNumberGenerator.generateAccountNumber();
-        } while (accountRepository.existsAccountByAccountNumber(accountNumber));
+        // hashed before the transaction starts, so no connection is held while it runs
+        account.setPassword(passwordHasher.hash(accountRequestDTO.password()));
 
-        account.setAccountNumber(accountNumber);
-        account.setBalance(BigDecimal.valueOf(0.0));
+        account.setBalance(Money.ZERO);
         account.setRole(RoleType.USER);
+        account.setVersion(0L);
 
-        account =  accountRepository.save(account);
+        // every attempt is its own transaction, since a new number may be on another shard
+        do {
+            account.setAccountNumber(accountNumberGenerator.generateAccountNumber());
+        } while (!Boolean.TRUE.equals(transactionOperations.execute(status -> {
+            databaseShards.bind(account.getAccountNumber());
+            return accountRepository.insertIfAccountNumberIsFree(account) == 1;
+        })));
 
-        log.info("Account with id [%s] created".formatted(account.getId()));
+        auditLog.record(AuditEventType.ACCOUNT_CREATED, account.getAccountNumber(), null, null);
 
         return account;
     }
 
+    /**
+     * Creates all accounts in one transaction, or none if any request is invalid. Passwords are hashed before
+     * the transaction starts. Account numbers are drawn for the whole batch at once and inserted with one statement;
+     * accounts whose number turned out to be taken draw new numbers and are inserted again, so a round only ever
+     * repeats for the few that collided. With several database shards the accounts are dealt out over the shards,
+     * draw numbers on their shard, and each shard's part commits in its own transaction.
+     */
     @Override
-    @Transactional(readOnly = true)
-    public Account findByAccountNumber(String accountNumber) {
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "create-batch"}, histogram = true)
+    public List<Account> createAccounts(List<AccountRequestDTO> accountRequestDTOs) {
 
-        if (accountNumber == null || accountNumber.isBlank()) {
-            throw new IllegalArgumentException("Account number must not be null or empty");
+        if (accountRequestDTOs == null || accountRequestDTOs.isEmpty() || accountRequestDTOs.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new IllegalArgumentException("Account batch must contain between 1 and %d accounts".formatted(MAX_CREATE_BATCH_SIZE));
         }
 
-        if (!accountNumber.matches("\\d{9}")) {
-            throw new IllegalArgumentException("Account number has an invalid format");
+        for (int i = 0; i < accountRequestDTOs.size(); i++) {
+            try {
+                validateAccountRequest(accountRequestDTOs.get(i));
+            } catch (IllegalArgumentException | PasswordDontMatchException ex) {
+                throw new IllegalArgumentException("Account request [%d]: %s".formatted(i, ex.getMessage()));
+            }
         }
 
-        return accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber)));
+        List<String> passwords = passwordHasher.hashAll(accountRequestDTOs.stream().map(AccountRequestDTO::password).toList());
+        List<Account> accounts = new ArrayList<>(accountRequestDTOs.size());
+
+        for (int i = 0; i < accountRequestDTOs.size(); i++) {
+
+            Account account = new Account();
+
+            account.setId(UUID.randomUUID().toString());
+            account.setEmail(accountRequestDTOs.get(i).email());
+            account.setPassword(passwords.get(i));
+
+            account.setBalance(Money.ZERO);
+            account.setRole(RoleType.USER);
+            account.setVersion(0L);
+
+            accounts.add(account);
+        }
+
+        if (!databaseShards.isSharded()) {
+            transactionOperations.executeWithoutResult(status ->
+                    insertWithFreeAccountNumbers(accounts, accountNumberGenerator::generateAccountNumbers));
+        } else {
+            for (int shard = 0; shard < databaseShards.count(); shard++) {
+
+                int current = shard;
+                List<Account> part = new ArrayList<>();
+                for (int i = shard; i < accounts.size(); i += databaseShards.count()) {
+                    part.add(accounts.get(i));
+                }
+
+                if (!part.isEmpty()) {
+                    transactionOperations.executeWithoutResult(status -> {
+                        databaseShards.bindShard(current);
+                        insertWithFreeAccountNumbers(part, count ->
+                                accountNumberGenerator.generateAccountNumbers(count, current, databaseShards.count()));
+                    });
+                }
+            }
+        }
+
+        accounts.forEach(account -> auditLog.record(AuditEventType.ACCOUNT_CREATED, account.getAccountNumber(), null, null));
+
+        return accounts;
     }
 
     @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "find"}, histogram = true)
     @Transactional(readOnly = true)
-    public List<Account> getAll() {
-        return accountRepository.findAll();
+    public Account findByAccountNumber(String accountNumber) {
+
+        validateAccountNumber(accountNumber);
+        databaseShards.bind(accountNumber);
+
+        return withTotalBalance(accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber))));
     }
 
     @Override
-    @Transactional
-    public Account depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount) {
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "lookup"}, histogram = true)
+    public AccountDTO findAccountDTO(String accountNumber) {
+
+        validateAccountNumber(accountNumber);
 
-        if (depositAmount.compareTo(BigDecimal.ZERO) <= 0 || depositAmount.scale() > 2 ) {
-            throw new IllegalArgumentException("Invalid value for deposit funds");
+        return accountCache.get(accountNumber, number -> transactionOperations.execute(status -> {
+            databaseShards.bind(number);
+            return accountRepository.findDTOByAccountNumber(number)
+                    .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(number)));
+        }));
+    }
+
+    /**
+     * With several database shards, every shard returns its own first {@code limit} accounts and the page is the
+     * first {@code limit} of them all, so pages stay in account number order.
+     */
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "page"}, histogram = true)
+    public AccountPageDTO getPage(String afterAccountNumber, int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page limit must be between 1 and %d".formatted(MAX_PAGE_SIZE));
         }
 
-        Account account = findByAccountNumber(accountNumber);
+        List<List<AccountDTO>> shardPages = databaseShards.readEachShard(() -> accountRepository.findPageAfter(
+                afterAccountNumber == null ? "" : afterAccountNumber, Limit.of(limit)));
+
+        List<AccountDTO> accounts = shardPages.size() == 1
+                ? shardPages.get(0)
+                : shardPages.stream()
+                        .flatMap(List::stream)
+                        .sorted(Comparator.comparing(AccountDTO::accountNumber))
+                        .limit(limit)
+                        .toList();
+
+        String nextAfter = accounts.size() < limit ? null : accounts.get(accounts.size() - 1).accountNumber();
+
+        return new AccountPageDTO(accounts, nextAfter);
+    }
+
+    /**
+     * With several database shards, the shards are streamed one after another, each in account number order.
+     */
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    public void streamAll(Consumer<AccountDTO> consumer) {
+
+        databaseShards.readEachShard(() -> {
+            try (Stream<AccountDTO> accounts = accountRepository.streamAll()) {
+                accounts.forEach(consumer);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "deposit"}, histogram = true)
+    public Account depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount) {
 
-        BigDecimal updatedBalance = account.getBalance().add(depositAmount);
-        account.setBalance(updatedBalance);
+        Money amount = validateAmount(depositAmount, "Invalid value for deposit funds");
+        validateAccountNumber(accountNumber);
 
-        log.info("Deposit of %s to account [%s] at %s".formatted(depositAmount, accountNumber, LocalDateTime.now()));
+        // not @Transactional: a deposit waiting for its group commit must not hold a connection meanwhile
+        Account account = depositGroupCommitter.deposit(accountNumber, amount)
+                .orElseGet(() -> transactionOperations.execute(status -> applyDeposit(accountNumber, amount)));
 
-        return accountRepository.save(account);
+        auditLog.record(AuditEventType.DEPOSIT, accountNumber, null, amount);
+
+        return account;
     }
 
     @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "withdraw"}, histogram = true)
     @Transactional
     public Account withdrawFundsFromAnAccount(String accountNumber, BigDecimal withdrawAmount) {
 
-        if (withdrawAmount.compareTo(BigDecimal.ZERO) <= 0 || withdrawAmount.scale() > 2 ) {
-            throw new IllegalArgumentException("Invalid value for withdraw funds");
+        Money amount = validateAmount(withdrawAmount, "Invalid value for withdraw funds");
+        validateAccountNumber(accountNumber);
+        databaseShards.bind(accountNumber);
+        idempotencyService.boundClaim().ifPresent(idempotencyService::markApplied);
+
+        Optional<Account> account = accountRepository.subtractFromBalanceIfSufficient(accountNumber, amount.toBigDecimal());
+        // the row balance of a sharded account is only part of its total, unless its shards were just drained
+        boolean totalKnown = account.isPresent() && account.get().getBalanceShards() == 0;
+
+        if (account.isEmpty()) {
+            if (!accountRepository.existsAccountByAccountNumber(accountNumber)) {
+                throw new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber));
+            }
+            account = withdrawFromDrainedShards(accountNumber, amount);
+            if (account.isEmpty()) {
+                throw new InsufficientFundsException("Insufficient funds");
+            }
+            totalKnown = true;
         }
 
-        Account account = findByAccountNumber(accountNumber);
+        ledgerService.recordWithdrawal(accountNumber, amount, totalKnown ? account.get().getBalance() : null);
+        accountCache.evictAfterCommit(accountNumber);
+
+        auditLog.recordAfterCommit(AuditEventType.WITHDRAWAL, accountNumber, null, amount);
+
+        return totalKnown ? account.get() : withTotalBalance(account.get());
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "shard"}, histogram = true)
+    @Transactional
+    public Account addBalanceShards(String accountNumber, int shards) {
+
+        validateAccountNumber(accountNumber);
+        databaseShards.bind(accountNumber);
 
-        if (account.getBalance().compareTo(withdrawAmount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds");
+        if (shards < 1 || shards > MAX_BALANCE_SHARDS) {
+            throw new IllegalArgumentException("Balance shard count must be between 1 and %d".formatted(MAX_BALANCE_SHARDS));
         }
 
-        BigDecimal updatedBalance = account.getBalance().subtract(withdrawAmount);
-        account.setBalance(updatedBalance);
+        Account account = accountRepository.lockAllByAccountNumberIn(List.of(accountNumber)).stream()
+                .findFirst()
+                .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber)));
+
+        if (shards < account.getBalanceShards()) {
+            throw new IllegalArgumentException("Account [%s] already has %d balance shards, shards can only be added"
+                    .formatted(accountNumber, account.getBalanceShards()));
+        }
 
-        log.info("Withdrawal of {} from account {} at {}", withdrawAmount, accountNumber, LocalDateTime.now());
+        balanceShardRepository.createShards(accountNumber, account.getBalanceShards(), shards);
+        account.setBalanceShards(shards);
+        accountCache.evictAfterCommit(accountNumber);
 
-        return accountRepository.save(account);
+        return withTotalBalance(account);
     }
 
     @Override
-    @Transactional
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "transfer"}, histogram = true)
     public void transferFundsBetweenTwoAccount(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount) {
 
-        if (senderAccountNumber.equals(receiverAccountNumber)) {
-            throw new IllegalArgumentException("Sender and receiver accounts must be different");
+        Money amount = validateTransfer(senderAccountNumber, receiverAccountNumber, transferAmount);
+
+        transferEngine.transfer(senderAccountNumber, receiverAccountNumber, amount);
+
+        auditLog.record(AuditEventType.TRANSFER, senderAccountNumber, receiverAccountNumber, amount);
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "transfer-batch"}, histogram = true)
+    public List<TransferResultDTO> transferFundsInBatch(List<TransferRequestDTO> transfers) {
+
+        if (transfers == null || transfers.isEmpty() || transfers.size() > MAX_TRANSFER_BATCH_SIZE) {
+            throw new IllegalArgumentException("Transfer batch must contain between 1 and %d transfers".formatted(MAX_TRANSFER_BATCH_SIZE));
+        }
+
+        TransferResultDTO[] results = new TransferResultDTO[transfers.size()];
+        List<Integer> accepted = new ArrayList<>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO transfer = transfers.get(i);
+            if (transfer == null) {
+                results[i] = TransferResultDTO.rejected(i, "Transfer must not be null");
+                continue;
+            }
+            try {
+                validateTransfer(transfer.senderAccountNumber(), transfer.receiverAccountNumber(), transfer.transferAmount());
+                accepted.add(i);
+            } catch (IllegalArgumentException ex) {
+                results[i] = TransferResultDTO.rejected(i, ex.getMessage());
+            }
         }
 
-        if (transferAmount.compareTo(BigDecimal.ZERO) <= 0 || transferAmount.scale() > 2 ) {
-            throw new IllegalArgumentException("Invalid value for deposit funds");
+        if (!accepted.isEmpty()) {
+            for (TransferResultDTO result : transferEngine.transferBatch(transfers, accepted)) {
+                results[result.index()] = result;
+                if (result.status() == TransferStatus.COMPLETED) {
+                    TransferRequestDTO transfer = transfers.get(result.index());
+                    auditLog.record(AuditEventType.TRANSFER, transfer.senderAccountNumber(),
+                            transfer.receiverAccountNumber(), Money.of(transfer.transferAmount()));
+                }
+            }
         }
 
-        Account senderAccount = findByAccountNumber(senderAccountNumber);
+        return Arrays.asList(results);
+    }
+
+    private Account applyDeposit(String accountNumber, Money depositAmount) {
 
-        if (senderAccount.getBalance().compareTo(transferAmount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds for transfer");
+        databaseShards.bind(accountNumber);
+        idempotencyService.boundClaim().ifPresent(idempotencyService::markApplied);
+
+        Optional<Account> account = accountRepository.addToBalance(accountNumber, depositAmount.toBigDecimal());
+
+        if (account.isEmpty()) {
+            return depositIntoShard(accountNumber, depositAmount);
         }
 
-        Account receiverAccount = findByAccountNumber(receiverAccountNumber);
+        ledgerService.recordDeposit(accountNumber, depositAmount, account.get().getBalance());
+        accountCache.evictAfterCommit(accountNumber);
+
+        return account.get();
+    }
+
+    /**
+     * Inserts the accounts, drawing new numbers for those whose number turned out to be taken until all are in.
+     */
+    private void insertWithFreeAccountNumbers(List<Account> accounts, IntFunction<Set<String>> drawAccountNumbers) {
 
-        BigDecimal updateBalanceForSender = senderAccount.getBalance().subtract(transferAmount);
-        senderAccount.setBalance(updateBalanceForSender);
+        List<Account> pending = accounts;
 
-        BigDecimal updateBalanceForReceiver = receiverAccount.getBalance().add(transferAmount);
-        receiverAccount.setBalance(updateBalanceForReceiver);
+        while (!pending.isEmpty()) {
 
-        accountRepository.save(senderAccount);
-        accountRepository.save(receiverAccount);
+            Iterator<String> accountNumbers = drawAccountNumbers.apply(pending.size()).iterator();
+            pending.forEach(account -> account.setAccountNumber(accountNumbers.next()));
+
+            Set<String> inserted = accountRepository.insertAllIfAccountNumbersAreFree(pending);
+
+            pending = pending.stream()
+                    .filter(account -> !inserted.contains(account.getAccountNumber()))
+                    .toList();
+        }
+    }
+
+    /**
+     * Credits a random shard of a sharded account, leaving the contended account row alone.
+     */
+    private Account depositIntoShard(String accountNumber, Money depositAmount) {
+
+        balanceShardRepository.addToRandomShard(accountNumber, depositAmount.toBigDecimal(), ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE))
+                .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber)));
+
+        ledgerService.recordDeposit(accountNumber, depositAmount, null);
+        accountCache.evictAfterCommit(accountNumber);
+
+        return findByAccountNumber(accountNumber);
+    }
+
+    /**
+     * Rebalances a sharded account whose row balance ran low: with the account row locked, the shards are
+     * drained onto it and the withdrawal is retried against the full balance.
+     *
+     * @return the updated account, or empty if the account is not sharded or its total balance is insufficient
+     */
+    private Optional<Account> withdrawFromDrainedShards(String accountNumber, Money withdrawAmount) {
+
+        Optional<Account> locked = accountRepository.lockAllByAccountNumberIn(List.of(accountNumber)).stream().findFirst();
+
+        if (locked.isEmpty() || locked.get().getBalanceShards() == 0) {
+            return Optional.empty();
+        }
+
+        Account account = locked.get();
+        Money balance = account.getBalance().plus(Money.of(balanceShardRepository.drainShards(accountNumber)));
+
+        if (balance.isLessThan(withdrawAmount)) {
+            return Optional.empty();
+        }
+
+        account.setBalance(balance.minus(withdrawAmount));
+        return Optional.of(account);
+    }
+
+    /**
+     * Returns the account with its total balance. A sharded account is copied rather than modified,
+     * so the managed entity is never flushed with the aggregated balance.
+     */
+    private Account withTotalBalance(Account account) {
+
+        if (account.getBalanceShards() == 0) {
+            return account;
+        }
 
-        log.info("Transfer of {} from account {} to account {} completed", transferAmount, senderAccountNumber, receiverAccountNumber);
+        return account.withBalance(account.getBalance().plus(Money.of(balanceShardRepository.sumBalances(account.getAccountNumber()))));
     }
 }
@@ -0,0 +1,82 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.utils.AccountNumbers;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Request checks shared by the servlet and reactive account services, so both reject the same input
+ * with the same messages.
+ */
+final class AccountValidation {
+
+    private static final Pattern EMAIL = Pattern.compile(AccountRequestDTO.EMAIL_REGEXP);
+
+    private AccountValidation() {
+    }
+
+    /**
+     * @return the amount as {@link Money}, which is what the services compute with past this point
+     */
+    static Money validateAmount(BigDecimal amount, String message) {
+
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0 || amount.scale() > 2 ) {
+            throw new IllegalArgumentException(message);
+        }
+
+        try {
+            return Money.of(amount);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    static Money validateTransfer(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount) {
+
+        if (Objects.equals(senderAccountNumber, receiverAccountNumber)) {
+            throw new IllegalArgumentException("Sender and receiver accounts must be different");
+        }
+
+        Money amount = validateAmount(transferAmount, "Invalid value for transfer funds");
+
+        validateAccountNumber(senderAccountNumber);
+        validateAccountNumber(receiverAccountNumber);
+
+        return amount;
+    }
+
+    static void validateAccountNumber(String accountNumber) {
+
+        if (accountNumber == null || accountNumber.isBlank()) {
+            throw new IllegalArgumentException("Account number must not be null or empty");
+        }
+
+        if (!AccountNumbers.isValid(accountNumber)) {
+            throw new IllegalArgumentException("Account number has an invalid format");
+        }
+    }
+
+    /**
+     * The constraints declared on {@link AccountRequestDTO}, for requests that reach the service in bulk.
+     */
+    static void validateAccountRequest(AccountRequestDTO request) {
+
+        if (request == null || request.email() == null || request.email().isBlank()
+                || request.password() == null || request.password().isBlank()) {
+            throw new IllegalArgumentException("Email and password must not be empty");
+        }
+
+        if (!EMAIL.matcher(request.email()).matches()) {
+            throw new IllegalArgumentException("Email is not correct");
+        }
+
+        if (!request.password().equals(request.confirmPassword())) {
+            throw new PasswordDontMatchException("Password and confirm password don't match");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.utils.AccountNumbers;
+import com.example.banking_solution.utils.engine.BalanceBook;
+import com.example.banking_solution.utils.engine.BalanceEngine;
+import com.example.banking_solution.utils.engine.WalRecord;
+import com.example.banking_solution.utils.engine.WriteAheadLog;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import com.example.banking_solution.utils.enums.WalRecordType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copies what the {@link BalanceEngine} has made durable into Postgres, so reporting, paging and exports keep
+ * working on the in-memory profile. Every run follows the engine's write-ahead log from the last projected
+ * sequence and writes up to {@code batch-size} records in one transaction: new accounts, the final balance of
+ * each account touched, one ledger row per entry, and the new position in {@code balance_engine_projection}.
+ * The position commits with the rows, so a batch is projected exactly once even across crashes.
+ * <p>
+ * Postgres lags the engine by the time between runs and is only ever written here while the profile is active.
+ */
+@Slf4j
+@Component
+@Profile("in-memory")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BalanceProjector {
+
+    final JdbcTemplate jdbcTemplate;
+    final TransactionOperations transactionOperations;
+    final MeterRegistry meterRegistry;
+    final int batchSize;
+    final List<WalRecord> batch = new ArrayList<>();
+    BalanceEngine engine;
+    WriteAheadLog.Reader reader;
+
+    @Autowired
+    public BalanceProjector(JdbcTemplate jdbcTemplate,
+                            TransactionOperations transactionOperations,
+                            MeterRegistry meterRegistry,
+                            @Value("${banking.engine.projection.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Loads every account for an engine starting without any state on disk. Shards are folded into their
+     * account's balance first, since the engine keeps a single balance per account, and the projection
+     * restarts from sequence 0.
+     */
+    public BalanceBook seed() {
+        return transactionOperations.execute(status -> {
+
+            jdbcTemplate.update("""
+                    UPDATE bank_accounts a SET balance = a.balance + s.total, balance_shards = 0
+                    FROM (SELECT account_number, SUM(balance) AS total FROM account_balance_shards GROUP BY account_number) s
+                    WHERE a.account_number = s.account_number
+                    """);
+            jdbcTemplate.update("UPDATE account_balance_shards SET balance = 0");
+            jdbcTemplate.update("UPDATE balance_engine_projection SET position = 0 WHERE id = 1");
+
+            Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM bank_accounts", Integer.class);
+            BalanceBook book = new BalanceBook(count == null ? 0 : count);
+
+            jdbcTemplate.query("SELECT id, account_number, email, password, balance, role FROM bank_accounts",
+                    (RowCallbackHandler) row -> book.open(AccountNumbers.parse(row.getString("account_number")),
+                            new BalanceBook.Profile(row.getString("id"), row.getString("email"),
+                                    row.getString("password"), row.getString("role")),
+                            row.getBigDecimal("balance").movePointRight(2).longValueExact()));
+
+            log.info("Seeded the balance engine with {} accounts", book.size());
+            return book;
+        });
+    }
+
+    /**
+     * Starts projecting the engine's log from the position stored in Postgres.
+     */
+    public void follow(BalanceEngine engine) {
+
+        Long position = jdbcTemplate.queryForObject("SELECT position FROM balance_engine_projection WHERE id = 1", Long.class);
+
+        engine.projected(position);
+        this.reader = engine.openReader(position);
+        this.engine = engine;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.engine.projection.interval-ms}")
+    public void project() {
+
+        if (engine == null) {
+            return;
+        }
+
+        try {
+            // a batch that failed to commit is retried as it was before anything new is read
+            while (!batch.isEmpty() || reader.read(engine.durableSequence(), batchSize, batch::add) > 0) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                transactionOperations.executeWithoutResult(status -> write(batch));
+                sample.stop(meterRegistry.timer("banking.engine.projection"));
+
+                engine.projected(batch.get(batch.size() - 1).sequence());
+                batch.clear();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Projecting the balance engine log after sequence {} failed", engine.projectedSequence(), ex);
+        }
+    }
+
+    private void write(List<WalRecord> records) {
+
+        List<Object[]> accounts = new ArrayList<>();
+        List<Object[]> ledgerEntries = new ArrayList<>();
+        // the last balance of each account in the batch, in account number order like every other writer locks rows
+        Map<Integer, Long> balances = new TreeMap<>();
+
+        for (WalRecord record : records) {
+
+            String accountNumber = AccountNumbers.format(record.accountNumber());
+            Timestamp createdAt = new Timestamp(record.timestampMillis());
+
+            switch (record.type()) {
+                case ACCOUNT_CREATED -> accounts.add(new Object[]{record.id(), accountNumber, record.email(), record.passwordHash()});
+                case DEPOSIT, WITHDRAWAL -> ledgerEntries.add(new Object[]{
+                        record.type() == WalRecordType.DEPOSIT ? LedgerEntryType.DEPOSIT.name() : LedgerEntryType.WITHDRAWAL.name(),
+                        accountNumber, null, cents(record.amountCents()), cents(record.balanceAfterCents()), createdAt});
+                case TRANSFER -> {
+                    String receiverAccountNumber = AccountNumbers.format(record.counterpartyAccountNumber());
+                    ledgerEntries.add(new Object[]{LedgerEntryType.TRANSFER_OUT.name(), accountNumber, receiverAccountNumber,
+                            cents(record.amountCents()), cents(record.balanceAfterCents()), createdAt});
+                    ledgerEntries.add(new Object[]{LedgerEntryType.TRANSFER_IN.name(), receiverAccountNumber, accountNumber,
+                            cents(record.amountCents()), cents(record.counterpartyBalanceAfterCents()), createdAt});
+                    balances.put(record.counterpartyAccountNumber(), record.counterpartyBalanceAfterCents());
+                }
+            }
+
+            if (record.type() != WalRecordType.ACCOUNT_CREATED) {
+                balances.put(record.accountNumber(), record.balanceAfterCents());
+            }
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO bank_accounts (id, account_number, email, password, balance, role, version, balance_shards)
+                VALUES (?, ?, ?, ?, 0, 'USER', 0, 0)
+                ON CONFLICT (account_number) DO NOTHING
+                """, accounts);
+
+        jdbcTemplate.batchUpdate("UPDATE bank_accounts SET balance = ?, version = version + 1 WHERE account_number = ?",
+                balances.entrySet().stream()
+                        .map(entry -> new Object[]{cents(entry.getValue()), AccountNumbers.format(entry.getKey())})
+                        .toList());
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO transactions (id, type, account_number, counterparty_account_number, amount, balance_after, created_at)
+                VALUES (nextval('transactions_id_seq'), ?, ?, ?, ?, ?, ?)
+                """, ledgerEntries);
+
+        jdbcTemplate.update("UPDATE balance_engine_projection SET position = ? WHERE id = 1",
+                records.get(records.size() - 1).sequence());
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.services.LedgerService;
+import com.example.banking_solution.utils.AccountCache;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.TransactionRetryExecutor;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind deposits with group commit, enabled with {@code banking.deposit.group-commit.enabled}.
+ * Request threads queue their deposit and wait. A single committer thread collects deposits for up to
+ * {@code max-delay-ms} or {@code max-batch-size} items, then commits them in one transaction: one
+ * balance update per account, with the amounts summed, and one batched insert of all ledger entries.
+ * A caller is answered only after that transaction has committed, so every acknowledged deposit is durable.
+ * <p>
+ * Accounts are updated in account number order, like transfers lock them, so a group commit cannot deadlock
+ * with a transfer. With several database shards, each shard's part of a group commits in its own transaction.
+ * When the queue is full, {@link #deposit} returns empty and the caller deposits on its own. A group whose
+ * statements fail, for any reason but an unavailable database, was rolled back and is applied again one deposit
+ * at a time, so a deposit that cannot be applied only fails its own caller. A group that fails to commit is not
+ * replayed, since it may have been applied.
+ * Group sizes and commit times are published as {@code banking.deposit.group-commit.size} and
+ * {@code banking.deposit.group-commit}.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DepositGroupCommitter {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    final AccountRepository accountRepository;
+    final AccountBalanceShardRepository balanceShardRepository;
+    final TransactionRetryExecutor transactionRetryExecutor;
+    final AccountCache accountCache;
+    final LedgerService ledgerService;
+    final DatabaseShards databaseShards;
+    final IdempotencyService idempotencyService;
+    final MeterRegistry meterRegistry;
+    final boolean enabled;
+    final long maxDelayNanos;
+    final int maxBatchSize;
+    final long waitTimeoutMillis;
+    final BlockingQueue<PendingDeposit> queue;
+    final DistributionSummary groupSize;
+    final Counter overflows;
+    final Thread committerThread;
+    volatile boolean running = true;
+
+    @Autowired
+    public DepositGroupCommitter(AccountRepository accountRepository,
+                                 AccountBalanceShardRepository balanceShardRepository,
+                                 TransactionRetryExecutor transactionRetryExecutor,
+                                 AccountCache accountCache,
+                                 LedgerService ledgerService,
+                                 DatabaseShards databaseShards,
+                                 IdempotencyService idempotencyService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${banking.deposit.group-commit.enabled}") boolean enabled,
+                                 @Value("${banking.deposit.group-commit.max-delay-ms}") long maxDelayMillis,
+                                 @Value("${banking.deposit.group-commit.max-batch-size}") int maxBatchSize,
+                                 @Value("${banking.deposit.group-commit.queue-capacity}") int queueCapacity,
+                                 @Value("${banking.deposit.group-commit.wait-timeout-ms}") long waitTimeoutMillis) {
+        this.accountRepository = accountRepository;
+        this.balanceShardRepository = balanceShardRepository;
+        this.transactionRetryExecutor = transactionRetryExecutor;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.databaseShards = databaseShards;
+        this.idempotencyService = idempotencyService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.groupSize = meterRegistry.summary("banking.deposit.group-commit.size");
+        this.overflows = meterRegistry.counter("banking.deposit.group-commit.overflows");
+
+        if (enabled) {
+            this.committerThread = new Thread(this::commitLoop, "deposit-group-commit");
+            this.committerThread.setDaemon(true);
+            this.committerThread.start();
+        } else {
+            this.committerThread = null;
+        }
+    }
+
+    /**
+     * Queues the deposit and waits until the group commit containing it has finished. A deposit still queued after
+     * {@code wait-timeout-ms} is withdrawn from the queue and fails; once the committer has taken it, its group is
+     * waited for however long it takes, since only the group knows whether the deposit was applied.
+     *
+     * @return the account with its balance right after this deposit, or empty if group commit is disabled
+     * or its queue is full and the deposit was not taken
+     * @throws IllegalStateException if the committer shut down or did not take the deposit in time; it was not applied
+     */
+    public Optional<Account> deposit(String accountNumber, Money amount) {
+
+        if (!enabled || !running || !committerThread.isAlive()) {
+            return Optional.empty();
+        }
+
+        PendingDeposit pending = new PendingDeposit(accountNumber, amount, idempotencyService.boundClaim().orElse(null),
+                new CompletableFuture<>());
+
+        if (!queue.offer(pending)) {
+            overflows.increment();
+            return Optional.empty();
+        }
+
+        // close() may have drained the queue between the check above and the offer
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("Deposit group commit is shutting down");
+        }
+
+        try {
+            return Optional.of(pending.result().get(waitTimeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException ex) {
+            // a deposit still queued is certainly not applied; one already taken is in a group that is committing
+            if (queue.remove(pending)) {
+                throw new IllegalStateException("Deposit was not taken within %d ms and was dropped".formatted(waitTimeoutMillis));
+            }
+            return Optional.of(awaitTaken(pending));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.of(awaitTaken(pending));
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        }
+    }
+
+    /**
+     * Waits for the outcome of a deposit the committer has taken. Every group completes all of its deposits,
+     * so this ends when the group's transaction does.
+     */
+    private static Account awaitTaken(PendingDeposit pending) {
+        try {
+            return pending.result().join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+    }
+
+    /**
+     * Stops the committer after it has committed everything queued so far.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+
+        running = false;
+
+        if (committerThread != null) {
+            committerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        PendingDeposit left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("Deposit group commit is shutting down"));
+        }
+    }
+
+    private void commitLoop() {
+
+        List<PendingDeposit> group = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(group);
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                // the thread must survive anything, or every later deposit would wait for it in vain
+                log.error("Deposit group commit failed unexpectedly", ex);
+                group.forEach(deposit -> deposit.result().completeExceptionally(ex));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for a first deposit, then keeps collecting until the group is full or {@code max-delay-ms} has passed.
+     */
+    private void collect(List<PendingDeposit> group) throws InterruptedException {
+
+        PendingDeposit first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (first == null) {
+            return;
+        }
+
+        group.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+
+        while (group.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingDeposit next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingDeposit> group) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        groupSize.record(group.size());
+
+        Map<Integer, Map<String, List<PendingDeposit>>> byShard = new TreeMap<>();
+        for (PendingDeposit deposit : group) {
+            byShard.computeIfAbsent(databaseShards.shardOf(deposit.accountNumber()), shard -> new TreeMap<>())
+                    .computeIfAbsent(deposit.accountNumber(), number -> new ArrayList<>()).add(deposit);
+        }
+
+        try {
+            byShard.forEach(this::commitShard);
+        } finally {
+            sample.stop(meterRegistry.timer("banking.deposit.group-commit"));
+        }
+    }
+
+    private void commitShard(int shard, Map<String, List<PendingDeposit>> byAccount) {
+
+        // set when the group's own statements failed, so its transaction was rolled back; a failure to commit
+        // leaves it open whether the group was applied
+        AtomicBoolean rolledBack = new AtomicBoolean();
+
+        try {
+            List<AppliedDeposit> applied = transactionRetryExecutor.execute("deposit-group", () -> {
+                databaseShards.bindShard(shard);
+                rolledBack.set(false);
+                try {
+                    return apply(byAccount);
+                } catch (RuntimeException ex) {
+                    rolledBack.set(true);
+                    throw ex;
+                }
+            });
+
+            for (AppliedDeposit deposit : applied) {
+                if (deposit.account() == null) {
+                    deposit.pending().result().completeExceptionally(new AccountNotFoundException(
+                            "Account with number [%s] not found".formatted(deposit.pending().accountNumber())));
+                } else {
+                    deposit.pending().result().complete(deposit.account());
+                }
+            }
+        } catch (RuntimeException ex) {
+
+            List<PendingDeposit> failed = byAccount.values().stream().flatMap(List::stream).toList();
+
+            if (failed.size() == 1 || !rolledBack.get() || isDatabaseUnavailable(ex)) {
+                log.warn("Group commit of {} deposits failed", failed.size(), ex);
+                failed.forEach(deposit -> deposit.result().completeExceptionally(ex));
+                return;
+            }
+
+            // the group was rolled back; applied one by one, a bad deposit only fails its own caller
+            log.warn("Group commit of {} deposits failed, applying them one at a time", failed.size(), ex);
+            failed.forEach(deposit -> commitShard(shard, Map.of(deposit.accountNumber(), List.of(deposit))));
+        }
+    }
+
+    private static boolean isDatabaseUnavailable(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException || ex instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Applies every account's summed deposits with one statement and records one ledger entry per deposit.
+     * Deposits to an unknown account are returned without an account and written nowhere. The idempotency
+     * claims of the deposits are marked applied in the same transaction; a claim that was taken over fails the
+     * group, which is then rolled back and replayed without it.
+     */
+    private List<AppliedDeposit> apply(Map<String, List<PendingDeposit>> byAccount) {
+
+        byAccount.values().stream().flatMap(List::stream)
+                .map(PendingDeposit::claim)
+                .filter(Objects::nonNull)
+                .forEach(idempotencyService::markApplied);
+
+        List<AppliedDeposit> applied = new ArrayList<>();
+        List<LedgerService.Deposit> ledgerEntries = new ArrayList<>();
+
+        for (Map.Entry<String, List<PendingDeposit>> entry : byAccount.entrySet()) {
+
+            String accountNumber = entry.getKey();
+            List<PendingDeposit> deposits = entry.getValue();
+            Money total = deposits.stream().map(PendingDeposit::amount).reduce(Money.ZERO, Money::plus);
+
+            Optional<Account> updated = accountRepository.addToBalance(accountNumber, total.toBigDecimal());
+
+            if (updated.isPresent()) {
+                // replay the group in arrival order so each deposit gets the balance right after it
+                Money balance = updated.get().getBalance().minus(total);
+                for (PendingDeposit deposit : deposits) {
+                    balance = balance.plus(deposit.amount());
+                    ledgerEntries.add(new LedgerService.Deposit(accountNumber, deposit.amount(), balance));
+                    applied.add(new AppliedDeposit(deposit, updated.get().withBalance(balance)));
+                }
+            } else if (balanceShardRepository.addToRandomShard(accountNumber, total.toBigDecimal(),
+                    ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)).isPresent()) {
+                Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+                Account withTotal = account.withBalance(
+                        account.getBalance().plus(Money.of(balanceShardRepository.sumBalances(accountNumber))));
+                for (PendingDeposit deposit : deposits) {
+                    ledgerEntries.add(new LedgerService.Deposit(accountNumber, deposit.amount(), null));
+                    applied.add(new AppliedDeposit(deposit, withTotal));
+                }
+            } else {
+                deposits.forEach(deposit -> applied.add(new AppliedDeposit(deposit, null)));
+            }
+        }
+
+        if (!ledgerEntries.isEmpty()) {
+            ledgerService.recordDeposits(ledgerEntries);
+        }
+        accountCache.evictAfterCommit(byAccount.keySet().toArray(String[]::new));
+
+        return applied;
+    }
+
+    private record PendingDeposit(String accountNumber, Money amount, IdempotencyService.Claim claim,
+                                  CompletableFuture<Account> result) {
+    }
+
+    private record AppliedDeposit(PendingDeposit pending, Account account) {
+    }
+}
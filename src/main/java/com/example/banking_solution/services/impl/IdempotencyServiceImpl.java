@@ -0,0 +1,197 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+import com.example.banking_solution.repositories.IdempotencyRecordRepository;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.utils.AccountNumbers;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.enums.IdempotencyStatus;
+import com.example.banking_solution.utils.exceptions.IdempotencyConflictException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Stores idempotency keys in the idempotency_keys table, fronted by an in-memory LRU of completed records.
+ * Completed records never change until they expire, so a hit in the LRU replays the response without touching
+ * the database; entries leave the LRU when their record expires, since the key may then be claimed anew.
+ * <p>
+ * A claim holds the key for {@code banking.idempotency.lease-seconds}. If the request dies without completing or
+ * releasing it, the key can be claimed again once the lease has run out instead of answering 409 until it expires.
+ * The balance change marks its claim applied in its own transaction; from then on the key is never taken over or
+ * released, so a request whose lease ran out, or whose outcome its caller never learned, is not applied twice.
+ * <p>
+ * With several database shards a record lives on the shard of its claim's account.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_CLEANUP_BATCHES_PER_RUN = 100;
+    private static final ThreadLocal<Claim> BOUND_CLAIM = new ThreadLocal<>();
+
+    IdempotencyRecordRepository idempotencyRecordRepository;
+    DatabaseShards databaseShards;
+    TransactionOperations transactionOperations;
+    Cache<String, IdempotencyRecord> completed;
+    Duration ttl;
+    Duration lease;
+    int cleanupBatchSize;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  DatabaseShards databaseShards,
+                                  TransactionOperations transactionOperations,
+                                  @Value("${banking.idempotency.ttl-hours}") long ttlHours,
+                                  @Value("${banking.idempotency.lease-seconds}") long leaseSeconds,
+                                  @Value("${banking.idempotency.cache-size}") long cacheSize,
+                                  @Value("${banking.idempotency.cleanup-batch-size}") int cleanupBatchSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.databaseShards = databaseShards;
+        this.transactionOperations = transactionOperations;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, IdempotencyRecord>() {
+
+                    @Override
+                    public long expireAfterCreate(String key, IdempotencyRecord record, long currentTime) {
+                        return untilExpiry(record);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                        return untilExpiry(record);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> claim(Claim claim, String requestFingerprint) {
+
+        IdempotencyRecord cached = completed.getIfPresent(claim.key());
+
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Instant now = Instant.now();
+
+        return onShardOf(claim, () -> {
+
+            if (idempotencyRecordRepository.claim(claim.key(), claim.claimId(), requestFingerprint,
+                    now, now.plus(ttl), now.plus(lease)) == 1) {
+                return Optional.<IdempotencyRecord>empty();
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(claim.key());
+
+            existing.filter(record -> record.getStatus() == IdempotencyStatus.COMPLETED)
+                    .filter(record -> record.getExpiresAt().isAfter(now))
+                    .ifPresent(record -> completed.put(claim.key(), record));
+
+            return existing;
+        });
+    }
+
+    @Override
+    public void bind(Claim claim) {
+        if (claim == null) {
+            BOUND_CLAIM.remove();
+        } else {
+            BOUND_CLAIM.set(claim);
+        }
+    }
+
+    @Override
+    public Optional<Claim> boundClaim() {
+        return Optional.ofNullable(BOUND_CLAIM.get());
+    }
+
+    @Override
+    public void markApplied(Claim claim) {
+        if (idempotencyRecordRepository.markApplied(claim.key(), claim.claimId()) == 0) {
+            throw new IdempotencyConflictException(
+                    "Idempotency key [%s] was taken over by another request".formatted(claim.key()));
+        }
+    }
+
+    @Override
+    public void complete(Claim claim, int responseStatus, String responseBody) {
+        onShardOf(claim, () -> idempotencyRecordRepository.complete(claim.key(), claim.claimId(), responseStatus, responseBody));
+    }
+
+    @Override
+    public void release(Claim claim) {
+        onShardOf(claim, () -> idempotencyRecordRepository.release(claim.key(), claim.claimId()));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${banking.idempotency.cleanup-interval-ms}")
+    public int purgeExpired() {
+
+        Instant now = Instant.now();
+        int purged = 0;
+
+        for (int shard = 0; shard < databaseShards.count(); shard++) {
+            int current = shard;
+            for (int batch = 0; batch < MAX_CLEANUP_BATCHES_PER_RUN; batch++) {
+                int deleted = transactionOperations.execute(status -> {
+                    databaseShards.bindShard(current);
+                    return idempotencyRecordRepository.deleteExpired(now, cleanupBatchSize);
+                });
+                purged += deleted;
+                if (deleted < cleanupBatchSize) {
+                    break;
+                }
+            }
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+
+        return purged;
+    }
+
+    /**
+     * Runs the action in a transaction on the shard of the claim's account, or on shard 0 if the request
+     * did not name a valid account.
+     */
+    private <T> T onShardOf(Claim claim, Supplier<T> action) {
+        return transactionOperations.execute(status -> {
+            databaseShards.bindShard(claim.accountNumber() != null && AccountNumbers.isValid(claim.accountNumber())
+                    ? databaseShards.shardOf(claim.accountNumber())
+                    : 0);
+            return action.get();
+        });
+    }
+
+    private static long untilExpiry(IdempotencyRecord record) {
+        return Math.max(0, Duration.between(Instant.now(), record.getExpiresAt()).toNanos());
+    }
+}
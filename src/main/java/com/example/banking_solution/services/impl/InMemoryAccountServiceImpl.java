@@ -0,0 +1,299 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.services.AccountService;
+import com.example.banking_solution.utils.AccountNumbers;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.engine.AccountState;
+import com.example.banking_solution.utils.engine.BalanceEngine;
+import com.example.banking_solution.utils.enums.AuditEventType;
+import com.example.banking_solution.utils.enums.RoleType;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
+import com.example.banking_solution.utils.mappers.AccountDTOMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.example.banking_solution.services.impl.AccountValidation.validateAccountNumber;
+import static com.example.banking_solution.services.impl.AccountValidation.validateAccountRequest;
+import static com.example.banking_solution.services.impl.AccountValidation.validateAmount;
+import static com.example.banking_solution.services.impl.AccountValidation.validateTransfer;
+
+/**
+ * {@link AccountService} on the {@link BalanceEngine}, for the {@code in-memory} profile. Balance operations and
+ * lookups never touch the database: they are answered by the engine once durable in its write-ahead log.
+ * Pages and streams read the Postgres projection, which trails the engine by up to one projection interval.
+ * Balance shards do not apply, since the engine has no contended rows to spread.
+ */
+@Service
+@Profile("in-memory")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class InMemoryAccountServiceImpl implements AccountService {
+
+    private static final String OPERATION_METRIC = "banking.account.operation";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_TRANSFER_BATCH_SIZE = 10000;
+    private static final int MAX_CREATE_BATCH_SIZE = 10000;
+
+    BalanceEngine balanceEngine;
+    AccountRepository accountRepository;
+    AccountDTOMapper accountDTOMapper;
+    PasswordHasher passwordHasher;
+    AuditLog auditLog;
+
+    @Autowired
+    public InMemoryAccountServiceImpl(BalanceEngine balanceEngine,
+                                      AccountRepository accountRepository,
+                                      AccountDTOMapper accountDTOMapper,
+                                      PasswordHasher passwordHasher,
+                                      AuditLog auditLog) {
+        this.balanceEngine = balanceEngine;
+        this.accountRepository = accountRepository;
+        this.accountDTOMapper = accountDTOMapper;
+        this.passwordHasher = passwordHasher;
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "create"}, histogram = true)
+    public Account createAccount(AccountRequestDTO accountRequestDTO) {
+
+        if (!accountRequestDTO.password().equals(accountRequestDTO.confirmPassword())) {
+            throw new PasswordDontMatchException("Password and confirm password don't match");
+        }
+
+        Account account = toAccount(await(balanceEngine.createAccount(UUID.randomUUID().toString(),
+                accountRequestDTO.email(), passwordHasher.hash(accountRequestDTO.password()))));
+
+        auditLog.record(AuditEventType.ACCOUNT_CREATED, account.getAccountNumber(), null, null);
+
+        return account;
+    }
+
+    /**
+     * Validates and hashes the whole batch before creating any account. Unlike on Postgres, the accounts are
+     * created one by one: if the engine halts midway, the ones created before stay.
+     */
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "create-batch"}, histogram = true)
+    public List<Account> createAccounts(List<AccountRequestDTO> accountRequestDTOs) {
+
+        if (accountRequestDTOs == null || accountRequestDTOs.isEmpty() || accountRequestDTOs.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new IllegalArgumentException("Account batch must contain between 1 and %d accounts".formatted(MAX_CREATE_BATCH_SIZE));
+        }
+
+        for (int i = 0; i < accountRequestDTOs.size(); i++) {
+            try {
+                validateAccountRequest(accountRequestDTOs.get(i));
+            } catch (IllegalArgumentException | PasswordDontMatchException ex) {
+                throw new IllegalArgumentException("Account request [%d]: %s".formatted(i, ex.getMessage()));
+            }
+        }
+
+        List<String> passwords = passwordHasher.hashAll(accountRequestDTOs.stream().map(AccountRequestDTO::password).toList());
+        List<CompletableFuture<AccountState>> created = new ArrayList<>(accountRequestDTOs.size());
+
+        for (int i = 0; i < accountRequestDTOs.size(); i++) {
+            created.add(balanceEngine.createAccount(UUID.randomUUID().toString(), accountRequestDTOs.get(i).email(), passwords.get(i)));
+        }
+
+        List<Account> accounts = created.stream().map(state -> toAccount(await(state))).toList();
+
+        accounts.forEach(account -> auditLog.record(AuditEventType.ACCOUNT_CREATED, account.getAccountNumber(), null, null));
+
+        return accounts;
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "find"}, histogram = true)
+    public Account findByAccountNumber(String accountNumber) {
+
+        validateAccountNumber(accountNumber);
+
+        return toAccount(await(balanceEngine.read(AccountNumbers.parse(accountNumber))));
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "lookup"}, histogram = true)
+    public AccountDTO findAccountDTO(String accountNumber) {
+
+        validateAccountNumber(accountNumber);
+
+        return accountDTOMapper.apply(toAccount(await(balanceEngine.read(AccountNumbers.parse(accountNumber)))));
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "page"}, histogram = true)
+    @Transactional(readOnly = true)
+    public AccountPageDTO getPage(String afterAccountNumber, int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page limit must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+
+        List<AccountDTO> accounts = accountRepository.findPageAfter(
+                afterAccountNumber == null ? "" : afterAccountNumber, Limit.of(limit));
+
+        String nextAfter = accounts.size() < limit ? null : accounts.get(accounts.size() - 1).accountNumber();
+
+        return new AccountPageDTO(accounts, nextAfter);
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AccountDTO> consumer) {
+
+        try (Stream<AccountDTO> accounts = accountRepository.streamAll()) {
+            accounts.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "deposit"}, histogram = true)
+    public Account depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount) {
+
+        Money amount = validateAmount(depositAmount, "Invalid value for deposit funds");
+        validateAccountNumber(accountNumber);
+
+        Account account = toAccount(await(balanceEngine.deposit(AccountNumbers.parse(accountNumber), amount.cents())));
+
+        auditLog.record(AuditEventType.DEPOSIT, accountNumber, null, amount);
+
+        return account;
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "withdraw"}, histogram = true)
+    public Account withdrawFundsFromAnAccount(String accountNumber, BigDecimal withdrawAmount) {
+
+        Money amount = validateAmount(withdrawAmount, "Invalid value for withdraw funds");
+        validateAccountNumber(accountNumber);
+
+        Account account = toAccount(await(balanceEngine.withdraw(AccountNumbers.parse(accountNumber), amount.cents())));
+
+        auditLog.record(AuditEventType.WITHDRAWAL, accountNumber, null, amount);
+
+        return account;
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "shard"}, histogram = true)
+    public Account addBalanceShards(String accountNumber, int shards) {
+        throw new IllegalArgumentException("Balance shards are not supported by the in-memory balance engine");
+    }
+
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "transfer"}, histogram = true)
+    public void transferFundsBetweenTwoAccount(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount) {
+
+        Money amount = validateTransfer(senderAccountNumber, receiverAccountNumber, transferAmount);
+
+        await(balanceEngine.transfer(AccountNumbers.parse(senderAccountNumber), AccountNumbers.parse(receiverAccountNumber),
+                amount.cents()));
+
+        auditLog.record(AuditEventType.TRANSFER, senderAccountNumber, receiverAccountNumber, amount);
+    }
+
+    /**
+     * Publishes every valid transfer to the engine before waiting for any, so the whole batch shares a few flushes.
+     */
+    @Override
+    @Timed(value = OPERATION_METRIC, extraTags = {"operation", "transfer-batch"}, histogram = true)
+    public List<TransferResultDTO> transferFundsInBatch(List<TransferRequestDTO> transfers) {
+
+        if (transfers == null || transfers.isEmpty() || transfers.size() > MAX_TRANSFER_BATCH_SIZE) {
+            throw new IllegalArgumentException("Transfer batch must contain between 1 and %d transfers".formatted(MAX_TRANSFER_BATCH_SIZE));
+        }
+
+        TransferResultDTO[] results = new TransferResultDTO[transfers.size()];
+        List<CompletableFuture<AccountState>> submitted = new ArrayList<>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO transfer = transfers.get(i);
+            if (transfer == null) {
+                results[i] = TransferResultDTO.rejected(i, "Transfer must not be null");
+                submitted.add(null);
+                continue;
+            }
+            try {
+                Money amount = validateTransfer(transfer.senderAccountNumber(), transfer.receiverAccountNumber(), transfer.transferAmount());
+                submitted.add(balanceEngine.transfer(AccountNumbers.parse(transfer.senderAccountNumber()),
+                        AccountNumbers.parse(transfer.receiverAccountNumber()), amount.cents()));
+            } catch (IllegalArgumentException | RejectedExecutionException ex) {
+                results[i] = TransferResultDTO.rejected(i, ex.getMessage());
+                submitted.add(null);
+            }
+        }
+
+        for (int i = 0; i < transfers.size(); i++) {
+
+            if (submitted.get(i) == null) {
+                continue;
+            }
+
+            try {
+                await(submitted.get(i));
+                results[i] = TransferResultDTO.completed(i);
+                TransferRequestDTO transfer = transfers.get(i);
+                auditLog.record(AuditEventType.TRANSFER, transfer.senderAccountNumber(),
+                        transfer.receiverAccountNumber(), Money.of(transfer.transferAmount()));
+            } catch (AccountNotFoundException | InsufficientFundsException | IllegalArgumentException ex) {
+                results[i] = TransferResultDTO.rejected(i, ex.getMessage());
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private static Account toAccount(AccountState state) {
+
+        Account account = new Account();
+
+        account.setId(state.profile().id());
+        account.setAccountNumber(AccountNumbers.format(state.accountNumber()));
+        account.setEmail(state.profile().email());
+        account.setPassword(state.profile().passwordHash());
+        account.setBalance(Money.ofCents(state.balanceCents()));
+        account.setRole(RoleType.valueOf(state.profile().role()));
+
+        return account;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
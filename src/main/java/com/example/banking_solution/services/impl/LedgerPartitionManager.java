@@ -0,0 +1,155 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.utils.DatabaseShards;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps monthly partitions of the transactions ledger ahead of the clock, so inserts never land in the
+ * default partition. With a retention configured, partitions older than the retention window are detached
+ * (not dropped): they stay available for archiving and leave the ledger's indexes without a bulk delete.
+ * Every database shard has its own ledger, and each partition is created or detached in its own transaction.
+ * <p>
+ * Postgres refuses a new partition while the default partition holds rows for its range, so a month that
+ * already has rows there is created as a plain table, the rows are moved into it, and it is then attached.
+ * Detaching cannot be done {@code CONCURRENTLY} while the ledger has a default partition, so it takes the
+ * exclusive lock on {@code transactions} instead, waiting at most {@code lock-timeout-ms} for it so ledger
+ * writes never queue behind it; a partition that could not be detached is tried again on the next run.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class LedgerPartitionManager {
+
+    private static final String PARTITION_PREFIX = "transactions_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    JdbcTemplate jdbcTemplate;
+    TransactionOperations transactionOperations;
+    DatabaseShards databaseShards;
+    int monthsAhead;
+    int retentionMonths;
+    long lockTimeoutMillis;
+
+    @Autowired
+    public LedgerPartitionManager(JdbcTemplate jdbcTemplate,
+                                  TransactionOperations transactionOperations,
+                                  DatabaseShards databaseShards,
+                                  @Value("${banking.ledger.partitions.months-ahead}") int monthsAhead,
+                                  @Value("${banking.ledger.partitions.retention-months}") int retentionMonths,
+                                  @Value("${banking.ledger.partitions.lock-timeout-ms}") long lockTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.databaseShards = databaseShards;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${banking.ledger.partitions.maintenance-cron}")
+    public void maintainPartitions() {
+
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+
+        for (int shard = 0; shard < databaseShards.count(); shard++) {
+
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = currentMonth.plusMonths(i);
+                inTransaction(shard, "Creating ledger partition " + partitionName(month), () -> createPartition(month));
+            }
+
+            if (retentionMonths > 0) {
+                YearMonth cutoff = currentMonth.minusMonths(retentionMonths);
+                List<String> expired = new ArrayList<>();
+                inTransaction(shard, "Listing ledger partitions", () -> expired.addAll(partitionsBefore(cutoff)));
+                for (String partition : expired) {
+                    inTransaction(shard, "Detaching ledger partition " + partition, () -> detachPartition(partition));
+                }
+            }
+        }
+    }
+
+    private void inTransaction(int shard, String action, Runnable work) {
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                databaseShards.bindShard(shard);
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                work.run();
+            });
+        } catch (DataAccessException ex) {
+            log.error("{} failed on shard {}", action, shard, ex);
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+
+        String partition = partitionName(month);
+
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition))) {
+            return;
+        }
+
+        String from = month.atDay(1) + " 00:00:00+00";
+        String to = month.plusMonths(1).atDay(1) + " 00:00:00+00";
+
+        jdbcTemplate.execute("CREATE TABLE %s (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)".formatted(partition));
+
+        int moved = jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM transactions_default WHERE created_at >= CAST(? AS timestamptz) AND created_at < CAST(? AS timestamptz)
+                    RETURNING *
+                )
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(partition), from, to);
+
+        if (moved > 0) {
+            log.warn("Moved {} ledger entries from the default partition into {}", moved, partition);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(partition, from, to));
+    }
+
+    private List<String> partitionsBefore(YearMonth cutoff) {
+
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT child.relname FROM pg_inherits
+                JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                WHERE parent.relname = 'transactions'
+                """, String.class);
+
+        return partitions.stream()
+                .filter(partition -> partition.matches("transactions_\\d{4}_\\d{2}"))
+                .filter(partition -> YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX).isBefore(cutoff))
+                .toList();
+    }
+
+    private void detachPartition(String partition) {
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+        log.info("Detached ledger partition {}", partition);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
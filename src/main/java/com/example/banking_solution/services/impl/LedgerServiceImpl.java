@@ -0,0 +1,92 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.models.LedgerEntry;
+import com.example.banking_solution.repositories.LedgerEntryRepository;
+import com.example.banking_solution.services.LedgerService;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends ledger entries. Every method requires an existing transaction, so an entry is committed
+ * or rolled back together with the balance change it records.
+ */
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class LedgerServiceImpl implements LedgerService {
+
+    LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeposit(String accountNumber, Money amount, Money balanceAfter) {
+        ledgerEntryRepository.save(LedgerEntry.of(LedgerEntryType.DEPOSIT, accountNumber, null,
+                amount, balanceAfter, Instant.now()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordWithdrawal(String accountNumber, Money amount, Money balanceAfter) {
+        ledgerEntryRepository.save(LedgerEntry.of(LedgerEntryType.WITHDRAWAL, accountNumber, null,
+                amount, balanceAfter, Instant.now()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeposits(List<Deposit> deposits) {
+
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(deposits.size());
+
+        for (Deposit deposit : deposits) {
+            entries.add(LedgerEntry.of(LedgerEntryType.DEPOSIT, deposit.accountNumber(), null,
+                    deposit.amount(), deposit.balanceAfter(), now));
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<Transfer> transfers) {
+
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+
+        for (Transfer transfer : transfers) {
+            entries.add(LedgerEntry.of(LedgerEntryType.TRANSFER_OUT, transfer.senderAccountNumber(),
+                    transfer.receiverAccountNumber(), transfer.amount(), transfer.senderBalanceAfter(), now));
+            entries.add(LedgerEntry.of(LedgerEntryType.TRANSFER_IN, transfer.receiverAccountNumber(),
+                    transfer.senderAccountNumber(), transfer.amount(), transfer.receiverBalanceAfter(), now));
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    /**
+     * Records one side of a transfer on its own, for transfers whose accounts are on different shards.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransferLeg(LedgerEntryType type, String accountNumber, String counterpartyAccountNumber,
+                                  Money amount, Money balanceAfter) {
+        ledgerEntryRepository.save(LedgerEntry.of(type, accountNumber, counterpartyAccountNumber,
+                amount, balanceAfter, Instant.now()));
+    }
+}
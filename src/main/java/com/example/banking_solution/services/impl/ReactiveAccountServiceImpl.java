@@ -0,0 +1,407 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.models.LedgerEntry;
+import com.example.banking_solution.repositories.ReactiveAccountRepository;
+import com.example.banking_solution.repositories.ReactiveLedgerEntryRepository;
+import com.example.banking_solution.services.ReactiveAccountService;
+import com.example.banking_solution.utils.AccountNumberGenerator;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.enums.AuditEventType;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import com.example.banking_solution.utils.enums.RoleType;
+import com.example.banking_solution.utils.enums.TransferStatus;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.banking_solution.services.impl.AccountValidation.validateAccountNumber;
+import static com.example.banking_solution.services.impl.AccountValidation.validateAmount;
+import static com.example.banking_solution.services.impl.AccountValidation.validateTransfer;
+
+/**
+ * Non-blocking {@link com.example.banking_solution.services.AccountService} for the reactive profile.
+ * Deposits and withdrawals are the same single-statement updates, transfers lock their accounts
+ * in account number order, and a sharded account whose row balance runs low has its shards drained
+ * onto the row, so balances behave exactly as on the servlet stack. Conflicting transactions
+ * are retried with the {@code banking.transaction.retry.*} settings.
+ */
+@Service
+@Profile("reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReactiveAccountServiceImpl implements ReactiveAccountService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_TRANSFER_BATCH_SIZE = 10000;
+    private static final int MAX_ACCOUNT_NUMBER_ATTEMPTS = 100;
+
+    ReactiveAccountRepository accountRepository;
+    ReactiveLedgerEntryRepository ledgerEntryRepository;
+    AccountNumberGenerator accountNumberGenerator;
+    PasswordHasher passwordHasher;
+    AuditLog auditLog;
+    TransactionalOperator transactionalOperator;
+    MeterRegistry meterRegistry;
+    int maxAttempts;
+    Duration initialBackoff;
+    Duration maxBackoff;
+
+    @Autowired
+    public ReactiveAccountServiceImpl(ReactiveAccountRepository accountRepository,
+                                      ReactiveLedgerEntryRepository ledgerEntryRepository,
+                                      AccountNumberGenerator accountNumberGenerator,
+                                      PasswordHasher passwordHasher,
+                                      AuditLog auditLog,
+                                      ReactiveTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${banking.transaction.retry.max-attempts}") int maxAttempts,
+                                      @Value("${banking.transaction.retry.initial-backoff-ms}") long initialBackoffMillis,
+                                      @Value("${banking.transaction.retry.max-backoff-ms}") long maxBackoffMillis) {
+        this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.accountNumberGenerator = accountNumberGenerator;
+        this.passwordHasher = passwordHasher;
+        this.auditLog = auditLog;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    }
+
+    @Override
+    public Mono<Account> createAccount(AccountRequestDTO accountRequestDTO) {
+
+        if (!accountRequestDTO.password().equals(accountRequestDTO.confirmPassword())) {
+            return Mono.error(new PasswordDontMatchException("Password and confirm password don't match"));
+        }
+
+        return Mono.fromFuture(() -> passwordHasher.hashAsync(accountRequestDTO.password()))
+                .flatMap(password -> Mono.fromCallable(() -> {
+                            Account account = new Account();
+                            account.setId(UUID.randomUUID().toString());
+                            account.setAccountNumber(accountNumberGenerator.generateAccountNumber());
+                            account.setEmail(accountRequestDTO.email());
+                            account.setPassword(password);
+                            account.setBalance(Money.ZERO);
+                            account.setRole(RoleType.USER);
+                            account.setVersion(0L);
+                            return account;
+                        })
+                        .flatMap(account -> accountRepository.insertIfAccountNumberIsFree(account)
+                                .filter(inserted -> inserted == 1)
+                                .map(inserted -> account))
+                        .repeatWhenEmpty(MAX_ACCOUNT_NUMBER_ATTEMPTS, attempts -> attempts))
+                .doOnNext(account -> auditLog.record(AuditEventType.ACCOUNT_CREATED, account.getAccountNumber(), null, null));
+    }
+
+    @Override
+    public Mono<AccountDTO> findAccountDTO(String accountNumber) {
+        return Mono.fromRunnable(() -> validateAccountNumber(accountNumber))
+                .then(accountRepository.findAccountDTO(accountNumber))
+                .switchIfEmpty(Mono.error(() -> notFound(accountNumber)));
+    }
+
+    @Override
+    public Mono<AccountPageDTO> getPage(String afterAccountNumber, int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("Page limit must be between 1 and %d".formatted(MAX_PAGE_SIZE)));
+        }
+
+        return accountRepository.findPageAfter(afterAccountNumber == null ? "" : afterAccountNumber, limit)
+                .collectList()
+                .map(accounts -> new AccountPageDTO(accounts,
+                        accounts.size() < limit ? null : accounts.get(accounts.size() - 1).accountNumber()));
+    }
+
+    @Override
+    public Flux<AccountDTO> streamAll() {
+        return accountRepository.streamAll();
+    }
+
+    @Override
+    public Mono<Account> depositFundsIntoAnAccount(String accountNumber, BigDecimal depositAmount) {
+
+        return Mono.fromCallable(() -> {
+                    Money amount = validateAmount(depositAmount, "Invalid value for deposit funds");
+                    validateAccountNumber(accountNumber);
+                    return amount;
+                })
+                .flatMap(amount -> accountRepository.addToBalance(accountNumber, amount)
+                        .switchIfEmpty(Mono.error(() -> notFound(accountNumber)))
+                        .flatMap(account -> ledgerEntryRepository.insertAll(List.of(LedgerEntry.of(LedgerEntryType.DEPOSIT,
+                                        accountNumber, null, amount, balanceAfter(account), Instant.now())))
+                                .thenReturn(account))
+                        .as(transactionalOperator::transactional)
+                        .doOnNext(account -> auditLog.record(AuditEventType.DEPOSIT, accountNumber, null, amount)));
+    }
+
+    @Override
+    public Mono<Account> withdrawFundsFromAnAccount(String accountNumber, BigDecimal withdrawAmount) {
+
+        return Mono.fromCallable(() -> {
+                    Money amount = validateAmount(withdrawAmount, "Invalid value for withdraw funds");
+                    validateAccountNumber(accountNumber);
+                    return amount;
+                })
+                .flatMap(amount -> accountRepository.subtractFromBalanceIfSufficient(accountNumber, amount)
+                        .flatMap(account -> recordWithdrawal(account, amount, balanceAfter(account)))
+                        // the row balance of a sharded account is its total once its shards were drained
+                        .switchIfEmpty(Mono.defer(() -> withdrawFromDrainedShards(accountNumber, amount)
+                                .flatMap(account -> recordWithdrawal(account, amount, account.getBalance()))))
+                        .as(transactionalOperator::transactional)
+                        .doOnNext(account -> auditLog.record(AuditEventType.WITHDRAWAL, accountNumber, null, amount)));
+    }
+
+    /**
+     * Rebalances a sharded account whose row balance ran low: with the account row locked, the shards are
+     * drained onto it and the withdrawal is retried against the full balance.
+     */
+    private Mono<Account> withdrawFromDrainedShards(String accountNumber, Money withdrawAmount) {
+        return accountRepository.lockAllByAccountNumberIn(List.of(accountNumber))
+                .next()
+                .switchIfEmpty(Mono.error(() -> notFound(accountNumber)))
+                .filter(account -> account.getBalanceShards() > 0)
+                .flatMap(account -> accountRepository.drainShards(accountNumber)
+                        .map(drained -> account.getBalance().plus(drained))
+                        .filter(balance -> !balance.isLessThan(withdrawAmount))
+                        .flatMap(balance -> {
+                            account.setBalance(balance.minus(withdrawAmount));
+                            return accountRepository.updateBalance(accountNumber, account.getBalance())
+                                    .thenReturn(account);
+                        }))
+                .switchIfEmpty(Mono.error(() -> new InsufficientFundsException("Insufficient funds")));
+    }
+
+    private Mono<Account> recordWithdrawal(Account account, Money amount, Money balanceAfter) {
+        return ledgerEntryRepository.insertAll(List.of(LedgerEntry.of(LedgerEntryType.WITHDRAWAL,
+                        account.getAccountNumber(), null, amount, balanceAfter, Instant.now())))
+                .thenReturn(account);
+    }
+
+    @Override
+    public Mono<Void> transferFundsBetweenTwoAccount(String senderAccountNumber, String receiverAccountNumber, BigDecimal transferAmount) {
+
+        Money amount;
+        try {
+            amount = validateTransfer(senderAccountNumber, receiverAccountNumber, transferAmount);
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(ex);
+        }
+
+        TransferRequestDTO transfer = new TransferRequestDTO(senderAccountNumber, receiverAccountNumber, transferAmount);
+
+        return inRetriedTransaction("transfer", applyTransfers(List.of(transfer), List.of(0), false))
+                .then()
+                .doOnSuccess(ignored -> auditLog.record(AuditEventType.TRANSFER,
+                        senderAccountNumber, receiverAccountNumber, amount));
+    }
+
+    @Override
+    public Mono<List<TransferResultDTO>> transferFundsInBatch(List<TransferRequestDTO> transfers) {
+
+        if (transfers == null || transfers.isEmpty() || transfers.size() > MAX_TRANSFER_BATCH_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                    "Transfer batch must contain between 1 and %d transfers".formatted(MAX_TRANSFER_BATCH_SIZE)));
+        }
+
+        TransferResultDTO[] results = new TransferResultDTO[transfers.size()];
+        List<Integer> accepted = new ArrayList<>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO transfer = transfers.get(i);
+            if (transfer == null) {
+                results[i] = TransferResultDTO.rejected(i, "Transfer must not be null");
+                continue;
+            }
+            try {
+                validateTransfer(transfer.senderAccountNumber(), transfer.receiverAccountNumber(), transfer.transferAmount());
+                accepted.add(i);
+            } catch (IllegalArgumentException ex) {
+                results[i] = TransferResultDTO.rejected(i, ex.getMessage());
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return Mono.just(Arrays.asList(results));
+        }
+
+        return inRetriedTransaction("transfer-batch", applyTransfers(transfers, accepted, true))
+                .map(applied -> {
+                    for (TransferResultDTO result : applied) {
+                        results[result.index()] = result;
+                        if (result.status() == TransferStatus.COMPLETED) {
+                            TransferRequestDTO transfer = transfers.get(result.index());
+                            auditLog.record(AuditEventType.TRANSFER, transfer.senderAccountNumber(),
+                                    transfer.receiverAccountNumber(), Money.of(transfer.transferAmount()));
+                        }
+                    }
+                    return Arrays.asList(results);
+                });
+    }
+
+    /**
+     * Locks every involved account once, in account number order, and applies the transfers in request order
+     * against the running balances. With {@code rejectFailedItems} an item that cannot be applied is rejected
+     * on its own; otherwise its error fails the whole operation.
+     */
+    private Mono<List<TransferResultDTO>> applyTransfers(List<TransferRequestDTO> transfers, List<Integer> indexes,
+                                                         boolean rejectFailedItems) {
+
+        TreeSet<String> accountNumbers = new TreeSet<>();
+        for (int index : indexes) {
+            accountNumbers.add(transfers.get(index).senderAccountNumber());
+            accountNumbers.add(transfers.get(index).receiverAccountNumber());
+        }
+
+        return accountRepository.lockAllByAccountNumberIn(accountNumbers)
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()))
+                .flatMap(accounts -> drainShortSenders(accounts, transfers, indexes)
+                        .collect(Collectors.toCollection(TreeSet::new))
+                        .flatMap(changed -> {
+
+                            List<TransferResultDTO> results = new ArrayList<>(indexes.size());
+                            List<LedgerEntry> entries = new ArrayList<>(indexes.size() * 2);
+                            Instant now = Instant.now();
+
+                            for (int index : indexes) {
+                                TransferRequestDTO transfer = transfers.get(index);
+                                try {
+                                    applyTransfer(accounts, transfer, entries, now);
+                                    changed.add(transfer.senderAccountNumber());
+                                    changed.add(transfer.receiverAccountNumber());
+                                    results.add(TransferResultDTO.completed(index));
+                                } catch (AccountNotFoundException | InsufficientFundsException ex) {
+                                    if (!rejectFailedItems) {
+                                        return Mono.<List<TransferResultDTO>>error(ex);
+                                    }
+                                    results.add(TransferResultDTO.rejected(index, ex.getMessage()));
+                                }
+                            }
+
+                            return Flux.fromIterable(changed)
+                                    .concatMap(accountNumber -> accountRepository.updateBalance(accountNumber,
+                                            accounts.get(accountNumber).getBalance()))
+                                    .then(ledgerEntryRepository.insertAll(entries))
+                                    .thenReturn(results);
+                        }));
+    }
+
+    /**
+     * Drains the shards of every sharded sender whose row balance does not cover its outgoing transfers,
+     * so the transfers are checked against its full balance. The rows are already locked, so the shards
+     * are locked after them as everywhere else.
+     *
+     * @return the drained accounts, whose row balances must be written even if their transfers are rejected
+     */
+    private Flux<String> drainShortSenders(Map<String, Account> accounts, List<TransferRequestDTO> transfers,
+                                           List<Integer> indexes) {
+
+        Map<String, Money> outgoing = new TreeMap<>();
+        for (int index : indexes) {
+            TransferRequestDTO transfer = transfers.get(index);
+            outgoing.merge(transfer.senderAccountNumber(), Money.of(transfer.transferAmount()), Money::plus);
+        }
+
+        return Flux.fromIterable(outgoing.entrySet())
+                .filter(sender -> {
+                    Account account = accounts.get(sender.getKey());
+                    return account != null && account.getBalanceShards() > 0
+                            && account.getBalance().isLessThan(sender.getValue());
+                })
+                .concatMap(sender -> {
+                    Account account = accounts.get(sender.getKey());
+                    return accountRepository.drainShards(sender.getKey())
+                            .doOnNext(drained -> account.setBalance(account.getBalance().plus(drained)))
+                            .thenReturn(sender.getKey());
+                });
+    }
+
+    private static void applyTransfer(Map<String, Account> accounts, TransferRequestDTO transfer,
+                                      List<LedgerEntry> entries, Instant now) {
+
+        Account senderAccount = getLocked(accounts, transfer.senderAccountNumber());
+        Money transferAmount = Money.of(transfer.transferAmount());
+
+        if (senderAccount.getBalance().isLessThan(transferAmount)) {
+            throw new InsufficientFundsException("Insufficient funds for transfer");
+        }
+
+        Account receiverAccount = getLocked(accounts, transfer.receiverAccountNumber());
+
+        senderAccount.setBalance(senderAccount.getBalance().minus(transferAmount));
+        receiverAccount.setBalance(receiverAccount.getBalance().plus(transferAmount));
+
+        entries.add(LedgerEntry.of(LedgerEntryType.TRANSFER_OUT, transfer.senderAccountNumber(),
+                transfer.receiverAccountNumber(), transferAmount, balanceAfter(senderAccount), now));
+        entries.add(LedgerEntry.of(LedgerEntryType.TRANSFER_IN, transfer.receiverAccountNumber(),
+                transfer.senderAccountNumber(), transferAmount, balanceAfter(receiverAccount), now));
+    }
+
+    /**
+     * The account's total balance for the ledger, or null for a sharded account whose shards may hold part of it.
+     */
+    private static Money balanceAfter(Account account) {
+        return account.getBalanceShards() == 0 ? account.getBalance() : null;
+    }
+
+    private static Account getLocked(Map<String, Account> accounts, String accountNumber) {
+
+        Account account = accounts.get(accountNumber);
+
+        if (account == null) {
+            throw notFound(accountNumber);
+        }
+
+        return account;
+    }
+
+    private <T> Mono<T> inRetriedTransaction(String operation, Mono<T> action) {
+        return action
+                .as(transactionalOperator::transactional)
+                .retryWhen(Retry.backoff(maxAttempts - 1, initialBackoff)
+                        .maxBackoff(maxBackoff)
+                        .filter(ConcurrencyFailureException.class::isInstance)
+                        .doBeforeRetry(signal -> meterRegistry.counter("banking.transaction.retries",
+                                "operation", operation).increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static AccountNotFoundException notFound(String accountNumber) {
+        return new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber));
+    }
+}
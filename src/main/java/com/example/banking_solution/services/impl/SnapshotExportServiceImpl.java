@@ -0,0 +1,274 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.services.SnapshotExportService;
+import com.example.banking_solution.utils.DatabaseShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a balance snapshot as CSV in constant memory. Rows come from a server-side cursor, {@code fetch-size} rows
+ * at a time, and are encoded into one reusable buffer that is written to the channel whenever it fills up.
+ * <p>
+ * A consistent snapshot runs the whole read in one REPEATABLE READ, read-only transaction. Postgres serves it from
+ * an MVCC snapshot, so the export sees every account as of its start and does not block concurrent writers.
+ * With several database shards the shards are exported one after another, each from its own snapshot.
+ * Exported rows are counted as {@code banking.export.rows}, running exports as {@code banking.export.active}, and
+ * finished ones timed as {@code banking.export} per outcome.
+ */
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SnapshotExportServiceImpl implements SnapshotExportService {
+
+    private static final String HEADER = "account_number,email,role,balance\n";
+
+    private static final String SELECT_ACCOUNTS = """
+            SELECT account_number, email, role, balance
+            FROM bank_account_totals
+            ORDER BY account_number
+            """;
+
+    JdbcTemplate jdbcTemplate;
+    DatabaseShards databaseShards;
+    TransactionTemplate readCommitted;
+    TransactionTemplate repeatableRead;
+    MeterRegistry meterRegistry;
+    Counter exportedRows;
+    LongTaskTimer activeExports;
+    int fetchSize;
+    int chunkSize;
+
+    @Autowired
+    public SnapshotExportServiceImpl(JdbcTemplate jdbcTemplate,
+                                     DatabaseShards databaseShards,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${banking.export.fetch-size}") int fetchSize,
+                                     @Value("${banking.export.chunk-size-bytes}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseShards = databaseShards;
+        this.readCommitted = readOnlyTransaction(transactionManager, TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.repeatableRead = readOnlyTransaction(transactionManager, TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.meterRegistry = meterRegistry;
+        this.exportedRows = meterRegistry.counter("banking.export.rows");
+        this.activeExports = meterRegistry.more().longTaskTimer("banking.export.active");
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public long exportCsv(WritableByteChannel channel, boolean gzip, boolean consistentSnapshot) throws IOException {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LongTaskTimer.Sample active = activeExports.start();
+        String outcome = "success";
+
+        // finished only on success: a failed export ends without its last chunk or a gzip trailer,
+        // so a truncated file or response cannot pass for a complete one
+        CsvChunkWriter writer = null;
+
+        try {
+
+            writer = new CsvChunkWriter(channel, gzip);
+            writeShards(writer, consistentSnapshot ? repeatableRead : readCommitted);
+            writer.finish();
+            return writer.rows;
+        } catch (UncheckedIOException ex) {
+            outcome = ex.getCause().getClass().getSimpleName();
+            abort(writer);
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            abort(writer);
+            throw ex;
+        } finally {
+            active.stop();
+            sample.stop(meterRegistry.timer("banking.export", "outcome", outcome));
+        }
+    }
+
+    private void writeShards(CsvChunkWriter writer, TransactionTemplate transaction) throws IOException {
+
+        writer.append(HEADER);
+
+        for (int shard = 0; shard < databaseShards.count(); shard++) {
+            int current = shard;
+            transaction.executeWithoutResult(status -> {
+                databaseShards.bindShard(current);
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT_ACCOUNTS);
+                    // the driver only opens a cursor with a fetch size inside a transaction
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                }, (RowCallbackHandler) resultSet -> writer.appendRow(resultSet));
+            });
+        }
+    }
+
+    private static void abort(CsvChunkWriter writer) {
+        if (writer != null) {
+            writer.abort();
+        }
+    }
+
+    private static TransactionTemplate readOnlyTransaction(PlatformTransactionManager transactionManager, int isolation) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(isolation);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * Encodes rows into a fixed buffer and hands it to the channel, through gzip if requested, each time it fills up.
+     */
+    private final class CsvChunkWriter {
+
+        final ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+        final StringBuilder line = new StringBuilder(128);
+        final WritableByteChannel target;
+        final AbortableGzipOutputStream gzip;
+        long rows;
+        long rowsInChunk;
+
+        CsvChunkWriter(WritableByteChannel channel, boolean compress) throws IOException {
+            if (compress) {
+                OutputStream out = Channels.newOutputStream(channel);
+                this.gzip = new AbortableGzipOutputStream(out, chunkSize);
+                this.target = Channels.newChannel(gzip);
+            } else {
+                this.gzip = null;
+                this.target = channel;
+            }
+        }
+
+        void appendRow(ResultSet resultSet) throws SQLException {
+
+            line.setLength(0);
+            line.append(resultSet.getString("account_number")).append(',');
+            appendQuoted(resultSet.getString("email"));
+            line.append(',').append(resultSet.getString("role"))
+                    .append(',').append(resultSet.getBigDecimal("balance").toPlainString())
+                    .append('\n');
+
+            try {
+                append(line);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            rows++;
+            rowsInChunk++;
+        }
+
+        void append(CharSequence text) throws IOException {
+
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+
+            if (bytes.length > chunk.remaining()) {
+                flushChunk();
+            }
+            if (bytes.length > chunk.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                chunk.put(bytes);
+            }
+        }
+
+        // RFC 4180: quote a field containing a separator, quote or line break, and double the quotes in it
+        private void appendQuoted(String value) {
+
+            if (value == null) {
+                return;
+            }
+
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void flushChunk() throws IOException {
+            chunk.flip();
+            writeFully(chunk);
+            chunk.clear();
+            exportedRows.increment(rowsInChunk);
+            rowsInChunk = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        }
+
+        /**
+         * Writes the last chunk and the gzip trailer. The channel stays open; it belongs to the caller.
+         */
+        void finish() throws IOException {
+            flushChunk();
+            if (gzip != null) {
+                gzip.finish();
+                gzip.flush();
+                gzip.release();
+            }
+        }
+
+        /**
+         * Drops the buffered chunk and releases the compressor without writing a trailer.
+         */
+        void abort() {
+            if (gzip != null) {
+                gzip.release();
+            }
+        }
+    }
+
+    private static final class AbortableGzipOutputStream extends GZIPOutputStream {
+
+        AbortableGzipOutputStream(OutputStream out, int size) throws IOException {
+            super(out, size);
+        }
+
+        // close() would write the trailer and close the caller's channel, so the deflater is ended directly
+        void release() {
+            def.end();
+        }
+    }
+}
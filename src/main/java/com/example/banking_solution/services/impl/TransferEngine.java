@@ -0,0 +1,470 @@
+package com.example.banking_solution.services.impl;
+
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.models.TransferSaga;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.repositories.TransferSagaRepository;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.services.LedgerService;
+import com.example.banking_solution.utils.AccountCache;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.TransactionRetryExecutor;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import com.example.banking_solution.utils.enums.TransferLockingMode;
+import com.example.banking_solution.utils.enums.TransferSagaStatus;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Moves funds between accounts. In {@link TransferLockingMode#PESSIMISTIC} mode the accounts are
+ * row-locked in account number order; in {@link TransferLockingMode#OPTIMISTIC} mode they are read
+ * without locks and the version check at commit detects concurrent changes, which are then retried.
+ * Every transfer is timed under {@code banking.transfer}, which gives throughput and latency per outcome.
+ * <p>
+ * When the accounts are on different database shards, a transfer cannot be one transaction and runs as a saga
+ * instead, see {@link #transferAcrossShards}. Finished sagas are counted as {@code banking.transfer.saga} per outcome.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TransferEngine {
+
+    AccountRepository accountRepository;
+    AccountBalanceShardRepository balanceShardRepository;
+    TransferSagaRepository transferSagaRepository;
+    TransactionRetryExecutor transactionRetryExecutor;
+    AccountCache accountCache;
+    LedgerService ledgerService;
+    DatabaseShards databaseShards;
+    IdempotencyService idempotencyService;
+    MeterRegistry meterRegistry;
+    TransferLockingMode lockingMode;
+    long sagaRecoveryDelayMillis;
+    int sagaRecoveryBatchSize;
+
+    @Autowired
+    public TransferEngine(AccountRepository accountRepository,
+                          AccountBalanceShardRepository balanceShardRepository,
+                          TransferSagaRepository transferSagaRepository,
+                          TransactionRetryExecutor transactionRetryExecutor,
+                          AccountCache accountCache,
+                          LedgerService ledgerService,
+                          DatabaseShards databaseShards,
+                          IdempotencyService idempotencyService,
+                          MeterRegistry meterRegistry,
+                          @Value("${banking.transfer.locking-mode}") TransferLockingMode lockingMode,
+                          @Value("${banking.sharding.saga.recovery-delay-ms}") long sagaRecoveryDelayMillis,
+                          @Value("${banking.sharding.saga.recovery-batch-size}") int sagaRecoveryBatchSize) {
+        this.accountRepository = accountRepository;
+        this.balanceShardRepository = balanceShardRepository;
+        this.transferSagaRepository = transferSagaRepository;
+        this.transactionRetryExecutor = transactionRetryExecutor;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.databaseShards = databaseShards;
+        this.idempotencyService = idempotencyService;
+        this.meterRegistry = meterRegistry;
+        this.lockingMode = lockingMode;
+        this.sagaRecoveryDelayMillis = sagaRecoveryDelayMillis;
+        this.sagaRecoveryBatchSize = sagaRecoveryBatchSize;
+    }
+
+    public void transfer(String senderAccountNumber, String receiverAccountNumber, Money transferAmount) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+
+        try {
+            if (databaseShards.shardOf(senderAccountNumber) == databaseShards.shardOf(receiverAccountNumber)) {
+                transactionRetryExecutor.execute("transfer", () -> {
+                    applyTransfer(senderAccountNumber, receiverAccountNumber, transferAmount);
+                    return null;
+                });
+            } else {
+                transferAcrossShards(senderAccountNumber, receiverAccountNumber, transferAmount);
+            }
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(meterRegistry.timer("banking.transfer", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Applies the transfers at the given indexes in one transaction. All involved accounts are locked once,
+     * in account number order, and the items are applied in request order against the running balances.
+     * An item that cannot be applied is rejected without affecting the others; each account is written once
+     * with its net balance when the transaction flushes.
+     * <p>
+     * A batch whose accounts are spread over several database shards is applied one transfer at a time instead,
+     * still in request order.
+     */
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> transfers, List<Integer> indexes) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            OptionalInt shard = commonShard(transfers, indexes);
+
+            if (shard.isEmpty()) {
+                return transferOneByOne(transfers, indexes);
+            }
+
+            return transactionRetryExecutor.execute("transfer-batch", () -> {
+                databaseShards.bindShard(shard.getAsInt());
+                return applyBatch(transfers, indexes);
+            });
+        } finally {
+            sample.stop(meterRegistry.timer("banking.transfer.batch"));
+        }
+    }
+
+    /**
+     * Finishes cross-shard transfers left pending by a failed credit or a crash: sagas older than
+     * {@code banking.sharding.saga.recovery-delay-ms} are credited again, which is a no-op for a receiver that was
+     * already credited, or refunded if the receiver cannot be credited.
+     */
+    @Scheduled(fixedDelayString = "${banking.sharding.saga.recovery-interval-ms}")
+    public void recoverSagas() {
+
+        if (!databaseShards.isSharded()) {
+            return;
+        }
+
+        Instant before = Instant.now().minusMillis(sagaRecoveryDelayMillis);
+
+        for (int shard = 0; shard < databaseShards.count(); shard++) {
+
+            int current = shard;
+            List<TransferSaga> pending;
+
+            try {
+                pending = transactionRetryExecutor.execute("transfer-saga-recovery", () -> {
+                    databaseShards.bindShard(current);
+                    return transferSagaRepository.findPendingBefore(before, Limit.of(sagaRecoveryBatchSize));
+                });
+            } catch (DataAccessException ex) {
+                log.warn("Reading pending transfer sagas on shard {} failed", current, ex);
+                continue;
+            }
+
+            for (TransferSaga saga : pending) {
+                try {
+                    log.info("Recovered transfer saga {} as {}", saga.getId(), resume(saga));
+                } catch (RuntimeException ex) {
+                    log.warn("Transfer saga {} is still pending", saga.getId(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * The shard every account of the batch is on, or empty if they are on more than one.
+     */
+    private OptionalInt commonShard(List<TransferRequestDTO> transfers, List<Integer> indexes) {
+
+        if (!databaseShards.isSharded()) {
+            return OptionalInt.of(0);
+        }
+
+        int shard = databaseShards.shardOf(transfers.get(indexes.get(0)).senderAccountNumber());
+
+        for (int index : indexes) {
+            if (databaseShards.shardOf(transfers.get(index).senderAccountNumber()) != shard
+                    || databaseShards.shardOf(transfers.get(index).receiverAccountNumber()) != shard) {
+                return OptionalInt.empty();
+            }
+        }
+
+        return OptionalInt.of(shard);
+    }
+
+    private List<TransferResultDTO> transferOneByOne(List<TransferRequestDTO> transfers, List<Integer> indexes) {
+
+        List<TransferResultDTO> results = new ArrayList<>(indexes.size());
+
+        for (int index : indexes) {
+
+            TransferRequestDTO transfer = transfers.get(index);
+
+            try {
+                transfer(transfer.senderAccountNumber(), transfer.receiverAccountNumber(), Money.of(transfer.transferAmount()));
+                results.add(TransferResultDTO.completed(index));
+            } catch (AccountNotFoundException | InsufficientFundsException ex) {
+                results.add(TransferResultDTO.rejected(index, ex.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Moves funds between accounts on different shards. The sender is debited on its shard together with a
+     * {@link TransferSagaStatus#PENDING} saga, then the receiver is credited on its shard and the saga completed.
+     * A receiver that turns out not to exist gets the sender refunded and the saga compensated. Once the debit has
+     * committed, the transfer no longer fails on anything else: a credit that cannot be made right now is left to
+     * {@link #recoverSagas}, and other transfers may briefly see the amount on neither account.
+     */
+    private void transferAcrossShards(String senderAccountNumber, String receiverAccountNumber, Money transferAmount) {
+
+        // checked up front, so a transfer to an unknown account is rejected without debiting anybody
+        boolean receiverExists = transactionRetryExecutor.execute("transfer-saga-check", () -> {
+            databaseShards.bind(receiverAccountNumber);
+            return accountRepository.existsAccountByAccountNumber(receiverAccountNumber);
+        });
+
+        if (!receiverExists) {
+            throw new AccountNotFoundException("Account with number [%s] not found".formatted(receiverAccountNumber));
+        }
+
+        TransferSaga saga = transactionRetryExecutor.execute("transfer-saga-debit",
+                () -> debit(senderAccountNumber, receiverAccountNumber, transferAmount));
+
+        TransferSagaStatus status;
+
+        try {
+            status = resume(saga);
+        } catch (RuntimeException ex) {
+            log.warn("Transfer saga {} could not be finished yet and is left to recovery", saga.getId(), ex);
+            return;
+        }
+
+        if (status == TransferSagaStatus.COMPENSATED) {
+            throw new AccountNotFoundException("Account with number [%s] not found".formatted(receiverAccountNumber));
+        }
+    }
+
+    private TransferSaga debit(String senderAccountNumber, String receiverAccountNumber, Money transferAmount) {
+
+        databaseShards.bind(senderAccountNumber);
+        idempotencyService.boundClaim().ifPresent(idempotencyService::markApplied);
+
+        Account senderAccount = getLocked(lockAccounts(List.of(senderAccountNumber)), senderAccountNumber);
+
+        requireFunds(senderAccount, transferAmount);
+
+        senderAccount.setBalance(senderAccount.getBalance().minus(transferAmount));
+
+        TransferSaga saga = new TransferSaga();
+        saga.setId(UUID.randomUUID().toString());
+        saga.setSenderAccountNumber(senderAccountNumber);
+        saga.setReceiverAccountNumber(receiverAccountNumber);
+        saga.setAmount(transferAmount);
+        saga.setStatus(TransferSagaStatus.PENDING);
+        saga.setCreatedAt(Instant.now());
+
+        transferSagaRepository.insertPending(saga.getId(), senderAccountNumber, receiverAccountNumber,
+                transferAmount.toBigDecimal(), saga.getCreatedAt());
+        ledgerService.recordTransferLeg(LedgerEntryType.TRANSFER_OUT, senderAccountNumber, receiverAccountNumber,
+                transferAmount, balanceAfter(senderAccount));
+        accountCache.evictAfterCommit(senderAccountNumber);
+
+        return saga;
+    }
+
+    /**
+     * Credits the receiver of a debited saga and completes it, or refunds the sender if the receiver does not exist.
+     */
+    private TransferSagaStatus resume(TransferSaga saga) {
+
+        try {
+            transactionRetryExecutor.execute("transfer-saga-credit", () -> {
+                databaseShards.bind(saga.getReceiverAccountNumber());
+                // a saga credited by an earlier attempt is only completed
+                if (transferSagaRepository.recordCredit(saga.getId()) == 1) {
+                    ledgerService.recordTransferLeg(LedgerEntryType.TRANSFER_IN, saga.getReceiverAccountNumber(),
+                            saga.getSenderAccountNumber(), saga.getAmount(), credit(saga.getReceiverAccountNumber(), saga.getAmount()));
+                }
+                return null;
+            });
+        } catch (AccountNotFoundException ex) {
+            transactionRetryExecutor.execute("transfer-saga-refund", () -> {
+                databaseShards.bind(saga.getSenderAccountNumber());
+                if (transferSagaRepository.finish(saga.getId(), TransferSagaStatus.COMPENSATED.name()) == 1) {
+                    ledgerService.recordTransferLeg(LedgerEntryType.TRANSFER_REFUND, saga.getSenderAccountNumber(),
+                            saga.getReceiverAccountNumber(), saga.getAmount(), credit(saga.getSenderAccountNumber(), saga.getAmount()));
+                }
+                return null;
+            });
+            meterRegistry.counter("banking.transfer.saga", "outcome", "compensated").increment();
+            return TransferSagaStatus.COMPENSATED;
+        }
+
+        transactionRetryExecutor.execute("transfer-saga-complete", () -> {
+            databaseShards.bind(saga.getSenderAccountNumber());
+            return transferSagaRepository.finish(saga.getId(), TransferSagaStatus.COMPLETED.name());
+        });
+        meterRegistry.counter("banking.transfer.saga", "outcome", "completed").increment();
+
+        return TransferSagaStatus.COMPLETED;
+    }
+
+    /**
+     * Adds the amount to the account without locking its row first, like a deposit does.
+     *
+     * @return the account's balance afterwards, or null for a sharded account whose shards hold part of it
+     */
+    private Money credit(String accountNumber, Money amount) {
+
+        Optional<Account> account = accountRepository.addToBalance(accountNumber, amount.toBigDecimal());
+
+        if (account.isPresent()) {
+            accountCache.evictAfterCommit(accountNumber);
+            return account.get().getBalance();
+        }
+
+        balanceShardRepository.addToRandomShard(accountNumber, amount.toBigDecimal(), ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE))
+                .orElseThrow(() -> new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber)));
+        accountCache.evictAfterCommit(accountNumber);
+
+        return null;
+    }
+
+    private List<TransferResultDTO> applyBatch(List<TransferRequestDTO> transfers, List<Integer> indexes) {
+
+        Set<String> accountNumbers = new TreeSet<>();
+
+        for (int index : indexes) {
+            accountNumbers.add(transfers.get(index).senderAccountNumber());
+            accountNumbers.add(transfers.get(index).receiverAccountNumber());
+        }
+
+        Map<String, Account> accounts = lockAccounts(new ArrayList<>(accountNumbers));
+        List<TransferResultDTO> results = new ArrayList<>(indexes.size());
+        List<LedgerService.Transfer> completed = new ArrayList<>(indexes.size());
+
+        for (int index : indexes) {
+
+            TransferRequestDTO transfer = transfers.get(index);
+            Money transferAmount = Money.of(transfer.transferAmount());
+
+            try {
+                Account senderAccount = getLocked(accounts, transfer.senderAccountNumber());
+
+                requireFunds(senderAccount, transferAmount);
+
+                Account receiverAccount = getLocked(accounts, transfer.receiverAccountNumber());
+
+                senderAccount.setBalance(senderAccount.getBalance().minus(transferAmount));
+                receiverAccount.setBalance(receiverAccount.getBalance().plus(transferAmount));
+
+                completed.add(new LedgerService.Transfer(transfer.senderAccountNumber(), transfer.receiverAccountNumber(),
+                        transferAmount, balanceAfter(senderAccount), balanceAfter(receiverAccount)));
+                results.add(TransferResultDTO.completed(index));
+            } catch (AccountNotFoundException | InsufficientFundsException ex) {
+                results.add(TransferResultDTO.rejected(index, ex.getMessage()));
+            }
+        }
+
+        if (!completed.isEmpty()) {
+            ledgerService.recordTransfers(completed);
+        }
+        accountCache.evictAfterCommit(accounts.keySet().toArray(String[]::new));
+
+        return results;
+    }
+
+    private void applyTransfer(String senderAccountNumber, String receiverAccountNumber, Money transferAmount) {
+
+        databaseShards.bind(senderAccountNumber);
+        idempotencyService.boundClaim().ifPresent(idempotencyService::markApplied);
+
+        Map<String, Account> accounts = lockAccounts(List.of(senderAccountNumber, receiverAccountNumber));
+
+        Account senderAccount = getLocked(accounts, senderAccountNumber);
+
+        requireFunds(senderAccount, transferAmount);
+
+        Account receiverAccount = getLocked(accounts, receiverAccountNumber);
+
+        senderAccount.setBalance(senderAccount.getBalance().minus(transferAmount));
+        receiverAccount.setBalance(receiverAccount.getBalance().plus(transferAmount));
+
+        ledgerService.recordTransfers(List.of(new LedgerService.Transfer(senderAccountNumber, receiverAccountNumber,
+                transferAmount, balanceAfter(senderAccount), balanceAfter(receiverAccount))));
+        accountCache.evictAfterCommit(senderAccountNumber, receiverAccountNumber);
+    }
+
+    private Map<String, Account> lockAccounts(List<String> accountNumbers) {
+
+        Map<String, Account> accounts = new HashMap<>();
+
+        List<Account> loaded = lockingMode == TransferLockingMode.PESSIMISTIC
+                ? accountRepository.lockAllByAccountNumberIn(accountNumbers)
+                : accountRepository.findAllByAccountNumberInOrderByAccountNumber(accountNumbers);
+
+        for (Account account : loaded) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+
+        return accounts;
+    }
+
+    /**
+     * Checks the sender's balance. A sharded sender whose row balance is too low has its shards drained
+     * onto the row first; the row is already locked, so the shards are locked after it as everywhere else.
+     */
+    private void requireFunds(Account senderAccount, Money transferAmount) {
+
+        if (!senderAccount.getBalance().isLessThan(transferAmount)) {
+            return;
+        }
+
+        if (senderAccount.getBalanceShards() > 0) {
+            senderAccount.setBalance(senderAccount.getBalance()
+                    .plus(Money.of(balanceShardRepository.drainShards(senderAccount.getAccountNumber()))));
+        }
+
+        if (senderAccount.getBalance().isLessThan(transferAmount)) {
+            throw new InsufficientFundsException("Insufficient funds for transfer");
+        }
+    }
+
+    /**
+     * The account's total balance for the ledger, or null for a sharded account whose shards may hold part of it.
+     */
+    private static Money balanceAfter(Account account) {
+        return account.getBalanceShards() == 0 ? account.getBalance() : null;
+    }
+
+    private Account getLocked(Map<String, Account> accounts, String accountNumber) {
+
+        Account account = accounts.get(accountNumber);
+
+        if (account == null) {
+            throw new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber));
+        }
+
+        return account;
+    }
+}
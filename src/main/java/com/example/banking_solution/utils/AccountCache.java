@@ -0,0 +1,123 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of account views keyed by account number.
+ * Hit, miss and eviction statistics are published as the {@code cache.*} meters with {@code cache=accounts}.
+ * <p>
+ * Entries are futures so that a miss is loaded outside the cache's internal map lock: a JDBC call made inside
+ * {@code Cache.get}'s mapping function would pin the carrier thread when running on virtual threads.
+ * Concurrent misses for the same account still share a single load.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AccountCache {
+
+    AsyncCache<String, AccountDTO> cache;
+    AccountCacheTier secondTier;
+
+    @Autowired
+    public AccountCache(MeterRegistry meterRegistry,
+                        ObjectProvider<AccountCacheTier> secondTier,
+                        @Value("${banking.cache.accounts.maximum-size}") long maximumSize,
+                        @Value("${banking.cache.accounts.expire-after-write-seconds}") long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .buildAsync();
+        this.secondTier = secondTier.getIfAvailable();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "accounts");
+
+        if (this.secondTier != null) {
+            this.secondTier.onRemoteEviction(cache.synchronous()::invalidate);
+        }
+    }
+
+    public AccountDTO get(String accountNumber, Function<String, AccountDTO> loader) {
+
+        CompletableFuture<AccountDTO> cached = cache.getIfPresent(accountNumber);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        CompletableFuture<AccountDTO> loading = new CompletableFuture<>();
+        CompletableFuture<AccountDTO> existing = cache.asMap().putIfAbsent(accountNumber, loading);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            loading.complete(secondTier == null
+                    ? loader.apply(accountNumber)
+                    : secondTier.get(accountNumber).orElseGet(() -> loadIntoSecondTier(accountNumber, loader)));
+        } catch (RuntimeException | Error ex) {
+            loading.completeExceptionally(ex);
+            throw ex;
+        }
+        return loading.join();
+    }
+
+    /**
+     * Drops the cached accounts now and again once the surrounding transaction commits,
+     * so a read that raced with the transaction cannot leave a stale entry behind.
+     */
+    public void evictAfterCommit(String... accountNumbers) {
+
+        evict(accountNumbers);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(accountNumbers);
+                }
+            });
+        }
+    }
+
+    private void evict(String... accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            cache.synchronous().invalidate(accountNumber);
+            if (secondTier != null) {
+                secondTier.evict(accountNumber);
+            }
+        }
+    }
+
+    private static AccountDTO join(CompletableFuture<AccountDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private AccountDTO loadIntoSecondTier(String accountNumber, Function<String, AccountDTO> loader) {
+        AccountDTO account = loader.apply(accountNumber);
+        secondTier.put(accountNumber, account);
+        return account;
+    }
+}
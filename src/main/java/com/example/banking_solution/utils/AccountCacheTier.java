@@ -0,0 +1,21 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.dto.AccountDTO;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Optional shared cache tier behind the in-process {@link AccountCache}, for example a Redis cache
+ * shared by every node. Implementations that can broadcast evictions should call the listener
+ * registered through {@link #onRemoteEviction(Consumer)}, so other nodes drop their local copy.
+ */
+public interface AccountCacheTier {
+
+    Optional<AccountDTO> get(String accountNumber);
+    void put(String accountNumber, AccountDTO account);
+    void evict(String accountNumber);
+
+    default void onRemoteEviction(Consumer<String> listener) {
+    }
+}
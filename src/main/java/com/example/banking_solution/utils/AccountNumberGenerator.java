@@ -1,18 +1,42 @@
 package com.example.banking_solution.utils;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 public class AccountNumberGenerator {
 
-    @Autowired
-    Random random;
-
     public String generateAccountNumber() {
-        int number = random.nextInt(999999999) + 1;
-        return String.format("%09d", number);
+        int number = ThreadLocalRandom.current().nextInt(AccountNumbers.MAX) + 1;
+        return AccountNumbers.format(number);
+    }
+
+    /**
+     * Generates {@code count} distinct account numbers. They are only candidates: any of them may already be taken.
+     */
+    public Set<String> generateAccountNumbers(int count) {
+        return generateAccountNumbers(count, 0, 1);
+    }
+
+    /**
+     * Generates {@code count} distinct account numbers on the given shard, i.e. congruent to {@code shard}
+     * modulo {@code shards}, see {@link DatabaseShards}.
+     */
+    public Set<String> generateAccountNumbers(int count, int shard, int shards) {
+
+        Set<String> numbers = new HashSet<>(count * 2);
+
+        while (numbers.size() < count) {
+            int number = ThreadLocalRandom.current().nextInt(AccountNumbers.MAX) + 1;
+            number -= Math.floorMod(number - shard, shards);
+            if (number > 0) {
+                numbers.add(AccountNumbers.format(number));
+            }
+        }
+
+        return numbers;
     }
 }
@@ -0,0 +1,60 @@
+package com.example.banking_solution.utils;
+
+/**
+ * Formatting and validation of 9-digit account numbers without regex or {@code String.format}.
+ */
+public final class AccountNumbers {
+
+    public static final int LENGTH = 9;
+    public static final int MAX = 999_999_999;
+
+    private AccountNumbers() {
+    }
+
+    /**
+     * Formats a number in {@code [0, MAX]} as a zero-padded 9-digit account number.
+     */
+    public static String format(int number) {
+
+        if (number < 0 || number > MAX) {
+            throw new IllegalArgumentException("Account number out of range: " + number);
+        }
+
+        char[] digits = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Equivalent to {@code accountNumber.matches("\\d{9}")}, restricted to ASCII digits.
+     */
+    public static boolean isValid(CharSequence accountNumber) {
+
+        if (accountNumber == null || accountNumber.length() != LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < LENGTH; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inverse of {@link #format}, for an account number that passed {@link #isValid}.
+     */
+    public static int parse(CharSequence accountNumber) {
+
+        int number = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            number = number * 10 + (accountNumber.charAt(i) - '0');
+        }
+        return number;
+    }
+}
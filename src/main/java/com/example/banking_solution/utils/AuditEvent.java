@@ -0,0 +1,14 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.utils.enums.AuditEventType;
+
+/**
+ * One audited account mutation. The timestamp is epoch milliseconds so that recording an event
+ * allocates nothing besides the event itself.
+ */
+public record AuditEvent(AuditEventType type,
+                         String accountNumber,
+                         String counterpartyAccountNumber,
+                         Money amount,
+                         long timestampMillis) {
+}
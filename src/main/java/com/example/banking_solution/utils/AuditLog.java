@@ -0,0 +1,217 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.utils.enums.AuditEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured audit trail of account mutations. Request threads only publish an {@link AuditEvent}
+ * into a lock-free ring buffer. A single background thread drains it in batches and appends the events
+ * to a newline-delimited JSON file, with one flush per batch.
+ * <p>
+ * Backpressure: when the writer falls behind and the buffer fills, new events are dropped rather than
+ * slowing requests down. They are counted as {@code banking.audit.events{result=dropped}}, next to
+ * {@code written} and {@code failed}, and the buffer fill level is published as {@code banking.audit.buffer.size}.
+ * <p>
+ * With {@code banking.audit.enabled=false} no writer thread is started and events are discarded. An idle writer
+ * parks until the next event wakes it, with a timeout only as a safety net.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AuditLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    final MpscRingBuffer<AuditEvent> buffer;
+    final Path file;
+    final int batchSize;
+    final Counter written;
+    final Counter dropped;
+    final Counter failed;
+    final Thread writerThread;
+    final StringBuilder line = new StringBuilder(256);
+    volatile boolean running = true;
+    volatile boolean idle;
+
+    @Autowired
+    public AuditLog(MeterRegistry meterRegistry,
+                    @Value("${banking.audit.enabled}") boolean enabled,
+                    @Value("${banking.audit.file}") String file,
+                    @Value("${banking.audit.buffer-size}") int bufferSize,
+                    @Value("${banking.audit.batch-size}") int batchSize) {
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.file = Path.of(file);
+        this.batchSize = batchSize;
+        this.written = meterRegistry.counter("banking.audit.events", "result", "written");
+        this.dropped = meterRegistry.counter("banking.audit.events", "result", "dropped");
+        this.failed = meterRegistry.counter("banking.audit.events", "result", "failed");
+        meterRegistry.gauge("banking.audit.buffer.size", buffer, MpscRingBuffer::size);
+
+        if (enabled) {
+            this.writerThread = new Thread(this::writeLoop, "audit-writer");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        } else {
+            this.writerThread = null;
+        }
+    }
+
+    public void record(AuditEventType type, String accountNumber, String counterpartyAccountNumber, Money amount) {
+
+        if (writerThread == null) {
+            return;
+        }
+
+        if (!buffer.offer(new AuditEvent(type, accountNumber, counterpartyAccountNumber, amount, System.currentTimeMillis()))) {
+            dropped.increment();
+        } else if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Records the event once the current transaction has committed, so a rolled-back mutation leaves no trace;
+     * without a transaction it is recorded right away.
+     */
+    public void recordAfterCommit(AuditEventType type, String accountNumber, String counterpartyAccountNumber, Money amount) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(type, accountNumber, counterpartyAccountNumber, amount);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(type, accountNumber, counterpartyAccountNumber, amount);
+            }
+        });
+    }
+
+    /**
+     * Stops the writer after it has drained everything published so far.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+
+        running = false;
+
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void writeLoop() {
+
+        BufferedWriter writer = null;
+
+        while (running || buffer.size() > 0) {
+            try {
+                if (writer == null) {
+                    writer = open();
+                }
+
+                int drained = writeBatch(writer);
+                if (drained == 0) {
+                    idle = true;
+                    // an event published before the flag was set would not unpark this thread
+                    if (buffer.size() == 0 && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            } catch (IOException ex) {
+                log.warn("Writing audit events to {} failed", file, ex);
+                writer = closeQuietly(writer);
+                // Drop what is buffered so a broken file cannot back up into the request path
+                failed.increment(buffer.drain(event -> { }, buffer.capacity()));
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+
+        closeQuietly(writer);
+    }
+
+    private int writeBatch(BufferedWriter writer) throws IOException {
+
+        int drained = 0;
+        AuditEvent event;
+
+        while (drained < batchSize && (event = buffer.poll()) != null) {
+            writer.append(toJson(event)).append('\n');
+            drained++;
+        }
+
+        if (drained > 0) {
+            writer.flush();
+            written.increment(drained);
+        }
+
+        return drained;
+    }
+
+    private CharSequence toJson(AuditEvent event) {
+
+        line.setLength(0);
+        line.append("{\"timestamp\":").append(event.timestampMillis())
+                .append(",\"type\":\"").append(event.type().name()).append('"')
+                .append(",\"accountNumber\":");
+        appendString(event.accountNumber());
+        line.append(",\"counterpartyAccountNumber\":");
+        appendString(event.counterpartyAccountNumber());
+        line.append(",\"amount\":");
+        if (event.amount() == null) {
+            line.append("null");
+        } else {
+            line.append(event.amount());
+        }
+        return line.append('}');
+    }
+
+    // Account numbers are validated 9-digit strings, so they never need escaping
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+        } else {
+            line.append('"').append(value).append('"');
+        }
+    }
+
+    private BufferedWriter open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static BufferedWriter closeQuietly(BufferedWriter writer) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // the writer is being discarded either way
+            }
+        }
+        return null;
+    }
+}
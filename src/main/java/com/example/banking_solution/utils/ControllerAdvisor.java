@@ -1,9 +1,11 @@
 package com.example.banking_solution.utils;
 
 import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.IdempotencyConflictException;
 import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
 import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice
@@ -70,4 +73,38 @@ public class ControllerAdvisor {
 
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * The request's Idempotency-Key was taken over by a repeat after its lease ran out; the repeat applies it instead.
+     */
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Object> handleIdempotencyConflictException(
+            IdempotencyConflictException ex
+    ) {
+        Map<String, Object> body = new HashMap<>();
+
+        body.put("status", "error");
+        body.put("message", ex.getMessage());
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * A bounded worker pool, such as password hashing, is saturated. The request was not started and can be retried.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Object> handleRejectedExecutionException(
+            RejectedExecutionException ex
+    ) {
+        Map<String, Object> body = new HashMap<>();
+
+        body.put("status", "error");
+        body.put("message", "Server is busy, please retry later");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
 }
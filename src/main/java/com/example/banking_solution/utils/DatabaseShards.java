@@ -0,0 +1,135 @@
+package com.example.banking_solution.utils;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Places accounts on database shards: account {@code n} lives on shard {@code n % count}. Without a
+ * {@link ShardRoutingDataSource} there is a single shard and binding does nothing.
+ * <p>
+ * A transaction works on one shard only. It is bound to the shard of the account it touches before its first
+ * statement, and binding it to a second shard fails instead of silently using the first one's connection.
+ */
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DatabaseShards {
+
+    int count;
+    TransactionOperations readOnlyTransaction;
+
+    @Autowired
+    public DatabaseShards(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                          PlatformTransactionManager transactionManager) {
+        this(shardRoutingDataSource.stream().mapToInt(ShardRoutingDataSource::shardCount).findFirst().orElse(1),
+                readOnly(transactionManager));
+    }
+
+    public DatabaseShards(int count, TransactionOperations readOnlyTransaction) {
+        this.count = count;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    public int shardOf(String accountNumber) {
+        return count == 1 ? 0 : AccountNumbers.parse(accountNumber) % count;
+    }
+
+    /**
+     * Binds the current transaction to the shard of the given account.
+     */
+    public void bind(String accountNumber) {
+        bindShard(shardOf(accountNumber));
+    }
+
+    /**
+     * Binds the current transaction to the given shard. Must be called before the transaction's first statement.
+     *
+     * @throws IllegalStateException if there is no transaction, or it is already bound to another shard
+     */
+    public void bindShard(int shard) {
+
+        if (count == 1) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shard %d can only be bound inside a transaction".formatted(shard));
+        }
+
+        Object bound = TransactionSynchronizationManager.getResource(ShardRoutingDataSource.SHARD_RESOURCE);
+
+        if (bound != null) {
+            if (!bound.equals(shard)) {
+                throw new IllegalStateException("Transaction is bound to shard %s and cannot also use shard %d"
+                        .formatted(bound, shard));
+            }
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(ShardRoutingDataSource.SHARD_RESOURCE, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(ShardRoutingDataSource.SHARD_RESOURCE);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(ShardRoutingDataSource.SHARD_RESOURCE, shard);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ShardRoutingDataSource.SHARD_RESOURCE);
+            }
+        });
+    }
+
+    /**
+     * Runs the read once per shard, each time in its own read-only transaction bound to that shard.
+     *
+     * @return the results in shard order
+     */
+    public <T> List<T> readEachShard(Supplier<T> read) {
+
+        List<T> results = new ArrayList<>(count);
+
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            results.add(readOnlyTransaction.execute(status -> {
+                bindShard(current);
+                return read.get();
+            }));
+        }
+
+        return results;
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.utils.enums.IdempotencyStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Makes the money-moving endpoints safe to retry. A request carrying an {@code Idempotency-Key} header
+ * is executed at most once per key; repeats get the stored status and body back without reaching the
+ * controller. A repeat that arrives while the first request is still running gets 409, and a key reused
+ * with different parameters gets 422.
+ * <p>
+ * A request that fails gives its key up, unless its balance change had already committed: then the key stays
+ * held and repeats get 409, since running the request again would apply it twice.
+ */
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of(
+            "/accounts/deposit",
+            "/accounts/withdraw",
+            "/accounts/transfer"
+    );
+
+    IdempotencyService idempotencyService;
+    ObjectMapper objectMapper;
+
+    @Autowired
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !IDEMPOTENT_PATHS.contains(path(request))
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "%s must be between 1 and %d characters".formatted(IDEMPOTENCY_KEY_HEADER, MAX_KEY_LENGTH));
+            return;
+        }
+
+        String fingerprint = fingerprint(request);
+        IdempotencyService.Claim claim = new IdempotencyService.Claim(key, UUID.randomUUID().toString(),
+                accountNumber(request));
+        Optional<IdempotencyRecord> existing = idempotencyService.claim(claim, fingerprint);
+
+        if (existing.isPresent()) {
+            replay(existing.get(), fingerprint, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+
+        idempotencyService.bind(claim);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            idempotencyService.release(claim);
+            throw ex;
+        } finally {
+            idempotencyService.bind(null);
+        }
+
+        if (responseWrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyService.release(claim);
+        } else {
+            idempotencyService.complete(claim, responseWrapper.getStatus(),
+                    new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+        }
+
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void replay(IdempotencyRecord record, String fingerprint, HttpServletResponse response) throws IOException {
+
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "%s was already used for a different request".formatted(IDEMPOTENCY_KEY_HEADER));
+            return;
+        }
+
+        if (record.getStatus() == IdempotencyStatus.APPLIED
+                && (record.getLockedUntil() == null || record.getLockedUntil().isBefore(Instant.now()))) {
+            writeError(response, HttpStatus.CONFLICT,
+                    "A request with this %s was applied but its response was lost".formatted(IDEMPOTENCY_KEY_HEADER));
+            return;
+        }
+
+        if (record.getStatus() != IdempotencyStatus.COMPLETED) {
+            writeError(response, HttpStatus.CONFLICT,
+                    "A request with this %s is still being processed".formatted(IDEMPOTENCY_KEY_HEADER));
+            return;
+        }
+
+        response.setStatus(record.getResponseStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+
+        if (record.getResponseBody() != null && !record.getResponseBody().isEmpty()) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(record.getResponseBody());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("status", "error", "message", message));
+    }
+
+    private static String fingerprint(HttpServletRequest request) {
+
+        StringBuilder fingerprint = new StringBuilder(path(request));
+
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+            for (String value : values) {
+                fingerprint.append('&').append(name).append('=').append(value);
+            }
+        });
+
+        return fingerprint.toString();
+    }
+
+    /**
+     * The account whose balance the request changes first, which decides where its key is stored.
+     */
+    private static String accountNumber(HttpServletRequest request) {
+        String accountNumber = request.getParameter("accountNumber");
+        return accountNumber != null ? accountNumber : request.getParameter("senderAccountNumber");
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
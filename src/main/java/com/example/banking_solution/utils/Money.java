@@ -0,0 +1,157 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.utils.converters.MoneyJsonDeserializer;
+import com.example.banking_solution.utils.converters.MoneyJsonSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount of money as a whole number of cents, the scale of every {@code numeric(19,2)} money column.
+ * Arithmetic is exact and fails with an {@link ArithmeticException} instead of overflowing, comparisons are
+ * plain {@code long} comparisons, and {@link #toString} renders {@code 1250.75} without creating a
+ * {@link BigDecimal}. {@link BigDecimal} is only used at the edges: amounts in requests and values bound to SQL.
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long CENTS_PER_UNIT = 100;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has more than two decimal places or does not fit in a long of cents
+     */
+    public static Money of(BigDecimal amount) {
+
+        if (amount.scale() > SCALE) {
+            throw new IllegalArgumentException("Amount [%s] has more than %d decimal places".formatted(amount, SCALE));
+        }
+
+        try {
+            return ofCents(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Amount [%s] is too large".formatted(amount));
+        }
+    }
+
+    /**
+     * Parses a plain decimal such as {@code 12}, {@code -0.5} or {@code 1250.75} without going through
+     * {@link BigDecimal}; anything else, such as exponent notation, is handed to {@link BigDecimal}.
+     *
+     * @throws IllegalArgumentException if the text is not an amount with at most two decimal places
+     */
+    public static Money valueOf(String text) {
+
+        int length = text.length();
+        int i = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        int decimals = -1;
+        long cents = 0;
+
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9' && decimals < SCALE && digits < 17) {
+                cents = cents * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return of(new BigDecimal(text));
+            }
+        }
+
+        if (digits == 0) {
+            throw new IllegalArgumentException("Amount [%s] is not a number".formatted(text));
+        }
+
+        for (int scale = Math.max(decimals, 0); scale < SCALE; scale++) {
+            cents *= 10;
+        }
+
+        return ofCents(text.charAt(0) == '-' ? -cents : cents);
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Always two decimal places, like {@code numeric(19,2)} renders: {@code 0.00}, {@code -12.50}.
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder text = new StringBuilder(24);
+
+        if (cents < 0) {
+            text.append('-');
+        }
+
+        // Long.MIN_VALUE has no positive counterpart, so the parts are taken from the negative value
+        long negative = cents < 0 ? cents : -cents;
+        long units = -(negative / CENTS_PER_UNIT);
+        long fraction = -(negative % CENTS_PER_UNIT);
+
+        text.append(units).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.banking_solution.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Each slot carries a sequence number
+ * that tells producers whether the slot is free and the consumer whether it has been published, so
+ * producers only contend on one CAS of the tail and never block. When the buffer is full,
+ * {@link #offer} fails instead of waiting.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int capacity) {
+
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+        }
+
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publishes an element. Safe to call from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next published element. Must only be called from the consumer thread.
+     *
+     * @return the element, or null if none is published yet
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+
+        long position = head;
+        int index = (int) (position & mask);
+
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.set(index, position + elements.length);
+        head = position + 1;
+
+        return element;
+    }
+
+    /**
+     * Hands up to {@code limit} published elements to the consumer. Must only be called from the consumer thread.
+     *
+     * @return the number of elements drained
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+
+        int drained = 0;
+        E element;
+
+        while (drained < limit && (element = poll()) != null) {
+            consumer.accept(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, Math.min(elements.length, tail.get() - head));
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
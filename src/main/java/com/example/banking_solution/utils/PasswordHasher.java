@@ -0,0 +1,126 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and verifies passwords with BCrypt on a dedicated pool sized to the CPUs, so the expensive work
+ * cannot occupy request threads beyond what the machine can compute anyway. The pool's queue is bounded:
+ * once it is full, new work is refused with a {@link RejectedExecutionException}, answered as 503, instead of
+ * piling up behind requests that will time out. The pool publishes the {@code executor.*} meters with
+ * {@code name=password-hashing}, including {@code executor.queued}, and the time of every hash and check
+ * as {@code banking.password.hashing}.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PasswordHasher {
+
+    PasswordEncoder passwordEncoder;
+    ThreadPoolExecutor executor;
+    int parallelism;
+    Timer hashTimer;
+    Timer verifyTimer;
+
+    @Autowired
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${banking.password.bcrypt-strength}") int strength,
+                          @Value("${banking.password.hashing.threads}") int threads,
+                          @Value("${banking.password.hashing.queue-capacity}") int queueCapacity) {
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+        this.parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+        this.hashTimer = meterRegistry.timer("banking.password.hashing", "operation", "hash");
+        this.verifyTimer = meterRegistry.timer("banking.password.hashing", "operation", "verify");
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public String hash(CharSequence rawPassword) {
+        return await(hashAsync(rawPassword));
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<String> hashAsync(CharSequence rawPassword) {
+        return submit(hashTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Hashes the passwords in order. At most one password per hashing thread is queued at a time, so a large batch
+     * shares the pool with single requests instead of filling its queue.
+     *
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public List<String> hashAll(List<? extends CharSequence> rawPasswords) {
+
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+
+        for (int from = 0; from < rawPasswords.size(); from += parallelism) {
+
+            List<CompletableFuture<String>> window = rawPasswords
+                    .subList(from, Math.min(from + parallelism, rawPasswords.size())).stream()
+                    .map(this::hashAsync)
+                    .toList();
+
+            window.forEach(hash -> hashes.add(await(hash)));
+        }
+
+        return hashes;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public boolean matches(CharSequence rawPassword, String hashedPassword) {
+        return await(submit(verifyTimer, () -> passwordEncoder.matches(rawPassword, hashedPassword)));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.banking_solution.utils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Lets a client read its own writes when reads go to replicas. A successful write request is answered with a
+ * cookie holding the primary's WAL position once it completed, and while the cookie lives the client's reads only
+ * use replicas that have replayed the WAL up to that position, see {@link ReplicaRoutingDataSource#readAfterWrite}.
+ * The position is only set on the request thread; a handler that reads on another thread has to hand it on.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReadAfterWriteFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_COOKIE = "banking-last-write";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    ReplicaRoutingDataSource replicaRoutingDataSource;
+    int cookieMaxAgeSeconds;
+
+    public ReadAfterWriteFilter(ReplicaRoutingDataSource replicaRoutingDataSource, int cookieMaxAgeSeconds) {
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+        this.cookieMaxAgeSeconds = cookieMaxAgeSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Cookie lastWrite = WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+
+        if (lastWrite != null) {
+            try {
+                ReplicaRoutingDataSource.readAfterWrite(Long.parseLong(lastWrite.getValue()));
+            } catch (NumberFormatException ignored) {
+                // not a cookie this filter wrote, so it says nothing about the client's writes
+            }
+        }
+
+        try {
+            if (READ_METHODS.contains(request.getMethod())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            // the cookie has to be added after the write committed but before the body commits the response
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, wrapper);
+
+            if (wrapper.getStatus() < 400) {
+                Long position = replicaRoutingDataSource.primaryWalPosition();
+                // without the primary's position, the client reads from the primary until the cookie expires
+                Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(position == null ? Long.MAX_VALUE : position));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge(cookieMaxAgeSeconds);
+                wrapper.addCookie(cookie);
+            }
+
+            wrapper.copyBodyToResponse();
+        } finally {
+            ReplicaRoutingDataSource.clearReadAfterWrite();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connections for read-only transactions. Each is taken from a replica, chosen round robin among those that are
+ * currently usable, or from the primary when none is. A replica is usable when its last check succeeded, its lag
+ * is within {@code max-lag-ms}, and it has replayed everything the current client wrote, see {@link #readAfterWrite}.
+ * <p>
+ * Every {@code check-interval-ms} each replica is compared with the primary: a replica that has replayed the
+ * primary's current WAL position is up to date as of the check, otherwise its lag is the age of the last
+ * transaction it replayed. The check also records the WAL position the replica has replayed, which read-after-write
+ * compares with the primary's position after the client's last write, so no clocks are compared across machines.
+ * A replica that fails a check or refuses a connection stays out until its next good check.
+ * Reads are counted as {@code banking.datasource.reads{target=replica|primary}}, and every replica publishes
+ * {@code banking.datasource.replica.lag} and {@code banking.datasource.replica.available}.
+ */
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    static final String PRIMARY_POSITION_QUERY = "SELECT pg_current_wal_lsn()::text";
+    static final String REPLICA_STATUS_QUERY = """
+            SELECT pg_is_in_recovery(),
+                   pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn),
+                   EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000,
+                   pg_last_wal_replay_lsn()::text
+            """;
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    DataSource primary;
+    List<Replica> replicas;
+    long maxLagMillis;
+    int checkTimeoutSeconds;
+    AtomicInteger next = new AtomicInteger();
+    Counter replicaReads;
+    Counter primaryReads;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    long maxLagMillis,
+                                    long checkIntervalMillis,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        this.checkTimeoutSeconds = (int) Math.max(1, checkIntervalMillis / 1000);
+        this.replicaReads = meterRegistry.counter("banking.datasource.reads", "target", "replica");
+        this.primaryReads = meterRegistry.counter("banking.datasource.reads", "target", "primary");
+        this.replicas = new ArrayList<>(replicas.size());
+
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("banking.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .tag("replica", name).baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("banking.datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .tag("replica", name).register(meterRegistry);
+        });
+    }
+
+    /**
+     * Reads on this thread only go to replicas that have replayed the primary's WAL up to {@code lastWritePosition},
+     * see {@link #primaryWalPosition}. Null lifts the restriction.
+     */
+    public static void readAfterWrite(Long lastWritePosition) {
+        if (lastWritePosition == null) {
+            LAST_WRITE.remove();
+        } else {
+            LAST_WRITE.set(lastWritePosition);
+        }
+    }
+
+    /**
+     * The position set on this thread by {@link #readAfterWrite}, for handing it on to another thread.
+     */
+    public static Long readAfterWritePosition() {
+        return LAST_WRITE.get();
+    }
+
+    public static void clearReadAfterWrite() {
+        LAST_WRITE.remove();
+    }
+
+    /**
+     * The primary's current WAL position, which covers every transaction committed on it so far.
+     *
+     * @return the position, or null if the primary could not be asked
+     */
+    public Long primaryWalPosition() {
+        String position = primaryPosition();
+        return position == null ? null : parseLsn(position);
+    }
+
+    /**
+     * Converts a {@code pg_lsn} such as {@code 16/B374D848} to a number that orders like the WAL position.
+     */
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return Long.parseLong(lsn.substring(0, slash), 16) << 32 | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        Long lastWrite = LAST_WRITE.get();
+        int start = next.getAndIncrement();
+
+        for (int i = 0; i < replicas.size(); i++) {
+
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+
+            if (!replica.isUsable(maxLagMillis, lastWrite)) {
+                continue;
+            }
+
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                log.warn("Replica {} refused a connection, taking it out of rotation", replica.name, ex);
+                replica.available = false;
+            }
+        }
+
+        Connection connection = primary.getConnection();
+        connection.setReadOnly(true);
+        primaryReads.increment();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing only uses the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${banking.datasource.replica.check-interval-ms}")
+    public void checkReplicas() {
+
+        String primaryPosition = primaryPosition();
+
+        for (Replica replica : replicas) {
+            check(replica, primaryPosition);
+        }
+    }
+
+    /**
+     * Closes the replica pools; the primary belongs to whoever created it.
+     */
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private String primaryPosition() {
+
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+
+            statement.setQueryTimeout(checkTimeoutSeconds);
+
+            try (ResultSet resultSet = statement.executeQuery(PRIMARY_POSITION_QUERY)) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        } catch (SQLException ex) {
+            log.warn("Reading the primary's WAL position failed, replica lag is estimated from replay times only", ex);
+            return null;
+        }
+    }
+
+    private void check(Replica replica, String primaryPosition) {
+
+        try (Connection connection = replica.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(REPLICA_STATUS_QUERY)) {
+
+            statement.setQueryTimeout(checkTimeoutSeconds);
+            statement.setString(1, primaryPosition);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+
+                resultSet.next();
+
+                if (!resultSet.getBoolean(1)) {
+                    log.warn("Replica {} is not in recovery, so it is not a standby of the primary", replica.name);
+                    replica.available = false;
+                    return;
+                }
+
+                boolean caughtUp = resultSet.getBoolean(2);
+                double replayAge = resultSet.getDouble(3);
+                boolean replayed = !resultSet.wasNull();
+                String replayPosition = resultSet.getString(4);
+
+                if (replayPosition == null) {
+                    // nothing replayed since the replica started, so it cannot serve any client's writes yet
+                    replica.available = false;
+                } else if (caughtUp) {
+                    replica.update(parseLsn(replayPosition), 0);
+                } else if (replayed) {
+                    replica.update(parseLsn(replayPosition), Math.max(0, (long) replayAge));
+                } else {
+                    // nothing replayed since the replica started and not caught up, so its lag is unknown
+                    replica.available = false;
+                }
+            }
+        } catch (SQLException ex) {
+            if (replica.available) {
+                log.warn("Replica {} failed its check, taking it out of rotation", replica.name, ex);
+            }
+            replica.available = false;
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    static final class Replica {
+
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available;
+        volatile long lagMillis;
+        // the replica holds every transaction committed on the primary up to this WAL position
+        volatile long replayedPosition;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void update(long replayedPosition, long lagMillis) {
+            this.replayedPosition = Math.max(this.replayedPosition, replayedPosition);
+            this.lagMillis = lagMillis;
+            this.available = true;
+        }
+
+        boolean isUsable(long maxLagMillis, Long lastWritePosition) {
+            return available && lagMillis <= maxLagMillis && (lastWritePosition == null || replayedPosition >= lastWritePosition);
+        }
+    }
+}
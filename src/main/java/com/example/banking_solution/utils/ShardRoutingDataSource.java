@@ -0,0 +1,59 @@
+package com.example.banking_solution.utils;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connections from one of several databases that each hold a share of the accounts. A connection comes from the
+ * shard the current transaction was bound to with {@link DatabaseShards#bindShard}, or from shard 0 when it was not
+ * bound; shard 0 also holds everything that does not belong to an account, such as idempotency keys.
+ * <p>
+ * The shard is looked up when the connection is taken, so this data source has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that only takes it at the first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final Object SHARD_RESOURCE = new Object();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+
+        this.shards = List.copyOf(shards);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Closes the pools of shards 1 and up; shard 0 belongs to whoever created it.
+     */
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Object shard = TransactionSynchronizationManager.getResource(SHARD_RESOURCE);
+        return shard == null ? 0 : shard;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.services.SnapshotExportService;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Command line export for nightly jobs: writes a balance snapshot to {@code banking.export.file} and exits.
+ * <pre>
+ * java -jar banking_solution.jar --spring.main.web-application-type=none --banking.export.file=/data/accounts.csv.gz
+ * </pre>
+ * The output is gzipped when the file name ends with {@code .gz}. It is written next to the target and moved into
+ * place once complete, so a reader never sees a partial file.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty("banking.export.file")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SnapshotExportRunner implements ApplicationRunner {
+
+    SnapshotExportService snapshotExportService;
+    ConfigurableApplicationContext applicationContext;
+    Path file;
+    boolean consistentSnapshot;
+
+    @Autowired
+    public SnapshotExportRunner(SnapshotExportService snapshotExportService,
+                                ConfigurableApplicationContext applicationContext,
+                                @Value("${banking.export.file}") String file,
+                                @Value("${banking.export.consistent-snapshot}") boolean consistentSnapshot) {
+        this.snapshotExportService = snapshotExportService;
+        this.applicationContext = applicationContext;
+        this.file = Path.of(file).toAbsolutePath();
+        this.consistentSnapshot = consistentSnapshot;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        long rows;
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            rows = snapshotExportService.exportCsv(channel, file.getFileName().toString().endsWith(".gz"), consistentSnapshot);
+            channel.force(true);
+        }
+
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Exported {} accounts to {}", rows, file);
+
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+}
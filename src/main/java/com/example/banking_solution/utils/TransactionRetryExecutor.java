@@ -0,0 +1,87 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action in its own transaction and retries it when the database reports a lock,
+ * serialization or optimistic version conflict. Retries back off exponentially with full jitter,
+ * bounded by the configured maximum. Conflicts and retries are counted per operation
+ * under {@code banking.transaction.conflicts} and {@code banking.transaction.retries}.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TransactionRetryExecutor {
+
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+    int maxAttempts;
+    long initialBackoffMillis;
+    long maxBackoffMillis;
+
+    @Autowired
+    public TransactionRetryExecutor(PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${banking.transaction.retry.max-attempts}") int maxAttempts,
+                                    @Value("${banking.transaction.retry.initial-backoff-ms}") long initialBackoffMillis,
+                                    @Value("${banking.transaction.retry.max-backoff-ms}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException | OptimisticLockException ex) {
+                meterRegistry.counter("banking.transaction.conflicts",
+                        "operation", operation, "type", conflictType(ex)).increment();
+                if (attempt >= maxAttempts) {
+                    log.warn("Operation {} failed after {} attempts", operation, attempt);
+                    throw ex;
+                }
+                log.debug("Operation {} hit a concurrency conflict on attempt {}, retrying", operation, attempt);
+                meterRegistry.counter("banking.transaction.retries", "operation", operation).increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static String conflictType(RuntimeException ex) {
+        return ex instanceof OptimisticLockingFailureException || ex instanceof OptimisticLockException
+                ? "optimistic"
+                : "pessimistic";
+    }
+
+    private void backOff(int attempt) {
+
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a transaction", ex);
+        }
+    }
+}
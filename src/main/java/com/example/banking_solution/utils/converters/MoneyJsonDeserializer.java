@@ -0,0 +1,37 @@
+package com.example.banking_solution.utils.converters;
+
+import com.example.banking_solution.utils.Money;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link Money} from a string or a JSON number with at most two decimal places.
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+        JsonToken token = parser.currentToken();
+
+        if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+
+        try {
+            // a float is taken from its text, so 0.1 stays exactly 0.1
+            return Money.valueOf(parser.getText().trim());
+        } catch (IllegalArgumentException ex) {
+            throw InvalidFormatException.from(parser, ex.getMessage(), parser.getText(), Money.class);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.banking_solution.utils.converters;
+
+import com.example.banking_solution.utils.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link Money} as a string with two decimal places, {@code "1250.75"}, so clients never parse
+ * an amount into a binary floating point number.
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(money.toString());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.banking_solution.utils.engine;
+
+/**
+ * An account as seen by the {@link BalanceEngine} once the operation that produced it was durable.
+ */
+public record AccountState(int accountNumber, long balanceCents, BalanceBook.Profile profile) {
+}
@@ -0,0 +1,231 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.enums.WalRecordType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Every account known to the {@link BalanceEngine}: balances in cents in an {@link IntLongHashMap} keyed by
+ * account number, and the rest of each account in a map that is only ever added to. Balances are owned by the
+ * engine's writer thread; profiles can be read from any thread.
+ * <p>
+ * A snapshot is a copy of the balances at a sequence, written to {@code snapshot-<sequence>.bin} through a
+ * temporary file that is synced and then renamed, so a crash never leaves a partial snapshot behind.
+ */
+public final class BalanceBook {
+
+    private static final int SNAPSHOT_MAGIC = 0x42424b31;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final IntLongHashMap balances;
+    private final Map<Integer, Profile> profiles;
+
+    public BalanceBook(int expectedAccounts) {
+        this(new IntLongHashMap(expectedAccounts), new ConcurrentHashMap<>(expectedAccounts));
+    }
+
+    private BalanceBook(IntLongHashMap balances, Map<Integer, Profile> profiles) {
+        this.balances = balances;
+        this.profiles = profiles;
+    }
+
+    public record Profile(String id, String email, String passwordHash, String role) {
+    }
+
+    /**
+     * The balances as of {@code sequence}, sharing the profiles of the book it was taken from.
+     */
+    public record Snapshot(long sequence, IntLongHashMap balances, Map<Integer, Profile> profiles) {
+    }
+
+    public record LoadedSnapshot(long sequence, BalanceBook book) {
+    }
+
+    public boolean contains(int accountNumber) {
+        return balances.containsKey(accountNumber);
+    }
+
+    public long balance(int accountNumber) {
+        return balances.get(accountNumber, 0);
+    }
+
+    public Profile profile(int accountNumber) {
+        return profiles.get(accountNumber);
+    }
+
+    public int size() {
+        return balances.size();
+    }
+
+    public void open(int accountNumber, Profile profile, long balanceCents) {
+        profiles.put(accountNumber, profile);
+        balances.put(accountNumber, balanceCents);
+    }
+
+    public void apply(WalRecord record) {
+
+        if (record.type() == WalRecordType.ACCOUNT_CREATED) {
+            open(record.accountNumber(), new Profile(record.id(), record.email(), record.passwordHash(), "USER"), 0);
+            return;
+        }
+
+        balances.put(record.accountNumber(), record.balanceAfterCents());
+
+        if (record.type() == WalRecordType.TRANSFER) {
+            balances.put(record.counterpartyAccountNumber(), record.counterpartyBalanceAfterCents());
+        }
+    }
+
+    /**
+     * Copies the balances, which is cheap enough for the writer thread: two array clones. Profiles are shared,
+     * since they are never changed and the copy only looks up the accounts it holds.
+     */
+    public Snapshot snapshot(long sequence) {
+        return new Snapshot(sequence, balances.copy(), profiles);
+    }
+
+    public static void writeSnapshot(Path directory, Snapshot snapshot) throws IOException {
+
+        Files.createDirectories(directory);
+        Path file = snapshotPath(directory, snapshot.sequence());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileOutputStream fileStream = new FileOutputStream(temporary.toFile())) {
+
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileStream), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshot.sequence());
+            out.writeInt(snapshot.balances().size());
+
+            IOException[] failure = new IOException[1];
+            snapshot.balances().forEach((accountNumber, balance) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    Profile profile = snapshot.profiles().get(accountNumber);
+                    out.writeInt(accountNumber);
+                    out.writeLong(balance);
+                    out.writeUTF(profile.id());
+                    out.writeUTF(profile.email());
+                    out.writeUTF(profile.passwordHash());
+                    out.writeUTF(profile.role());
+                } catch (IOException ex) {
+                    failure[0] = ex;
+                }
+            });
+
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            fileStream.getFD().sync();
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> snapshots = listSnapshots(directory);
+        for (Path older : snapshots.subList(Math.min(SNAPSHOTS_KEPT, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(older);
+        }
+    }
+
+    /**
+     * Loads the newest snapshot that is intact, falling back to older ones.
+     *
+     * @return the snapshot, or null if there is none
+     */
+    public static LoadedSnapshot loadLatest(Path directory) throws IOException {
+
+        IOException failure = null;
+
+        for (Path file : listSnapshots(directory)) {
+            try {
+                return read(file);
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+
+        if (failure != null) {
+            throw new IOException("No intact snapshot in " + directory, failure);
+        }
+        return null;
+    }
+
+    private static LoadedSnapshot read(Path file) throws IOException {
+
+        try (InputStream fileStream = Files.newInputStream(file)) {
+
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fileStream), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+
+            long sequence = in.readLong();
+            int count = in.readInt();
+            BalanceBook book = new BalanceBook(count);
+
+            for (int i = 0; i < count; i++) {
+                int accountNumber = in.readInt();
+                long balance = in.readLong();
+                book.open(accountNumber, new Profile(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()), balance);
+            }
+
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+
+            return new LoadedSnapshot(sequence, book);
+        }
+    }
+
+    /**
+     * @return the snapshot files, newest first
+     */
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    private static Path snapshotPath(Path directory, long sequence) {
+        return directory.resolve("%s%020d%s".formatted(SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.AccountNumbers;
+import com.example.banking_solution.utils.MpscRingBuffer;
+import com.example.banking_solution.utils.enums.WalRecordType;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Keeps every balance in memory and applies all operations on a single writer thread, so no operation ever
+ * waits for a lock. Callers publish commands to a lock-free ring buffer; the writer drains up to
+ * {@code batchSize} of them, checks each against the {@link BalanceBook}, appends the outcome to the
+ * {@link WriteAheadLog} and applies it. Once the whole batch is forced to disk, the durable sequence is advanced
+ * and the callers are answered, so every acknowledged operation survives a crash, and one flush is shared by
+ * everything that arrived meanwhile. Reads go through the writer too, so they see every operation before them.
+ * <p>
+ * Every {@code snapshotInterval} records the balances are copied on the writer thread and written to disk on
+ * another one. Log segments are deleted once both a snapshot and the Postgres projection have passed them.
+ * On startup the latest snapshot is loaded and the log after it replayed; without either, the book is seeded
+ * from the given supplier. If the log cannot be written, the engine halts and refuses all further commands,
+ * since its memory may then be ahead of its disk.
+ */
+@Slf4j
+public final class BalanceEngine implements AutoCloseable {
+
+    private static final int IDLE_SPINS = 1000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Path directory;
+    private final MpscRingBuffer<Command> commands;
+    private final WriteAheadLog wal;
+    private final int batchSize;
+    private final long snapshotInterval;
+    private final ExecutorService snapshotWriter;
+    private final AtomicBoolean snapshotInProgress = new AtomicBoolean();
+    private final List<Completion> completions = new ArrayList<>();
+    private final SplittableRandom random = new SplittableRandom();
+
+    private BalanceBook book;
+    private Thread writerThread;
+    private long sequence;
+    private long lastSnapshotTaken;
+    private long truncatedUpTo;
+
+    private volatile long durableSequence;
+    private volatile long snapshotSequence;
+    private volatile long projectedSequence;
+    private volatile long processedCommands;
+    private volatile long batches;
+    private volatile boolean running;
+    private volatile boolean halted;
+
+    public BalanceEngine(Path directory, int capacity, int batchSize, int walSegmentSize, long snapshotInterval) {
+        this.directory = directory;
+        this.commands = new MpscRingBuffer<>(capacity);
+        this.wal = new WriteAheadLog(directory, walSegmentSize);
+        this.batchSize = batchSize;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-engine-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Recovers the book from disk, or seeds it if there is nothing on disk yet, and starts the writer.
+     *
+     * @param seed the initial book, used only when the engine directory holds neither a snapshot nor a log;
+     *             it is snapshotted at sequence 0 before the first operation
+     */
+    public void start(Supplier<BalanceBook> seed) throws IOException {
+
+        BalanceBook.LoadedSnapshot snapshot = BalanceBook.loadLatest(directory);
+
+        if (snapshot == null) {
+            if (!wal.isEmpty()) {
+                throw new IllegalStateException("%s holds a write-ahead log but no snapshot to replay it onto".formatted(directory));
+            }
+            snapshot = new BalanceBook.LoadedSnapshot(0, seed.get());
+            BalanceBook.writeSnapshot(directory, snapshot.book().snapshot(0));
+        }
+
+        book = snapshot.book();
+        sequence = wal.recover(snapshot.sequence(), book::apply);
+        lastSnapshotTaken = snapshot.sequence();
+        snapshotSequence = snapshot.sequence();
+        durableSequence = sequence;
+
+        log.info("Balance engine recovered {} accounts from snapshot {} and log up to {}",
+                book.size(), snapshot.sequence(), sequence);
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "balance-engine-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public CompletableFuture<AccountState> createAccount(String id, String email, String passwordHash) {
+        return submit(new Command(Kind.CREATE, 0, 0, 0, new BalanceBook.Profile(id, email, passwordHash, "USER")));
+    }
+
+    public CompletableFuture<AccountState> deposit(int accountNumber, long amountCents) {
+        return submit(new Command(Kind.DEPOSIT, accountNumber, 0, amountCents, null));
+    }
+
+    public CompletableFuture<AccountState> withdraw(int accountNumber, long amountCents) {
+        return submit(new Command(Kind.WITHDRAW, accountNumber, 0, amountCents, null));
+    }
+
+    /**
+     * @return the sender's state after the transfer
+     */
+    public CompletableFuture<AccountState> transfer(int senderAccountNumber, int receiverAccountNumber, long amountCents) {
+        return submit(new Command(Kind.TRANSFER, senderAccountNumber, receiverAccountNumber, amountCents, null));
+    }
+
+    public CompletableFuture<AccountState> read(int accountNumber) {
+        return submit(new Command(Kind.READ, accountNumber, 0, 0, null));
+    }
+
+    /**
+     * The sequence of the last record forced to disk. Records up to it can be read from {@link #openReader}.
+     */
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    public long snapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public long projectedSequence() {
+        return projectedSequence;
+    }
+
+    /**
+     * Tells the engine that every record up to {@code sequence} is in Postgres, so the log may drop them
+     * once a snapshot covers them too.
+     */
+    public void projected(long sequence) {
+        projectedSequence = sequence;
+    }
+
+    public WriteAheadLog.Reader openReader(long afterSequence) {
+        return wal.openReader(afterSequence);
+    }
+
+    public int queueSize() {
+        return commands.size();
+    }
+
+    public long processedCommands() {
+        return processedCommands;
+    }
+
+    public long batches() {
+        return batches;
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * Stops the writer after it has applied everything queued so far.
+     */
+    @Override
+    public void close() throws InterruptedException {
+
+        running = false;
+
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        snapshotWriter.shutdown();
+        snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        wal.close();
+    }
+
+    private CompletableFuture<AccountState> submit(Command command) {
+
+        if (halted || !running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Balance engine is not running"));
+        }
+
+        if (!commands.offer(command)) {
+            throw new RejectedExecutionException("Balance engine queue is full");
+        }
+
+        return command.result();
+    }
+
+    private void writeLoop() {
+
+        int idle = 0;
+
+        while (running || commands.size() > 0) {
+
+            int drained = commands.drain(this::process, batchSize);
+
+            if (drained > 0) {
+                commit(drained);
+                idle = 0;
+            } else {
+                truncateLog();
+                if (++idle < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+
+            if (halted) {
+                commands.drain(command -> command.result().completeExceptionally(
+                        new IllegalStateException("Balance engine has halted")), Integer.MAX_VALUE);
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void process(Command command) {
+
+        if (halted) {
+            command.result().completeExceptionally(new IllegalStateException("Balance engine has halted"));
+            return;
+        }
+
+        try {
+            completions.add(new Completion(command, apply(command), null));
+        } catch (IOException ex) {
+            halt(ex);
+            command.result().completeExceptionally(new IllegalStateException("Balance engine has halted", ex));
+        } catch (RuntimeException ex) {
+            completions.add(new Completion(command, null, ex));
+        }
+    }
+
+    private AccountState apply(Command command) throws IOException {
+
+        long now = System.currentTimeMillis();
+        int accountNumber = command.accountNumber();
+
+        switch (command.kind()) {
+            case READ -> {
+                requireAccount(accountNumber);
+                return state(accountNumber);
+            }
+            case CREATE -> {
+                do {
+                    accountNumber = random.nextInt(1, AccountNumbers.MAX + 1);
+                } while (book.contains(accountNumber));
+
+                BalanceBook.Profile profile = command.profile();
+                append(WalRecord.accountCreated(sequence + 1, now, accountNumber,
+                        profile.id(), profile.email(), profile.passwordHash()));
+                return state(accountNumber);
+            }
+            case DEPOSIT -> {
+                requireAccount(accountNumber);
+                long balance = addWithoutOverflow(book.balance(accountNumber), command.amountCents());
+                append(WalRecord.balanceChange(sequence + 1, WalRecordType.DEPOSIT, now, accountNumber,
+                        command.amountCents(), balance));
+                return state(accountNumber);
+            }
+            case WITHDRAW -> {
+                requireAccount(accountNumber);
+                if (book.balance(accountNumber) < command.amountCents()) {
+                    throw new InsufficientFundsException("Insufficient funds");
+                }
+                append(WalRecord.balanceChange(sequence + 1, WalRecordType.WITHDRAWAL, now, accountNumber,
+                        command.amountCents(), book.balance(accountNumber) - command.amountCents()));
+                return state(accountNumber);
+            }
+            case TRANSFER -> {
+                int receiverAccountNumber = command.counterpartyAccountNumber();
+                requireAccount(accountNumber);
+                requireAccount(receiverAccountNumber);
+                if (book.balance(accountNumber) < command.amountCents()) {
+                    throw new InsufficientFundsException("Insufficient funds for transfer");
+                }
+                long receiverBalance = addWithoutOverflow(book.balance(receiverAccountNumber), command.amountCents());
+                append(WalRecord.transfer(sequence + 1, now, accountNumber, receiverAccountNumber, command.amountCents(),
+                        book.balance(accountNumber) - command.amountCents(), receiverBalance));
+                return state(accountNumber);
+            }
+            default -> throw new IllegalStateException("Unknown command " + command.kind());
+        }
+    }
+
+    private void append(WalRecord record) throws IOException {
+        wal.append(record);
+        book.apply(record);
+        sequence = record.sequence();
+    }
+
+    /**
+     * Makes the batch durable, then answers its callers.
+     */
+    private void commit(int drained) {
+
+        if (!halted) {
+            try {
+                wal.force();
+                durableSequence = sequence;
+            } catch (UncheckedIOException ex) {
+                halt(ex);
+            }
+        }
+
+        for (Completion completion : completions) {
+            if (halted) {
+                completion.command().result().completeExceptionally(new IllegalStateException("Balance engine has halted"));
+            } else if (completion.error() != null) {
+                completion.command().result().completeExceptionally(completion.error());
+            } else {
+                completion.command().result().complete(completion.state());
+            }
+        }
+        completions.clear();
+
+        processedCommands += drained;
+        batches++;
+
+        if (!halted && sequence - lastSnapshotTaken >= snapshotInterval) {
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * Copies the book right after a flush, so a snapshot never holds anything the log does not.
+     */
+    private void takeSnapshot() {
+
+        if (!snapshotInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        BalanceBook.Snapshot snapshot = book.snapshot(sequence);
+        lastSnapshotTaken = sequence;
+
+        snapshotWriter.execute(() -> {
+            try {
+                BalanceBook.writeSnapshot(directory, snapshot);
+                snapshotSequence = snapshot.sequence();
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Writing balance snapshot {} failed", snapshot.sequence(), ex);
+            } finally {
+                snapshotInProgress.set(false);
+            }
+        });
+    }
+
+    private void truncateLog() {
+
+        long upTo = Math.min(snapshotSequence, projectedSequence);
+
+        if (upTo > truncatedUpTo && !halted) {
+            try {
+                wal.deleteSegmentsUpTo(upTo);
+                truncatedUpTo = upTo;
+            } catch (IOException ex) {
+                log.warn("Deleting write-ahead log segments up to {} failed", upTo, ex);
+            }
+        }
+    }
+
+    private void halt(Exception cause) {
+        log.error("Balance engine halted: the write-ahead log in {} cannot be written", directory, cause);
+        halted = true;
+    }
+
+    private void requireAccount(int accountNumber) {
+        if (!book.contains(accountNumber)) {
+            throw new AccountNotFoundException("Account with number [%s] not found".formatted(AccountNumbers.format(accountNumber)));
+        }
+    }
+
+    private AccountState state(int accountNumber) {
+        return new AccountState(accountNumber, book.balance(accountNumber), book.profile(accountNumber));
+    }
+
+    private static long addWithoutOverflow(long balance, long amount) {
+        try {
+            return Math.addExact(balance, amount);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Balance would exceed the supported maximum");
+        }
+    }
+
+    private enum Kind {
+        CREATE, DEPOSIT, WITHDRAW, TRANSFER, READ
+    }
+
+    private record Command(Kind kind, int accountNumber, int counterpartyAccountNumber, long amountCents,
+                           BalanceBook.Profile profile, CompletableFuture<AccountState> result) {
+
+        Command(Kind kind, int accountNumber, int counterpartyAccountNumber, long amountCents, BalanceBook.Profile profile) {
+            this(kind, accountNumber, counterpartyAccountNumber, amountCents, profile, new CompletableFuture<>());
+        }
+    }
+
+    private record Completion(Command command, AccountState state, RuntimeException error) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.banking_solution.utils.engine;
+
+import java.util.Arrays;
+
+/**
+ * Map from non-negative int keys to long values with open addressing and linear probing, stored in two primitive
+ * arrays: no boxing, no per-entry objects, and a copy is two array clones. Entries cannot be removed.
+ * Not thread-safe.
+ */
+public final class IntLongHashMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public IntLongHashMap(int expectedSize) {
+
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+
+        this.keys = new int[capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    private IntLongHashMap(IntLongHashMap source) {
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.mask = source.mask;
+        this.size = source.size;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * @return the value for the key, or {@code defaultValue} if the key is absent
+     */
+    public long get(int key, long defaultValue) {
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public void put(int key, long value) {
+
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must not be negative, got " + key);
+        }
+
+        int slot = slot(key);
+
+        if (keys[slot] == FREE) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntLongHashMap copy() {
+        return new IntLongHashMap(this);
+    }
+
+    public void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(int key, long value);
+    }
+
+    /**
+     * The slot holding the key, or the free slot where it would be inserted.
+     */
+    private int slot(int key) {
+
+        int slot = mix(key) & mask;
+
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, FREE);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // account numbers are random, but a multiplicative mix keeps sequential keys from clustering too
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
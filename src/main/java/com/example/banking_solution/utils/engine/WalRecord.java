@@ -0,0 +1,42 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.enums.WalRecordType;
+
+/**
+ * One entry of the {@link WriteAheadLog}. Balances are the absolute balances right after the operation,
+ * in cents, so replaying a record is idempotent and never needs the state it was applied to.
+ * {@code counterpartyAccountNumber} is -1 unless the record is a transfer, where {@code accountNumber}
+ * is the sender. The profile fields are only set on {@link WalRecordType#ACCOUNT_CREATED}.
+ */
+public record WalRecord(long sequence,
+                        WalRecordType type,
+                        long timestampMillis,
+                        int accountNumber,
+                        long amountCents,
+                        long balanceAfterCents,
+                        int counterpartyAccountNumber,
+                        long counterpartyBalanceAfterCents,
+                        String id,
+                        String email,
+                        String passwordHash) {
+
+    public static final int NO_ACCOUNT = -1;
+
+    static WalRecord accountCreated(long sequence, long timestampMillis, int accountNumber,
+                                    String id, String email, String passwordHash) {
+        return new WalRecord(sequence, WalRecordType.ACCOUNT_CREATED, timestampMillis, accountNumber,
+                0, 0, NO_ACCOUNT, 0, id, email, passwordHash);
+    }
+
+    static WalRecord balanceChange(long sequence, WalRecordType type, long timestampMillis, int accountNumber,
+                                   long amountCents, long balanceAfterCents) {
+        return new WalRecord(sequence, type, timestampMillis, accountNumber,
+                amountCents, balanceAfterCents, NO_ACCOUNT, 0, null, null, null);
+    }
+
+    static WalRecord transfer(long sequence, long timestampMillis, int senderAccountNumber, int receiverAccountNumber,
+                              long amountCents, long senderBalanceAfterCents, long receiverBalanceAfterCents) {
+        return new WalRecord(sequence, WalRecordType.TRANSFER, timestampMillis, senderAccountNumber,
+                amountCents, senderBalanceAfterCents, receiverAccountNumber, receiverBalanceAfterCents, null, null, null);
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.enums.WalRecordType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of {@link WalRecord}s in memory-mapped segment files of a fixed size, named
+ * {@code wal-<first sequence>.log}. A record is written as {@code [int length][int crc32c][payload]}, with the
+ * length written last, so a zero length marks the end of the log and a record torn by a crash fails its checksum.
+ * Appends only write to the mapping; nothing is durable before {@link #force}.
+ * <p>
+ * Appending, forcing and deleting must happen on one thread. {@link Reader}s can follow the log from any thread,
+ * up to a sequence known to be forced.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    // sequence, type, timestamp, account, amount, balance, counterparty, counterparty balance
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 1 + 8 + 4 + 8 + 8 + 4 + 8;
+    private static final WalRecordType[] TYPES = WalRecordType.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Long> segments = new ArrayList<>();
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer current;
+    private int forcedPosition;
+    private long lastSequence;
+
+    public WriteAheadLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isEmpty() throws IOException {
+        return listSegments(directory).isEmpty();
+    }
+
+    /**
+     * Replays every valid record after {@code afterSequence} and opens the log for appending behind the last one.
+     * A torn record at the end of the last segment is treated as the end of the log and cleared.
+     *
+     * @return the sequence of the last record in the log, or {@code afterSequence} if the log is new
+     * @throws IllegalStateException if records after {@code afterSequence} are missing or corrupt
+     */
+    public long recover(long afterSequence, Consumer<WalRecord> consumer) throws IOException {
+
+        Files.createDirectories(directory);
+        segments.addAll(listSegments(directory));
+
+        if (segments.isEmpty()) {
+            lastSequence = afterSequence;
+            current = createSegment(afterSequence + 1);
+            segments.add(afterSequence + 1);
+            return lastSequence;
+        }
+
+        if (segments.get(0) > afterSequence + 1) {
+            throw new IllegalStateException("Write-ahead log starts at sequence %d, records after %d are missing"
+                    .formatted(segments.get(0), afterSequence));
+        }
+
+        lastSequence = segments.get(0) - 1;
+
+        for (int i = 0; i < segments.size(); i++) {
+
+            boolean last = i == segments.size() - 1;
+
+            if (segments.get(i) != lastSequence + 1) {
+                throw new IllegalStateException("Write-ahead log segment %d does not follow sequence %d"
+                        .formatted(segments.get(i), lastSequence));
+            }
+
+            MappedByteBuffer segment = map(segmentPath(segments.get(i)), FileChannel.MapMode.READ_WRITE);
+            int position = 0;
+            WalRecord record;
+
+            while ((record = decode(segment, position, crc)) != null) {
+                if (record.sequence() != lastSequence + 1) {
+                    throw new IllegalStateException("Write-ahead log record %d does not follow sequence %d"
+                            .formatted(record.sequence(), lastSequence));
+                }
+                if (record.sequence() > afterSequence) {
+                    consumer.accept(record);
+                }
+                lastSequence = record.sequence();
+                position += HEADER_BYTES + segment.getInt(position);
+            }
+
+            if (last) {
+                clearFrom(segment, position);
+                segment.position(position);
+                current = segment;
+                forcedPosition = position;
+            } else if (segment.capacity() - position >= HEADER_BYTES && segment.getInt(position) != 0) {
+                throw new IllegalStateException("Write-ahead log segment %d is corrupt after sequence %d"
+                        .formatted(segments.get(i), lastSequence));
+            }
+        }
+
+        if (lastSequence < afterSequence) {
+            throw new IllegalStateException("Write-ahead log ends at sequence %d, before %d"
+                    .formatted(lastSequence, afterSequence));
+        }
+
+        return lastSequence;
+    }
+
+    /**
+     * Writes the record behind the last one, rolling over to a new segment when the current one is full.
+     */
+    public void append(WalRecord record) throws IOException {
+
+        if (record.sequence() != lastSequence + 1) {
+            throw new IllegalArgumentException("Expected sequence %d, got %d".formatted(lastSequence + 1, record.sequence()));
+        }
+
+        int size = HEADER_BYTES + payloadSize(record);
+
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Record of %d bytes does not fit a segment".formatted(size));
+        }
+
+        if (current.remaining() < size) {
+            force();
+            current = createSegment(record.sequence());
+            segments.add(record.sequence());
+            forcedPosition = 0;
+        }
+
+        int start = current.position();
+        current.position(start + HEADER_BYTES);
+        encode(record, current);
+
+        crc.reset();
+        crc.update(current.slice(start + HEADER_BYTES, size - HEADER_BYTES));
+        current.putInt(start + 4, (int) crc.getValue());
+        current.putInt(start, size - HEADER_BYTES);
+
+        lastSequence = record.sequence();
+    }
+
+    /**
+     * Flushes everything appended since the last call to disk.
+     */
+    public void force() {
+
+        int position = current.position();
+
+        if (position > forcedPosition) {
+            current.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Deletes the segments holding only records up to {@code sequence}. The segment being appended to is kept.
+     */
+    public void deleteSegmentsUpTo(long sequence) throws IOException {
+        while (segments.size() > 1 && segments.get(1) - 1 <= sequence) {
+            Files.deleteIfExists(segmentPath(segments.remove(0)));
+        }
+    }
+
+    public Reader openReader(long afterSequence) {
+        return new Reader(afterSequence);
+    }
+
+    @Override
+    public void close() {
+        if (current != null) {
+            force();
+        }
+    }
+
+    /**
+     * Follows the log from outside the appending thread. A reader only reads records up to the sequence
+     * it is given, which must already be forced, so it never sees a record that is still being written.
+     */
+    public final class Reader {
+
+        private final CRC32C readerCrc = new CRC32C();
+        private MappedByteBuffer segment;
+        private int position;
+        private long lastRead;
+
+        private Reader(long afterSequence) {
+            this.lastRead = afterSequence;
+        }
+
+        /**
+         * Hands up to {@code limit} records with a sequence up to {@code upToSequence} to the consumer.
+         *
+         * @return the number of records read
+         */
+        public int read(long upToSequence, int limit, Consumer<WalRecord> consumer) throws IOException {
+
+            int read = 0;
+
+            while (read < limit && lastRead < upToSequence) {
+
+                if (segment == null) {
+                    openSegmentContaining(lastRead + 1);
+                }
+
+                WalRecord record = decode(segment, position, readerCrc);
+
+                if (record == null) {
+                    // the rest of this segment is empty, so the next record starts the next segment
+                    segment = null;
+                    continue;
+                }
+
+                position += HEADER_BYTES + segment.getInt(position);
+
+                if (record.sequence() > lastRead) {
+                    if (record.sequence() != lastRead + 1) {
+                        throw new IllegalStateException("Write-ahead log record %d does not follow sequence %d"
+                                .formatted(record.sequence(), lastRead));
+                    }
+                    consumer.accept(record);
+                    lastRead = record.sequence();
+                    read++;
+                }
+            }
+
+            return read;
+        }
+
+        public long lastRead() {
+            return lastRead;
+        }
+
+        private void openSegmentContaining(long sequence) throws IOException {
+
+            Long first = null;
+            for (Long candidate : listSegments(directory)) {
+                if (candidate <= sequence) {
+                    first = candidate;
+                }
+            }
+
+            if (first == null) {
+                throw new IllegalStateException("Write-ahead log record %d has been deleted".formatted(sequence));
+            }
+
+            segment = map(segmentPath(first), FileChannel.MapMode.READ_ONLY);
+            position = 0;
+        }
+    }
+
+    /**
+     * Zeroes whatever a crash left behind the last record, which would otherwise be read back after new appends.
+     * Only bytes that are not zero yet are written, so the untouched rest of the segment stays unallocated.
+     */
+    private static void clearFrom(MappedByteBuffer segment, int position) {
+
+        int clear = position;
+
+        for (; clear + Long.BYTES <= segment.capacity(); clear += Long.BYTES) {
+            if (segment.getLong(clear) != 0) {
+                segment.putLong(clear, 0);
+            }
+        }
+        for (; clear < segment.capacity(); clear++) {
+            segment.put(clear, (byte) 0);
+        }
+
+        segment.force();
+    }
+
+    private MappedByteBuffer createSegment(long firstSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(firstSequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            channel.force(true);
+            return segment;
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, channel.size());
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve("%s%020d%s".formatted(SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int payloadSize(WalRecord record) {
+
+        int size = FIXED_PAYLOAD_BYTES;
+
+        if (record.type() == WalRecordType.ACCOUNT_CREATED) {
+            size += stringSize(record.id()) + stringSize(record.email()) + stringSize(record.passwordHash());
+        }
+        return size;
+    }
+
+    private static void encode(WalRecord record, ByteBuffer buffer) {
+
+        buffer.putLong(record.sequence())
+                .put((byte) record.type().ordinal())
+                .putLong(record.timestampMillis())
+                .putInt(record.accountNumber())
+                .putLong(record.amountCents())
+                .putLong(record.balanceAfterCents())
+                .putInt(record.counterpartyAccountNumber())
+                .putLong(record.counterpartyBalanceAfterCents());
+
+        if (record.type() == WalRecordType.ACCOUNT_CREATED) {
+            putString(buffer, record.id());
+            putString(buffer, record.email());
+            putString(buffer, record.passwordHash());
+        }
+    }
+
+    /**
+     * @return the record at {@code position}, or null if the log ends there or the record there is torn
+     */
+    private static WalRecord decode(ByteBuffer segment, int position, CRC32C crc) {
+
+        if (segment.capacity() - position < HEADER_BYTES) {
+            return null;
+        }
+
+        int length = segment.getInt(position);
+
+        if (length < FIXED_PAYLOAD_BYTES || length > segment.capacity() - position - HEADER_BYTES) {
+            return null;
+        }
+
+        ByteBuffer payload = segment.slice(position + HEADER_BYTES, length);
+        crc.reset();
+        crc.update(payload.duplicate());
+
+        if ((int) crc.getValue() != segment.getInt(position + 4)) {
+            return null;
+        }
+
+        long sequence = payload.getLong();
+        WalRecordType type = TYPES[payload.get()];
+        long timestampMillis = payload.getLong();
+        int accountNumber = payload.getInt();
+        long amountCents = payload.getLong();
+        long balanceAfterCents = payload.getLong();
+        int counterpartyAccountNumber = payload.getInt();
+        long counterpartyBalanceAfterCents = payload.getLong();
+
+        String id = null;
+        String email = null;
+        String passwordHash = null;
+
+        if (type == WalRecordType.ACCOUNT_CREATED) {
+            id = getString(payload);
+            email = getString(payload);
+            passwordHash = getString(payload);
+        }
+
+        return new WalRecord(sequence, type, timestampMillis, accountNumber, amountCents, balanceAfterCents,
+                counterpartyAccountNumber, counterpartyBalanceAfterCents, id, email, passwordHash);
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+
+        int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.banking_solution.utils.enums;
+
+public enum AuditEventType {
+
+    ACCOUNT_CREATED,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER
+}
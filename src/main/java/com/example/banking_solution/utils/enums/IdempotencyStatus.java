@@ -0,0 +1,11 @@
+package com.example.banking_solution.utils.enums;
+
+public enum IdempotencyStatus {
+
+    IN_PROGRESS,
+    /**
+     * The request's balance change has committed, its response is not stored yet.
+     */
+    APPLIED,
+    COMPLETED
+}
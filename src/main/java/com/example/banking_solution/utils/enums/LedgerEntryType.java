@@ -0,0 +1,13 @@
+package com.example.banking_solution.utils.enums;
+
+public enum LedgerEntryType {
+
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_OUT,
+    TRANSFER_IN,
+    /**
+     * Returns a transfer out whose receiver could not be credited, see the cross-shard transfers in TransferEngine.
+     */
+    TRANSFER_REFUND
+}
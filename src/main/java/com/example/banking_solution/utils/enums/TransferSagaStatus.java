@@ -0,0 +1,8 @@
+package com.example.banking_solution.utils.enums;
+
+public enum TransferSagaStatus {
+
+    PENDING,
+    COMPLETED,
+    COMPENSATED
+}
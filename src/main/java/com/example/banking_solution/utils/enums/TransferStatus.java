@@ -0,0 +1,7 @@
+package com.example.banking_solution.utils.enums;
+
+public enum TransferStatus {
+
+    COMPLETED,
+    REJECTED
+}
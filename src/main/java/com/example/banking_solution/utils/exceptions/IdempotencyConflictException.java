@@ -0,0 +1,7 @@
+package com.example.banking_solution.utils.exceptions;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
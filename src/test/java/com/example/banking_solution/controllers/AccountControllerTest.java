@@ -2,9 +2,14 @@ package com.example.banking_solution.controllers;
 
 import com.example.banking_solution.TestUtil;
 import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.dto.AccountPageDTO;
 import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
 import com.example.banking_solution.models.Account;
 import com.example.banking_solution.services.AccountService;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.utils.Money;
 import com.example.banking_solution.utils.enums.RoleType;
 import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
 import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
@@ -18,19 +23,29 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AccountController.class)
@@ -43,6 +58,8 @@ public class AccountControllerTest {
     AccountService accountService;
     @MockBean
     AccountDTOMapper accountDTOMapper;
+    @MockBean
+    IdempotencyService idempotencyService;
 
     List<Account> accounts;
 
@@ -52,7 +69,7 @@ public class AccountControllerTest {
         Account firstAccount = new Account();
 
         firstAccount.setId(UUID.randomUUID().toString());
-        firstAccount.setBalance(BigDecimal.valueOf(0));
+        firstAccount.setBalance(Money.ZERO);
         firstAccount.setEmail("email@gmail.com");
         firstAccount.setPassword("password");
         firstAccount.setAccountNumber("000000001");
@@ -61,7 +78,7 @@ public class AccountControllerTest {
         Account secondAccount = new Account();
 
         secondAccount.setId(UUID.randomUUID().toString());
-        secondAccount.setBalance(BigDecimal.valueOf(100.00));
+        secondAccount.setBalance(Money.valueOf("100.00"));
         secondAccount.setEmail("email@gmail.com");
         secondAccount.setPassword("password");
         secondAccount.setAccountNumber("000000002");
@@ -70,7 +87,7 @@ public class AccountControllerTest {
         Account thirdAccount = new Account();
 
         thirdAccount.setId(UUID.randomUUID().toString());
-        thirdAccount.setBalance(BigDecimal.valueOf(1000.00));
+        thirdAccount.setBalance(Money.valueOf("1000.00"));
         thirdAccount.setEmail("email@gmail.com");
         thirdAccount.setPassword("password");
         thirdAccount.setAccountNumber("000000003");
@@ -100,7 +117,7 @@ public class AccountControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id", equalTo(account.getId())))
                 .andExpect(jsonPath("$.accountNumber", equalTo("000000001")))
-                .andExpect(jsonPath("$.balance", equalTo("0")));
+                .andExpect(jsonPath("$.balance", equalTo("0.00")));
     }
 
     @Test
@@ -124,6 +141,27 @@ public class AccountControllerTest {
     }
 
 
+    @Test
+    void createAccounts_returnCreated() throws Exception {
+
+        List<AccountRequestDTO> accountRequestDTOs = List.of(
+                new AccountRequestDTO("first@email.com", "password", "password"),
+                new AccountRequestDTO("second@email.com", "password", "password"));
+
+        when(accountService.createAccounts(accountRequestDTOs)).thenReturn(accounts.subList(0, 2));
+        when(accountDTOMapper.apply(any(Account.class))).thenAnswer(invocation -> new AccountDTO(invocation.<Account>getArgument(0)));
+
+        this.mockMvc.perform(
+                        post("/accounts/create/batch")
+                                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                                .content(TestUtil.convertObjectToJsonBytes(accountRequestDTOs))
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].accountNumber", equalTo("000000001")))
+                .andExpect(jsonPath("$[1].accountNumber", equalTo("000000002")));
+    }
+
     @Test
     void getAccountByAccountNumber_returnOk() throws Exception {
 
@@ -133,8 +171,7 @@ public class AccountControllerTest {
 
         AccountDTO accountDTO = new AccountDTO(account);
 
-        when(accountService.findByAccountNumber(accountNumber)).thenReturn(account);
-        when(accountDTOMapper.apply(account)).thenReturn(accountDTO);
+        when(accountService.findAccountDTO(accountNumber)).thenReturn(accountDTO);
 
         this.mockMvc.perform(get("/accounts/%s".formatted(account.getAccountNumber())))
                 .andExpect(status().isOk())
@@ -149,7 +186,7 @@ public class AccountControllerTest {
 
         String accountNumber = "000000001";
 
-        when(accountService.findByAccountNumber(accountNumber))
+        when(accountService.findAccountDTO(accountNumber))
                 .thenThrow(new AccountNotFoundException("Account with number [%s] not found".formatted(accountNumber)));
 
         this.mockMvc.perform(get("/accounts/%s".formatted(accountNumber)))
@@ -164,7 +201,7 @@ public class AccountControllerTest {
 
         String accountNumber = "    ";
 
-        when(accountService.findByAccountNumber(accountNumber))
+        when(accountService.findAccountDTO(accountNumber))
                 .thenThrow(new IllegalArgumentException("Account number must not be null or empty"));
 
         this.mockMvc.perform(get("/accounts/%s".formatted(accountNumber)))
@@ -179,7 +216,7 @@ public class AccountControllerTest {
 
         String accountNumber = "    ";
 
-        when(accountService.findByAccountNumber(accountNumber))
+        when(accountService.findAccountDTO(accountNumber))
                 .thenThrow(new IllegalArgumentException("Account number has an invalid format"));
 
         this.mockMvc.perform(get("/accounts/%s".formatted(accountNumber)))
@@ -190,15 +227,56 @@ public class AccountControllerTest {
     }
 
     @Test
-    void getAll_returnOk() throws Exception {
+    void getAll_returnNdjsonStream() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<AccountDTO> consumer = invocation.getArgument(0);
+            accounts.forEach(account -> consumer.accept(new AccountDTO(account)));
+            return null;
+        }).when(accountService).streamAll(any());
+
+        MvcResult mvcResult = this.mockMvc.perform(get("/accounts/all"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertEquals(accounts.size(), lines.length);
+        assertTrue(lines[0].contains(accounts.get(0).getId()));
+        assertTrue(lines[2].contains(accounts.get(2).getId()));
+    }
+
+    @Test
+    void getAccountsPage_returnOk() throws Exception {
+
+        List<AccountDTO> page = accounts.stream().map(AccountDTO::new).toList();
 
-        when(accountService.getAll()).thenReturn(accounts);
+        when(accountService.getPage("000000000", 3)).thenReturn(new AccountPageDTO(page, "000000003"));
 
-        this.mockMvc.perform(get("/accounts/all"))
+        this.mockMvc.perform(get("/accounts")
+                        .param("after", "000000000")
+                        .param("limit", "3"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.[0].id", equalTo(accounts.get(0).getId())))
-                .andExpect(jsonPath("$.[1].id", equalTo(accounts.get(1).getId())))
-                .andExpect(jsonPath("$.[2].id", equalTo(accounts.get(2).getId())));
+                .andExpect(jsonPath("$.accounts[0].id", equalTo(accounts.get(0).getId())))
+                .andExpect(jsonPath("$.accounts[2].id", equalTo(accounts.get(2).getId())))
+                .andExpect(jsonPath("$.nextAfter", equalTo("000000003")));
+    }
+
+    @Test
+    void getAccountsPage_returnBadRequest_whenLimitIsInvalid() throws Exception {
+
+        when(accountService.getPage("", 0))
+                .thenThrow(new IllegalArgumentException("Page limit must be between 1 and 1000"));
+
+        this.mockMvc.perform(get("/accounts").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page limit must be between 1 and 1000"));
     }
 
     @Test
@@ -220,7 +298,7 @@ public class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(account.getId()))
                 .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
-                .andExpect(jsonPath("$.balance").value(account.getBalance()));
+                .andExpect(jsonPath("$.balance").value(account.getBalance().toString()));
     }
 
     static Stream<Arguments> provideInvalidAmountData() {
@@ -270,7 +348,7 @@ public class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(account.getId()))
                 .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
-                .andExpect(jsonPath("$.balance").value(account.getBalance()));
+                .andExpect(jsonPath("$.balance").value(account.getBalance().toString()));
     }
 
     @Test
@@ -398,4 +476,26 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$.status").value("error"))
                 .andExpect(jsonPath("$.message").value("Insufficient funds for transfer"));
     }
+
+    @Test
+    void transferFundsInBatch_returnOkWithResultPerItem() throws Exception {
+
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO("000000001", "000000002", BigDecimal.valueOf(10.00)),
+                new TransferRequestDTO("000000002", "000000003", BigDecimal.valueOf(99999.00)));
+
+        when(accountService.transferFundsInBatch(transfers))
+                .thenReturn(List.of(TransferResultDTO.completed(0),
+                        TransferResultDTO.rejected(1, "Insufficient funds for transfer")));
+
+        this.mockMvc.perform(
+                        post("/accounts/transfers/batch")
+                                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                                .content(TestUtil.convertObjectToJsonBytes(transfers))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].message").value("Insufficient funds for transfer"));
+    }
 }
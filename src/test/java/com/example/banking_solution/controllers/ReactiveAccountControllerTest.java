@@ -0,0 +1,122 @@
+package com.example.banking_solution.controllers;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.services.ReactiveAccountService;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.RoleType;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import com.example.banking_solution.utils.mappers.AccountDTOMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("reactive")
+@WebFluxTest(ReactiveAccountController.class)
+public class ReactiveAccountControllerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockBean
+    ReactiveAccountService accountService;
+    @MockBean
+    AccountDTOMapper accountDTOMapper;
+
+    Account account;
+
+    @BeforeEach
+    void beforeEach() {
+
+        account = new Account();
+
+        account.setId(UUID.randomUUID().toString());
+        account.setBalance(Money.valueOf("100.00"));
+        account.setEmail("email@gmail.com");
+        account.setPassword("password");
+        account.setAccountNumber("000000001");
+        account.setRole(RoleType.USER);
+
+        when(accountDTOMapper.apply(any(Account.class))).thenAnswer(invocation -> new AccountDTO(invocation.getArgument(0, Account.class)));
+    }
+
+    @Test
+    void getAccount_shouldReturnAccount() {
+
+        when(accountService.findAccountDTO("000000001")).thenReturn(Mono.just(new AccountDTO(account)));
+
+        webTestClient.get().uri("/accounts/000000001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accountNumber").isEqualTo("000000001")
+                .jsonPath("$.balance").isEqualTo("100.00");
+    }
+
+    @Test
+    void getAccount_whenMissing_shouldReturnNotFoundErrorBody() {
+
+        when(accountService.findAccountDTO("000000002"))
+                .thenReturn(Mono.error(new AccountNotFoundException("Account with number [000000002] not found")));
+
+        webTestClient.get().uri("/accounts/000000002")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("error")
+                .jsonPath("$.message").isEqualTo("Account with number [000000002] not found");
+    }
+
+    @Test
+    void deposit_shouldReturnUpdatedAccount() {
+
+        when(accountService.depositFundsIntoAnAccount("000000001", new BigDecimal("100.00"))).thenReturn(Mono.just(account));
+
+        webTestClient.post().uri("/accounts/deposit?accountNumber=000000001&depositAmount=100.00")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.balance").isEqualTo("100.00");
+    }
+
+    @Test
+    void transfer_withInsufficientFunds_shouldReturnBadRequest() {
+
+        when(accountService.transferFundsBetweenTwoAccount("000000001", "000000002", new BigDecimal("500.00")))
+                .thenReturn(Mono.error(new InsufficientFundsException("Insufficient funds for transfer")));
+
+        webTestClient.post().uri("/accounts/transfer?senderAccountNumber=000000001"
+                        + "&receiverAccountNumber=000000002&transferAmount=500.00")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Insufficient funds for transfer");
+    }
+
+    @Test
+    void getAllAccounts_shouldStreamNdjson() {
+
+        when(accountService.streamAll()).thenReturn(Flux.just(new AccountDTO(account), new AccountDTO(account)));
+
+        webTestClient.get().uri("/accounts/all")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(AccountDTO.class).hasSize(2);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.services.impl.AccountServiceImpl;
+import com.example.banking_solution.services.impl.DepositGroupCommitter;
+import com.example.banking_solution.services.impl.TransferEngine;
+import com.example.banking_solution.utils.AccountCache;
+import com.example.banking_solution.utils.AccountNumberGenerator;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccountServiceMetricsTest {
+
+    SimpleMeterRegistry meterRegistry;
+    AccountRepository accountRepository;
+    AccountService accountService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountRepository = mock(AccountRepository.class);
+
+        AccountServiceImpl target = new AccountServiceImpl(accountRepository,
+                mock(AccountBalanceShardRepository.class), mock(AccountNumberGenerator.class),
+                mock(TransferEngine.class), mock(AccountCache.class), mock(LedgerService.class),
+                mock(DepositGroupCommitter.class), mock(PasswordHasher.class), TransactionOperations.withoutTransaction(),
+                new DatabaseShards(1, TransactionOperations.withoutTransaction()), mock(AuditLog.class),
+                mock(IdempotencyService.class));
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new TimedAspect(meterRegistry));
+        accountService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void withdraw_shouldRecordTimerPerOutcome() {
+
+        Account account = new Account();
+        account.setBalance(Money.valueOf("50.00"));
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", new BigDecimal("50.00")))
+                .thenReturn(Optional.of(account));
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", new BigDecimal("500.00")))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsAccountByAccountNumber("000000001")).thenReturn(true);
+
+        accountService.withdrawFundsFromAnAccount("000000001", new BigDecimal("50.00"));
+        assertThrows(InsufficientFundsException.class,
+                () -> accountService.withdrawFundsFromAnAccount("000000001", new BigDecimal("500.00")));
+
+        assertEquals(1, meterRegistry.get("banking.account.operation")
+                .tag("operation", "withdraw").tag("exception", "none").timer().count());
+        assertEquals(1, meterRegistry.get("banking.account.operation")
+                .tag("operation", "withdraw").tag("exception", "InsufficientFundsException").timer().count());
+    }
+}
@@ -1,11 +1,24 @@
 package com.example.banking_solution.services;
 
+import com.example.banking_solution.dto.AccountDTO;
 import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
 import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
 import com.example.banking_solution.repositories.AccountRepository;
 import com.example.banking_solution.services.impl.AccountServiceImpl;
+import com.example.banking_solution.services.impl.DepositGroupCommitter;
+import com.example.banking_solution.services.impl.TransferEngine;
+import com.example.banking_solution.utils.AccountCache;
 import com.example.banking_solution.utils.AccountNumberGenerator;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.enums.AuditEventType;
 import com.example.banking_solution.utils.enums.RoleType;
+import com.example.banking_solution.utils.enums.TransferStatus;
 import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
 import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
 import com.example.banking_solution.utils.exceptions.PasswordDontMatchException;
@@ -15,20 +28,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -41,7 +64,27 @@ class AccountServiceTest {
     @Mock
     AccountRepository accountRepository;
     @Mock
+    AccountBalanceShardRepository balanceShardRepository;
+    @Mock
     AccountNumberGenerator accountNumberGenerator;
+    @Mock
+    TransferEngine transferEngine;
+    @Mock
+    AccountCache accountCache;
+    @Mock
+    AuditLog auditLog;
+    @Mock
+    LedgerService ledgerService;
+    @Mock
+    DepositGroupCommitter depositGroupCommitter;
+    @Mock
+    PasswordHasher passwordHasher;
+    @Mock
+    IdempotencyService idempotencyService;
+    @Spy
+    TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+    @Spy
+    DatabaseShards databaseShards = new DatabaseShards(1, TransactionOperations.withoutTransaction());
 
     List<Account> accounts;
 
@@ -51,7 +94,7 @@ class AccountServiceTest {
         Account firstAccount = new Account();
 
         firstAccount.setId(UUID.randomUUID().toString());
-        firstAccount.setBalance(BigDecimal.valueOf(0));
+        firstAccount.setBalance(Money.ZERO);
         firstAccount.setEmail("email@gmail.com");
         firstAccount.setPassword("password");
         firstAccount.setAccountNumber("000000001");
@@ -60,7 +103,7 @@ class AccountServiceTest {
         Account secondAccount = new Account();
 
         secondAccount.setId(UUID.randomUUID().toString());
-        secondAccount.setBalance(BigDecimal.valueOf(100.00));
+        secondAccount.setBalance(Money.valueOf("100.00"));
         secondAccount.setEmail("email@gmail.com");
         secondAccount.setPassword("password");
         secondAccount.setAccountNumber("000000002");
@@ -69,7 +112,7 @@ class AccountServiceTest {
         Account thirdAccount = new Account();
 
         thirdAccount.setId(UUID.randomUUID().toString());
-        thirdAccount.setBalance(BigDecimal.valueOf(1000.00));
+        thirdAccount.setBalance(Money.valueOf("1000.00"));
         thirdAccount.setEmail("email@gmail.com");
         thirdAccount.setPassword("password");
         thirdAccount.setAccountNumber("000000003");
@@ -85,24 +128,21 @@ class AccountServiceTest {
         AccountRequestDTO accountRequestDTO = new AccountRequestDTO("email@email.com",
                 "password", "password");
 
-        var newAccount = accounts.get(0);
-        String encodedPassword = "encodedPassword";
-        newAccount.setPassword(encodedPassword);
-
-        when(accountRepository.existsAccountByAccountNumber(any()))
-                .thenReturn(false);
         when(accountNumberGenerator.generateAccountNumber()).thenReturn("000000001");
-        when(accountRepository.save(any(Account.class))).thenReturn(newAccount);
+        when(accountRepository.insertIfAccountNumberIsFree(any(Account.class))).thenReturn(1);
+        when(passwordHasher.hash("password")).thenReturn("hashed-password");
 
         var result  = accountServiceImpl.createAccount(accountRequestDTO);
 
-        assertNotNull(newAccount.getId());
-        assertEquals(result.getAccountNumber(), newAccount.getAccountNumber());
-        assertEquals(newAccount.getEmail(), result.getEmail());
-        assertEquals(encodedPassword, result.getPassword());
-        assertEquals(newAccount.getRole(), result.getRole());
+        assertNotNull(result.getId());
+        assertEquals("000000001", result.getAccountNumber());
+        assertEquals(accountRequestDTO.email(), result.getEmail());
+        assertEquals("hashed-password", result.getPassword());
+        assertEquals(RoleType.USER, result.getRole());
 
         verify(accountNumberGenerator, Mockito.times(1)).generateAccountNumber();
+        verify(accountRepository, Mockito.times(1)).insertIfAccountNumberIsFree(any(Account.class));
+        verify(accountRepository, Mockito.times(0)).existsAccountByAccountNumber(any());
 
     }
 
@@ -112,27 +152,25 @@ class AccountServiceTest {
         AccountRequestDTO accountRequestDTO = new AccountRequestDTO("email@email.com",
                 "password", "password");
 
-        var newAccount  = accounts.get(0);
-        String encodedPassword = "encodedPassword";
-        newAccount.setPassword(encodedPassword);
-
-        when(accountNumberGenerator.generateAccountNumber()).thenReturn("000000001");
-        when(accountRepository.existsAccountByAccountNumber(any()))
-                .thenReturn(true)
-                .thenReturn(false);
-        when(accountRepository.save(any(Account.class))).thenReturn(newAccount);
+        when(accountNumberGenerator.generateAccountNumber())
+                .thenReturn("000000001")
+                .thenReturn("000000002");
+        when(accountRepository.insertIfAccountNumberIsFree(any(Account.class)))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(passwordHasher.hash("password")).thenReturn("hashed-password");
 
         var result  = accountServiceImpl.createAccount(accountRequestDTO);
 
-        assertNotNull(newAccount.getId());
-        assertEquals(newAccount.getAccountNumber(), result.getAccountNumber());
-        assertEquals(newAccount.getEmail(), result.getEmail());
-        assertEquals(BigDecimal.valueOf(0), newAccount.getBalance());
-        assertEquals(encodedPassword, result.getPassword());
-        assertEquals(newAccount.getRole(), result.getRole());
+        assertNotNull(result.getId());
+        assertEquals("000000002", result.getAccountNumber());
+        assertEquals(accountRequestDTO.email(), result.getEmail());
+        assertEquals(Money.ZERO, result.getBalance());
+        assertEquals("hashed-password", result.getPassword());
+        assertEquals(RoleType.USER, result.getRole());
 
         verify(accountNumberGenerator, Mockito.times(2)).generateAccountNumber();
-        verify(accountRepository, Mockito.times(2)).existsAccountByAccountNumber(any());
+        verify(accountRepository, Mockito.times(2)).insertIfAccountNumberIsFree(any(Account.class));
     }
 
     @Test
@@ -144,7 +182,45 @@ class AccountServiceTest {
         assertThrows(PasswordDontMatchException.class, () -> accountServiceImpl.createAccount(accountRequestDTO));
 
         verify(accountNumberGenerator, Mockito.times(0)).generateAccountNumber();
-        verify(accountRepository, Mockito.times(0)).existsAccountByAccountNumber(any());
+        verify(accountRepository, Mockito.times(0)).insertIfAccountNumberIsFree(any(Account.class));
+        verify(passwordHasher, never()).hash(any());
+    }
+
+    @Test
+    void createAccounts_successfully_retryingOnlyTakenAccountNumbers() {
+
+        List<AccountRequestDTO> accountRequestDTOs = List.of(
+                new AccountRequestDTO("first@email.com", "password", "password"),
+                new AccountRequestDTO("second@email.com", "password", "password"));
+
+        when(passwordHasher.hashAll(List.of("password", "password"))).thenReturn(List.of("first-hash", "second-hash"));
+        when(accountNumberGenerator.generateAccountNumbers(2)).thenReturn(new LinkedHashSet<>(List.of("000000001", "000000002")));
+        when(accountNumberGenerator.generateAccountNumbers(1)).thenReturn(Set.of("000000003"));
+        when(accountRepository.insertAllIfAccountNumbersAreFree(any()))
+                .thenReturn(Set.of("000000001"))
+                .thenReturn(Set.of("000000003"));
+
+        List<Account> result = accountServiceImpl.createAccounts(accountRequestDTOs);
+
+        assertEquals(List.of("000000001", "000000003"), result.stream().map(Account::getAccountNumber).toList());
+        assertEquals("second@email.com", result.get(1).getEmail());
+        assertEquals("second-hash", result.get(1).getPassword());
+        verify(accountRepository, times(2)).insertAllIfAccountNumbersAreFree(any());
+        verify(accountRepository, times(1)).insertAllIfAccountNumbersAreFree(argThat(pending -> pending.size() == 1));
+    }
+
+    @Test
+    void createAccounts_whenOneRequestIsInvalid_rejectsWholeBatch() {
+
+        List<AccountRequestDTO> accountRequestDTOs = List.of(
+                new AccountRequestDTO("first@email.com", "password", "password"),
+                new AccountRequestDTO("second@email.com", "password", "differentPassword"));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> accountServiceImpl.createAccounts(accountRequestDTOs));
+
+        assertEquals("Account request [1]: Password and confirm password don't match", ex.getMessage());
+        verify(accountRepository, never()).insertAllIfAccountNumbersAreFree(any());
     }
 
     @Test
@@ -180,6 +256,43 @@ class AccountServiceTest {
         verify(accountRepository, times(1)).findByAccountNumber(accountNumber);
     }
 
+    @Test
+    void findAccountDTO_successfully_loadsThroughCache() {
+
+        Account account = accounts.get(1);
+
+        when(accountCache.get(eq("000000002"), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, AccountDTO>>getArgument(1).apply("000000002"));
+        when(accountRepository.findDTOByAccountNumber("000000002")).thenReturn(Optional.of(new AccountDTO(account)));
+
+        var result = accountServiceImpl.findAccountDTO("000000002");
+
+        assertEquals(account.getId(), result.id());
+        assertEquals(account.getBalance(), result.balance());
+        verify(accountRepository, times(1)).findDTOByAccountNumber("000000002");
+        verify(accountRepository, times(0)).findByAccountNumber(any());
+    }
+
+    @Test
+    void findAccountDTO_whenCached_doesNotQueryRepository() {
+
+        AccountDTO cached = new AccountDTO(accounts.get(1));
+
+        when(accountCache.get(eq("000000002"), any())).thenReturn(cached);
+
+        assertEquals(cached, accountServiceImpl.findAccountDTO("000000002"));
+
+        verify(accountRepository, times(0)).findDTOByAccountNumber(any());
+    }
+
+    @Test
+    void findAccountDTO_throwInvalidFormat() {
+
+        assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.findAccountDTO("0001"));
+
+        verify(accountCache, times(0)).get(any(), any());
+    }
+
     static Stream<Arguments> provideAccountNumberInvalidData() {
         return Stream.of(
                 Arguments.of((Object) null),
@@ -200,50 +313,204 @@ class AccountServiceTest {
     }
 
     @Test
-    void findAll_successfully() {
+    void getPage_successfully_whenPageIsFull() {
+
+        List<AccountDTO> page = accounts.stream().map(AccountDTO::new).toList();
+
+        when(accountRepository.findPageAfter(eq(""), argThat(limit -> limit.max() == 3))).thenReturn(page);
+
+        var result = accountServiceImpl.getPage("", 3);
+
+        assertEquals(3, result.accounts().size());
+        assertEquals(accounts.get(0).getId(), result.accounts().get(0).id());
+        assertEquals("000000003", result.nextAfter());
+    }
+
+    @Test
+    void getPage_successfully_whenLastPage() {
+
+        List<AccountDTO> page = accounts.stream().map(AccountDTO::new).toList();
+
+        when(accountRepository.findPageAfter(eq("000000000"), argThat(limit -> limit.max() == 10))).thenReturn(page);
+
+        var result = accountServiceImpl.getPage("000000000", 10);
+
+        assertEquals(3, result.accounts().size());
+        assertNull(result.nextAfter());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, 1001})
+    void getPage_throwInvalidLimit(int limit) {
+
+        assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.getPage("", limit));
+
+        verify(accountRepository, times(0)).findPageAfter(any(), any());
+    }
+
+    @Test
+    void streamAll_successfully() {
 
-        when(this.accountRepository.findAll()).thenReturn(accounts);
+        when(accountRepository.streamAll()).thenReturn(accounts.stream().map(AccountDTO::new));
 
-         var responseEntity = accountServiceImpl.getAll();
+        List<AccountDTO> streamed = new ArrayList<>();
 
-        assertNotNull(responseEntity);
-        assertEquals(responseEntity.size(), accounts.size());
-        assertEquals(responseEntity.get(0).getId(), accounts.get(0).getId());
-        assertEquals(responseEntity.get(0).getBalance(), accounts.get(0).getBalance());
-        assertEquals(responseEntity.get(0).getAccountNumber(), accounts.get(0).getAccountNumber());
-        assertEquals(responseEntity.get(1).getBalance(), accounts.get(1).getBalance());
-        assertEquals(responseEntity.get(1).getAccountNumber(), accounts.get(1).getAccountNumber());
-        assertEquals(responseEntity.get(2).getBalance(),accounts.get(2).getBalance());
-        assertEquals(responseEntity.get(2).getAccountNumber(), accounts.get(2).getAccountNumber());
+        accountServiceImpl.streamAll(streamed::add);
+
+        assertEquals(accounts.size(), streamed.size());
+        assertEquals(accounts.get(2).getAccountNumber(), streamed.get(2).accountNumber());
     }
 
     static Stream<Arguments> provideAccountAndDepositData() {
         return Stream.of(
-                Arguments.of(BigDecimal.valueOf(0), BigDecimal.valueOf(100.00), BigDecimal.valueOf(100.00)),
-                Arguments.of(BigDecimal.valueOf(500.00), BigDecimal.valueOf(50.00), BigDecimal.valueOf(550.00)),
-                Arguments.of(BigDecimal.valueOf(20.00), BigDecimal.valueOf(10.50), BigDecimal.valueOf(30.50))
+                Arguments.of(Money.ZERO, new BigDecimal("100.00"), Money.valueOf("100.00")),
+                Arguments.of(Money.valueOf("500.00"), new BigDecimal("50.00"), Money.valueOf("550.00")),
+                Arguments.of(Money.valueOf("20.00"), new BigDecimal("10.50"), Money.valueOf("30.50"))
         );
     }
 
     @ParameterizedTest
     @MethodSource("provideAccountAndDepositData")
-    void handleDepositFundsIntoAnAccount_successfully(BigDecimal initialBalance, BigDecimal depositAmount, BigDecimal expectedBalance) {
+    void handleDepositFundsIntoAnAccount_successfully(Money initialBalance, BigDecimal depositAmount, Money expectedBalance) {
 
         var account = new Account();
         account.setAccountNumber("000000001");
-        account.setBalance(initialBalance);
+        account.setBalance(initialBalance.plus(Money.of(depositAmount)));
 
-        when(accountRepository.findByAccountNumber("000000001"))
+        when(accountRepository.addToBalance("000000001", depositAmount))
                 .thenReturn(Optional.of(account));
-        when(accountRepository.save(any(Account.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
 
         var result = accountServiceImpl.depositFundsIntoAnAccount("000000001", depositAmount);
 
         assertNotNull(result);
         assertEquals(expectedBalance, result.getBalance());
-        verify(accountRepository, times(1)).findByAccountNumber("000000001");
-        verify(accountRepository, times(1)).save(account);
+        verify(accountRepository, times(1)).addToBalance("000000001", depositAmount);
+        verify(accountRepository, times(0)).findByAccountNumber(any());
+        verify(accountCache, times(1)).evictAfterCommit("000000001");
+        verify(ledgerService, times(1)).recordDeposit("000000001", Money.of(depositAmount), expectedBalance);
+        verify(accountRepository, times(0)).save(any(Account.class));
+    }
+
+    @Test
+    void depositFundsIntoAnAccount_whenAccountNotFound() {
+
+        BigDecimal depositAmount = new BigDecimal("100.00");
+
+        when(accountRepository.addToBalance("000000001", depositAmount))
+                .thenReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class,
+                () -> accountServiceImpl.depositFundsIntoAnAccount("000000001", depositAmount));
+
+        verify(accountRepository, times(1)).addToBalance("000000001", depositAmount);
+    }
+
+    @Test
+    void depositFundsIntoAnAccount_whenAccountIsSharded_creditsShardAndReturnsTotal() {
+
+        BigDecimal depositAmount = new BigDecimal("100.00");
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("10.00"));
+        account.setBalanceShards(4);
+
+        when(accountRepository.addToBalance("000000001", depositAmount))
+                .thenReturn(Optional.empty());
+        when(balanceShardRepository.addToRandomShard(eq("000000001"), eq(depositAmount), anyInt()))
+                .thenReturn(Optional.of(depositAmount));
+        when(accountRepository.findByAccountNumber("000000001"))
+                .thenReturn(Optional.of(account));
+        when(balanceShardRepository.sumBalances("000000001"))
+                .thenReturn(BigDecimal.valueOf(190.00));
+
+        Account result = accountServiceImpl.depositFundsIntoAnAccount("000000001", depositAmount);
+
+        assertEquals(Money.valueOf("200.00"), result.getBalance());
+        assertEquals(Money.valueOf("10.00"), account.getBalance());
+        verify(ledgerService, times(1)).recordDeposit("000000001", Money.of(depositAmount), null);
+        verify(accountCache, times(1)).evictAfterCommit("000000001");
+    }
+
+    @Test
+    void depositFundsIntoAnAccount_whenGroupCommitTakesIt_skipsDirectUpdate() {
+
+        BigDecimal depositAmount = new BigDecimal("100.00");
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.of(depositAmount));
+
+        when(depositGroupCommitter.deposit("000000001", Money.of(depositAmount))).thenReturn(Optional.of(account));
+
+        Account result = accountServiceImpl.depositFundsIntoAnAccount("000000001", depositAmount);
+
+        assertSame(account, result);
+        verify(accountRepository, never()).addToBalance(any(), any());
+        verify(ledgerService, never()).recordDeposit(any(), any(), any());
+        verify(transactionOperations, never()).execute(any());
+    }
+
+    @Test
+    void withdrawFundsFromAnAccount_whenShardedRowBalanceIsLow_drainsShards() {
+
+        BigDecimal withdrawAmount = new BigDecimal("150.00");
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("100.00"));
+        account.setBalanceShards(4);
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", withdrawAmount))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsAccountByAccountNumber("000000001"))
+                .thenReturn(true);
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001")))
+                .thenReturn(List.of(account));
+        when(balanceShardRepository.drainShards("000000001"))
+                .thenReturn(BigDecimal.valueOf(80.00));
+
+        Account result = accountServiceImpl.withdrawFundsFromAnAccount("000000001", withdrawAmount);
+
+        assertEquals(Money.valueOf("30.00"), result.getBalance());
+        verify(ledgerService, times(1)).recordWithdrawal("000000001", Money.of(withdrawAmount), Money.valueOf("30.00"));
+    }
+
+    @Test
+    void withdrawFundsFromAnAccount_whenShardedRowBalanceIsEnough_returnsTotalBalance() {
+
+        BigDecimal withdrawAmount = new BigDecimal("50.00");
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("50.00"));
+        account.setBalanceShards(4);
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", withdrawAmount))
+                .thenReturn(Optional.of(account));
+        when(balanceShardRepository.sumBalances("000000001"))
+                .thenReturn(BigDecimal.valueOf(80.00));
+
+        Account result = accountServiceImpl.withdrawFundsFromAnAccount("000000001", withdrawAmount);
+
+        assertEquals(Money.valueOf("130.00"), result.getBalance());
+        verify(balanceShardRepository, never()).drainShards(any());
+        verify(ledgerService, times(1)).recordWithdrawal("000000001", Money.of(withdrawAmount), null);
+    }
+
+    @Test
+    void addBalanceShards_throwWhenRemovingShards() {
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalanceShards(8);
+
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001")))
+                .thenReturn(List.of(account));
+
+        assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.addBalanceShards("000000001", 4));
+
+        verify(balanceShardRepository, times(0)).createShards(any(), anyInt(), anyInt());
     }
 
     static Stream<Arguments> provideInvalidAmountData() {
@@ -258,178 +525,183 @@ class AccountServiceTest {
     @MethodSource("provideInvalidAmountData")
     void depositFundsIntoAnAccount_throwInvalidAmountValue(BigDecimal invalidAmountFunds) {
 
-        var account = new Account();
-        account.setAccountNumber("000000001");
-        account.setBalance(BigDecimal.valueOf(100.00));
-
         assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.depositFundsIntoAnAccount("000000001", invalidAmountFunds));
 
-        verify(accountRepository, times(0)).findByAccountNumber("000000001");
-        verify(accountRepository, times(0)).save(account);
+        verify(accountRepository, times(0)).addToBalance(any(), any());
     }
 
     static Stream<Arguments> provideAccountAndWithdrawData() {
         return Stream.of(
-                Arguments.of(BigDecimal.valueOf(100.00), BigDecimal.valueOf(50.00), BigDecimal.valueOf(50.00)),
-                Arguments.of(BigDecimal.valueOf(500.00), BigDecimal.valueOf(1), BigDecimal.valueOf(499.00)),
-                Arguments.of(BigDecimal.valueOf(20.00), BigDecimal.valueOf(10.50), BigDecimal.valueOf(9.50))
+                Arguments.of(Money.valueOf("100.00"), new BigDecimal("50.00"), Money.valueOf("50.00")),
+                Arguments.of(Money.valueOf("500.00"), new BigDecimal("1.00"), Money.valueOf("499.00")),
+                Arguments.of(Money.valueOf("20.00"), new BigDecimal("10.50"), Money.valueOf("9.50"))
         );
     }
 
     @ParameterizedTest
     @MethodSource("provideAccountAndWithdrawData")
-    void withdrawFundsFromAnAccount_successfully(BigDecimal initialBalance, BigDecimal withdrawAmount, BigDecimal expectedBalance) {
+    void withdrawFundsFromAnAccount_successfully(Money initialBalance, BigDecimal withdrawAmount, Money expectedBalance) {
 
         var account = new Account();
         account.setAccountNumber("000000001");
-        account.setBalance(initialBalance);
+        account.setBalance(initialBalance.minus(Money.of(withdrawAmount)));
 
-        when(accountRepository.findByAccountNumber("000000001"))
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", withdrawAmount))
                 .thenReturn(Optional.of(account));
-        when(accountRepository.save(any(Account.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
 
         var result = accountServiceImpl.withdrawFundsFromAnAccount(account.getAccountNumber(), withdrawAmount);
 
         assertNotNull(result);
         assertEquals(expectedBalance, result.getBalance());
-        verify(accountRepository, times(1)).findByAccountNumber("000000001");
-        verify(accountRepository, times(1)).save(account);
+        verify(accountRepository, times(1)).subtractFromBalanceIfSufficient("000000001", withdrawAmount);
+        verify(accountRepository, times(0)).existsAccountByAccountNumber(any());
+        verify(accountCache, times(1)).evictAfterCommit("000000001");
+        verify(ledgerService, times(1)).recordWithdrawal("000000001", Money.of(withdrawAmount), expectedBalance);
+        verify(auditLog, times(1)).recordAfterCommit(AuditEventType.WITHDRAWAL, "000000001", null, Money.of(withdrawAmount));
+        verify(auditLog, never()).record(any(), any(), any(), any());
+        verify(accountRepository, times(0)).save(any(Account.class));
     }
 
     @ParameterizedTest
     @MethodSource("provideInvalidAmountData")
     void withdrawFundsFromAnAccount_throwInvalidAmountValue(BigDecimal invalidAmountFunds) {
 
-        var account = new Account();
-        account.setAccountNumber("000000001");
-        account.setBalance(BigDecimal.valueOf(100.00));
-
         assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.withdrawFundsFromAnAccount("000000001", invalidAmountFunds));
 
-        verify(accountRepository, times(0)).findByAccountNumber("000000001");
-        verify(accountRepository, times(0)).save(account);
+        verify(accountRepository, times(0)).subtractFromBalanceIfSufficient(any(), any());
     }
 
     @Test
     void withdrawFundsFromAnAccount_throwInsufficientFundsForWithdrawal() {
 
-        var account = new Account();
-        account.setAccountNumber("000000001");
-        account.setBalance(BigDecimal.valueOf(100.00));
+        BigDecimal withdrawAmount = new BigDecimal("200.00");
 
-        BigDecimal withdrawAmount = BigDecimal.valueOf(200.00);
-
-        when(accountRepository.findByAccountNumber("000000001"))
-                .thenReturn(Optional.of(account));
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", withdrawAmount))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsAccountByAccountNumber("000000001"))
+                .thenReturn(true);
 
         assertThrows(InsufficientFundsException.class,
                 () -> accountServiceImpl.withdrawFundsFromAnAccount("000000001", withdrawAmount));
 
-        verify(accountRepository, times(1)).findByAccountNumber("000000001");
-        verify(accountRepository, times(0)).save(account);
+        verify(accountRepository, times(1)).subtractFromBalanceIfSufficient("000000001", withdrawAmount);
+        verify(accountRepository, times(1)).existsAccountByAccountNumber("000000001");
+        verify(ledgerService, times(0)).recordWithdrawal(any(), any(), any());
     }
 
     @Test
-    void transferFundsBetweenTwoAccount_successfully() {
-
-        var senderAccount = new Account();
+    void withdrawFundsFromAnAccount_whenAccountNotFound() {
 
-        senderAccount.setAccountNumber("000000001");
-        senderAccount.setBalance(BigDecimal.valueOf(100.00));
+        BigDecimal withdrawAmount = new BigDecimal("200.00");
 
-        var receiverAccount = new Account();
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", withdrawAmount))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsAccountByAccountNumber("000000001"))
+                .thenReturn(false);
 
-        receiverAccount.setAccountNumber("000000002");
-        receiverAccount.setBalance(BigDecimal.valueOf(50.00));
+        assertThrows(AccountNotFoundException.class,
+                () -> accountServiceImpl.withdrawFundsFromAnAccount("000000001", withdrawAmount));
+    }
 
-        BigDecimal transferAmount = BigDecimal.valueOf(55.55);
+    @Test
+    void transferFundsBetweenTwoAccount_successfully() {
 
-        when(accountRepository.findByAccountNumber(any()))
-                .thenReturn(Optional.of(senderAccount))
-                .thenReturn(Optional.of(receiverAccount));
+        BigDecimal transferAmount = new BigDecimal("55.55");
 
-        accountServiceImpl.transferFundsBetweenTwoAccount(senderAccount.getAccountNumber(), receiverAccount.getAccountNumber(), transferAmount);
+        accountServiceImpl.transferFundsBetweenTwoAccount("000000001", "000000002", transferAmount);
 
-        assertEquals(BigDecimal.valueOf(44.45), senderAccount.getBalance());
-        assertEquals(BigDecimal.valueOf(105.55), receiverAccount.getBalance());
-        verify(accountRepository, times(2)).findByAccountNumber(any());
-        verify(accountRepository, times(1)).save(senderAccount);
-        verify(accountRepository, times(1)).save(receiverAccount);
+        verify(transferEngine, times(1)).transfer("000000001", "000000002", Money.of(transferAmount));
     }
 
     @ParameterizedTest
     @MethodSource("provideInvalidAmountData")
     void transferFundsBetweenTwoAccount_throwInvalidAmountValue(BigDecimal invalidAmountFunds) {
 
-        var senderAccount = new Account();
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> accountServiceImpl.transferFundsBetweenTwoAccount("000000001", "000000002", invalidAmountFunds));
+
+        assertEquals("Invalid value for transfer funds", ex.getMessage());
+        verify(transferEngine, times(0)).transfer(any(), any(), any());
+    }
+
+    @Test
+    void transferFundsBetweenTwoAccount_throwInsufficientFundsForTransfer() {
 
-        senderAccount.setAccountNumber("000000001");
-        senderAccount.setBalance(BigDecimal.valueOf(100.00));
+        BigDecimal transferAmount = new BigDecimal("300.00");
 
-        var receiverAccount = new Account();
+        doThrow(new InsufficientFundsException("Insufficient funds for transfer"))
+                .when(transferEngine).transfer("000000001", "000000002", Money.of(transferAmount));
 
-        receiverAccount.setAccountNumber("000000002");
-        receiverAccount.setBalance(BigDecimal.valueOf(50.00));
+        assertThrows(InsufficientFundsException.class,
+                () -> accountServiceImpl.transferFundsBetweenTwoAccount("000000001", "000000002", transferAmount));
+    }
 
-        assertThrows(IllegalArgumentException.class,
-                () -> accountServiceImpl.transferFundsBetweenTwoAccount(senderAccount.getAccountNumber(), receiverAccount.getAccountNumber(), invalidAmountFunds));
+    @Test
+    void transferFundsBetweenTwoAccount_throwEqualAccountNumbers() {
 
+        BigDecimal transferAmount = new BigDecimal("100.00");
 
-        assertEquals(BigDecimal.valueOf(100.00), senderAccount.getBalance());
-        assertEquals(BigDecimal.valueOf(50.00), receiverAccount.getBalance());
+        assertThrows(IllegalArgumentException.class,
+                () -> accountServiceImpl.transferFundsBetweenTwoAccount("000000001", "000000001", transferAmount));
 
-        verify(accountRepository, times(0)).findByAccountNumber(any());
-        verify(accountRepository, times(0)).save(senderAccount);
-        verify(accountRepository, times(0)).save(receiverAccount);
+        verify(transferEngine, times(0)).transfer(any(), any(), any());
     }
 
     @Test
-    void transferFundsBetweenTwoAccount_throwInsufficientFundsForTransfer() {
+    void transferFundsBetweenTwoAccount_throwInvalidAccountNumber() {
 
-        var senderAccount = new Account();
+        BigDecimal transferAmount = new BigDecimal("100.00");
 
-        senderAccount.setAccountNumber("000000001");
-        senderAccount.setBalance(BigDecimal.valueOf(100.00));
+        assertThrows(IllegalArgumentException.class,
+                () -> accountServiceImpl.transferFundsBetweenTwoAccount("000000001", "0002", transferAmount));
 
-        var receiverAccount = new Account();
+        verify(transferEngine, times(0)).transfer(any(), any(), any());
+    }
 
-        receiverAccount.setAccountNumber("000000002");
-        receiverAccount.setBalance(BigDecimal.valueOf(50.00));
+    @Test
+    void transferFundsInBatch_rejectsInvalidItemsBeforeEngine() {
 
-        BigDecimal transferAmount = BigDecimal.valueOf(300.00);
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO("000000001", "000000002", BigDecimal.valueOf(10.00)),
+                new TransferRequestDTO("000000001", "000000001", BigDecimal.valueOf(10.00)),
+                new TransferRequestDTO("000000002", "000000003", BigDecimal.valueOf(0.0005)));
 
-        when(accountRepository.findByAccountNumber(any()))
-                .thenReturn(Optional.of(senderAccount));
+        when(transferEngine.transferBatch(transfers, List.of(0)))
+                .thenReturn(List.of(TransferResultDTO.completed(0)));
 
-        assertThrows(InsufficientFundsException.class,
-                () -> accountServiceImpl.transferFundsBetweenTwoAccount(senderAccount.getAccountNumber(), receiverAccount.getAccountNumber(), transferAmount));
+        var results = accountServiceImpl.transferFundsInBatch(transfers);
 
-        verify(accountRepository, times(1)).findByAccountNumber(any());
-        verify(accountRepository, times(0)).save(senderAccount);
-        verify(accountRepository, times(0)).save(receiverAccount);
+        assertEquals(3, results.size());
+        assertEquals(TransferStatus.COMPLETED, results.get(0).status());
+        assertEquals(TransferStatus.REJECTED, results.get(1).status());
+        assertEquals("Sender and receiver accounts must be different", results.get(1).message());
+        assertEquals(TransferStatus.REJECTED, results.get(2).status());
+        verify(transferEngine, times(1)).transferBatch(transfers, List.of(0));
     }
 
     @Test
-    void transferFundsBetweenTwoAccount_throwEqualAccountNumbers() {
+    void transferFundsInBatch_rejectsNullItem() {
 
-        var senderAccount = new Account();
+        List<TransferRequestDTO> transfers = Arrays.asList(
+                null,
+                new TransferRequestDTO("000000001", "000000002", BigDecimal.valueOf(10.00)));
 
-        senderAccount.setAccountNumber("000000001");
-        senderAccount.setBalance(BigDecimal.valueOf(100.00));
+        when(transferEngine.transferBatch(transfers, List.of(1)))
+                .thenReturn(List.of(TransferResultDTO.completed(1)));
 
-        var receiverAccount = new Account();
+        var results = accountServiceImpl.transferFundsInBatch(transfers);
 
-        receiverAccount.setAccountNumber("000000001");
-        receiverAccount.setBalance(BigDecimal.valueOf(50.00));
+        assertEquals(TransferStatus.REJECTED, results.get(0).status());
+        assertEquals("Transfer must not be null", results.get(0).message());
+        assertEquals(TransferStatus.COMPLETED, results.get(1).status());
+        verify(transferEngine, times(1)).transferBatch(transfers, List.of(1));
+    }
 
-        BigDecimal transferAmount = BigDecimal.valueOf(100.00);
+    @Test
+    void transferFundsInBatch_throwEmptyBatch() {
 
-        assertThrows(IllegalArgumentException.class,
-                () -> accountServiceImpl.transferFundsBetweenTwoAccount(senderAccount.getAccountNumber(), receiverAccount.getAccountNumber(), transferAmount));
+        assertThrows(IllegalArgumentException.class, () -> accountServiceImpl.transferFundsInBatch(List.of()));
 
-        verify(accountRepository, times(0)).findByAccountNumber(any());
-        verify(accountRepository, times(0)).save(senderAccount);
-        verify(accountRepository, times(0)).save(receiverAccount);
+        verify(transferEngine, times(0)).transferBatch(any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,264 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.services.impl.DepositGroupCommitter;
+import com.example.banking_solution.utils.AccountCache;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.TransactionRetryExecutor;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.IdempotencyConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DepositGroupCommitterTest {
+
+    AccountRepository accountRepository;
+    LedgerService ledgerService;
+    IdempotencyService idempotencyService;
+    TransactionRetryExecutor transactionRetryExecutor;
+    SimpleMeterRegistry meterRegistry;
+    DepositGroupCommitter committer;
+    ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+
+        accountRepository = mock(AccountRepository.class);
+        ledgerService = mock(LedgerService.class);
+        idempotencyService = mock(IdempotencyService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(3);
+
+        transactionRetryExecutor = mock(TransactionRetryExecutor.class);
+        when(transactionRetryExecutor.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        executor.shutdownNow();
+        if (committer != null) {
+            committer.close();
+        }
+    }
+
+    @Test
+    void deposit_shouldCommitConcurrentDepositsAsOneGroup() throws Exception {
+
+        // a group is only committed early once it is full, so three deposits always make one group
+        committer = committer(true, 3);
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("120.00"));
+        when(accountRepository.addToBalance("000000001", new BigDecimal("20.00"))).thenReturn(Optional.of(account));
+
+        Future<Optional<Account>> first = executor.submit(() -> committer.deposit("000000001", Money.valueOf("10.00")));
+        Future<Optional<Account>> second = executor.submit(() -> committer.deposit("000000001", Money.valueOf("10.00")));
+        Future<Optional<Account>> unknown = executor.submit(() -> committer.deposit("000000002", Money.valueOf("5.00")));
+
+        Set<Money> balances = Set.of(
+                first.get(5, TimeUnit.SECONDS).orElseThrow().getBalance(),
+                second.get(5, TimeUnit.SECONDS).orElseThrow().getBalance());
+        ExecutionException notFound = assertThrows(ExecutionException.class, () -> unknown.get(5, TimeUnit.SECONDS));
+
+        assertEquals(Set.of(Money.valueOf("110.00"), Money.valueOf("120.00")), balances);
+        assertInstanceOf(AccountNotFoundException.class, notFound.getCause());
+        verify(transactionRetryExecutor, times(1)).execute(anyString(), any());
+        verify(accountRepository, times(1)).addToBalance("000000001", new BigDecimal("20.00"));
+        verify(ledgerService, times(1)).recordDeposits(argThat(deposits -> deposits.size() == 2
+                && deposits.stream().map(LedgerService.Deposit::balanceAfter).collect(Collectors.toSet()).equals(balances)));
+        assertEquals(3, meterRegistry.get("banking.deposit.group-commit.size").summary().totalAmount());
+    }
+
+    @Test
+    void deposit_whenGroupCommitFails_shouldFailEveryDepositInTheGroup() {
+
+        committer = committer(true, 1);
+
+        when(accountRepository.addToBalance(anyString(), any())).thenThrow(new IllegalStateException("database is down"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> committer.deposit("000000001", Money.valueOf("10.00")));
+
+        assertEquals("database is down", ex.getMessage());
+        verify(ledgerService, never()).recordDeposits(any());
+    }
+
+    @Test
+    void deposit_whenOneAccountFailsTheGroup_shouldStillApplyTheOthers() throws Exception {
+
+        committer = committer(true, 2);
+
+        Account account = new Account();
+        account.setAccountNumber("000000002");
+        account.setBalance(Money.valueOf("15.00"));
+        when(accountRepository.addToBalance("000000001", new BigDecimal("10.00")))
+                .thenThrow(new IllegalArgumentException("numeric field overflow"));
+        when(accountRepository.addToBalance("000000002", new BigDecimal("5.00"))).thenReturn(Optional.of(account));
+
+        Future<Optional<Account>> failing = executor.submit(() -> committer.deposit("000000001", Money.valueOf("10.00")));
+        Future<Optional<Account>> other = executor.submit(() -> committer.deposit("000000002", Money.valueOf("5.00")));
+
+        ExecutionException overflow = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalArgumentException.class, overflow.getCause());
+        assertEquals(Money.valueOf("15.00"), other.get(5, TimeUnit.SECONDS).orElseThrow().getBalance());
+        verify(ledgerService, times(1)).recordDeposits(argThat(deposits -> deposits.size() == 1
+                && deposits.get(0).accountNumber().equals("000000002")));
+    }
+
+    @Test
+    void deposit_afterAnErrorInTheCommitter_shouldKeepCommitting() {
+
+        committer = committer(true, 1);
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("10.00"));
+        when(accountRepository.addToBalance("000000001", new BigDecimal("10.00")))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(Optional.of(account));
+
+        assertThrows(CompletionException.class, () -> committer.deposit("000000001", Money.valueOf("10.00")));
+
+        assertEquals(Money.valueOf("10.00"),
+                committer.deposit("000000001", Money.valueOf("10.00")).orElseThrow().getBalance());
+    }
+
+    @Test
+    void deposit_whenTheGroupFailsToCommit_shouldNotApplyItAgain() throws Exception {
+
+        committer = committer(true, 2);
+
+        Account account = new Account();
+        account.setAccountNumber("000000002");
+        account.setBalance(Money.valueOf("15.00"));
+        when(accountRepository.addToBalance(anyString(), any())).thenReturn(Optional.of(account));
+        // the statements succeed and the commit fails, so the group may or may not have been applied
+        when(transactionRetryExecutor.execute(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<Supplier<?>>getArgument(1).get();
+            throw new TransactionSystemException("connection lost during commit");
+        });
+
+        Future<Optional<Account>> first = executor.submit(() -> committer.deposit("000000001", Money.valueOf("10.00")));
+        Future<Optional<Account>> second = executor.submit(() -> committer.deposit("000000002", Money.valueOf("5.00")));
+
+        assertInstanceOf(TransactionSystemException.class,
+                assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(TransactionSystemException.class,
+                assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+        verify(transactionRetryExecutor, times(1)).execute(anyString(), any());
+    }
+
+    @Test
+    void deposit_underAnIdempotencyClaim_shouldMarkItAppliedInTheGroup() {
+
+        committer = committer(true, 1);
+
+        IdempotencyService.Claim claim = new IdempotencyService.Claim("key-1", "claim-1", "000000001");
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("10.00"));
+        when(idempotencyService.boundClaim()).thenReturn(Optional.of(claim));
+        when(accountRepository.addToBalance("000000001", new BigDecimal("10.00"))).thenReturn(Optional.of(account));
+
+        committer.deposit("000000001", Money.valueOf("10.00"));
+
+        InOrder inOrder = inOrder(idempotencyService, accountRepository);
+        inOrder.verify(idempotencyService).markApplied(claim);
+        inOrder.verify(accountRepository).addToBalance("000000001", new BigDecimal("10.00"));
+    }
+
+    @Test
+    void deposit_whenItsClaimWasTakenOver_shouldFailOnlyThatDeposit() throws Exception {
+
+        committer = committer(true, 2);
+
+        IdempotencyService.Claim lost = new IdempotencyService.Claim("key-1", "claim-1", "000000001");
+        Account account = new Account();
+        account.setAccountNumber("000000002");
+        account.setBalance(Money.valueOf("5.00"));
+        when(idempotencyService.boundClaim()).thenAnswer(invocation ->
+                Thread.currentThread().getName().equals("lost") ? Optional.of(lost) : Optional.empty());
+        doThrow(new IdempotencyConflictException("taken over")).when(idempotencyService).markApplied(lost);
+        when(accountRepository.addToBalance("000000002", new BigDecimal("5.00"))).thenReturn(Optional.of(account));
+
+        Future<Optional<Account>> failing = executor.submit(() -> {
+            Thread.currentThread().setName("lost");
+            return committer.deposit("000000001", Money.valueOf("10.00"));
+        });
+        Future<Optional<Account>> other = executor.submit(() -> committer.deposit("000000002", Money.valueOf("5.00")));
+
+        assertInstanceOf(IdempotencyConflictException.class,
+                assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(Money.valueOf("5.00"), other.get(5, TimeUnit.SECONDS).orElseThrow().getBalance());
+        verify(accountRepository, never()).addToBalance(eq("000000001"), any());
+    }
+
+    @Test
+    void deposit_takenByASlowGroup_shouldWaitForItPastTheTimeout() {
+
+        committer = committer(true, 1, 50);
+
+        Account account = new Account();
+        account.setAccountNumber("000000001");
+        account.setBalance(Money.valueOf("10.00"));
+        when(accountRepository.addToBalance("000000001", new BigDecimal("10.00"))).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return Optional.of(account);
+        });
+
+        assertEquals(Money.valueOf("10.00"),
+                committer.deposit("000000001", Money.valueOf("10.00")).orElseThrow().getBalance());
+    }
+
+    @Test
+    void deposit_whenDisabled_shouldLeaveTheDepositToTheCaller() {
+
+        committer = committer(false, 1);
+
+        assertTrue(committer.deposit("000000001", Money.valueOf("10.00")).isEmpty());
+        verifyNoInteractions(accountRepository, ledgerService, transactionRetryExecutor);
+    }
+
+    private DepositGroupCommitter committer(boolean enabled, int maxBatchSize) {
+        return committer(enabled, maxBatchSize, TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private DepositGroupCommitter committer(boolean enabled, int maxBatchSize, long waitTimeoutMillis) {
+        return new DepositGroupCommitter(accountRepository, mock(AccountBalanceShardRepository.class), transactionRetryExecutor,
+                mock(AccountCache.class), ledgerService, new DatabaseShards(1, TransactionOperations.withoutTransaction()),
+                idempotencyService, meterRegistry, enabled, TimeUnit.SECONDS.toMillis(10), maxBatchSize, 100, waitTimeoutMillis);
+    }
+}
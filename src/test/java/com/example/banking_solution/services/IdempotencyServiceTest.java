@@ -0,0 +1,162 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+import com.example.banking_solution.repositories.IdempotencyRecordRepository;
+import com.example.banking_solution.services.impl.IdempotencyServiceImpl;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.enums.IdempotencyStatus;
+import com.example.banking_solution.utils.exceptions.IdempotencyConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    static final String FINGERPRINT = "/accounts/deposit&accountNumber=000000001&depositAmount=10.00";
+    static final IdempotencyService.Claim CLAIM = new IdempotencyService.Claim("key-1", "claim-1", "000000001");
+
+    IdempotencyRecordRepository idempotencyRecordRepository;
+    IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void beforeEach() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository,
+                new DatabaseShards(1, TransactionOperations.withoutTransaction()), TransactionOperations.withoutTransaction(),
+                24, 60, 100, 2);
+    }
+
+    @Test
+    void claim_newKey_shouldClaimWithLease() {
+
+        when(idempotencyRecordRepository.claim(eq("key-1"), eq("claim-1"), eq(FINGERPRINT), any(), any(), any())).thenReturn(1);
+
+        assertTrue(idempotencyService.claim(CLAIM, FINGERPRINT).isEmpty());
+
+        verify(idempotencyRecordRepository).claim(eq("key-1"), eq("claim-1"), eq(FINGERPRINT), any(),
+                argThat(expiresAt -> expiresAt.isAfter(Instant.now().plus(Duration.ofHours(23)))),
+                argThat(lockedUntil -> lockedUntil.isBefore(Instant.now().plus(Duration.ofSeconds(61)))));
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void claim_completedKey_shouldReplayFromCacheAfterFirstLookup() {
+
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, FINGERPRINT, Instant.now().plus(Duration.ofHours(1)));
+
+        when(idempotencyRecordRepository.claim(eq("key-1"), any(), any(), any(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(record));
+
+        assertSame(record, idempotencyService.claim(CLAIM, FINGERPRINT).orElseThrow());
+        assertSame(record, idempotencyService.claim(CLAIM, FINGERPRINT).orElseThrow());
+
+        verify(idempotencyRecordRepository, times(1)).claim(any(), any(), any(), any(), any(), any());
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void claim_keyUsedForDifferentRequest_shouldReturnRecordWithItsFingerprint() {
+
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, "/accounts/withdraw&accountNumber=000000001",
+                Instant.now().plus(Duration.ofHours(1)));
+
+        when(idempotencyRecordRepository.claim(eq("key-1"), any(), any(), any(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(record));
+
+        assertEquals("/accounts/withdraw&accountNumber=000000001",
+                idempotencyService.claim(CLAIM, FINGERPRINT).orElseThrow().getRequestFingerprint());
+    }
+
+    @Test
+    void claim_inProgressOrExpiredRecord_shouldNotBeCached() {
+
+        IdempotencyRecord inProgress = record(IdempotencyStatus.IN_PROGRESS, FINGERPRINT, Instant.now().plus(Duration.ofHours(1)));
+        IdempotencyRecord expired = record(IdempotencyStatus.COMPLETED, FINGERPRINT, Instant.now().minusSeconds(1));
+
+        when(idempotencyRecordRepository.claim(any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(inProgress));
+        when(idempotencyRecordRepository.findById("key-2")).thenReturn(Optional.of(expired));
+
+        idempotencyService.claim(CLAIM, FINGERPRINT);
+        idempotencyService.claim(CLAIM, FINGERPRINT);
+        idempotencyService.claim(new IdempotencyService.Claim("key-2", "claim-2", "000000001"), FINGERPRINT);
+        idempotencyService.claim(new IdempotencyService.Claim("key-2", "claim-2", "000000001"), FINGERPRINT);
+
+        verify(idempotencyRecordRepository, times(2)).findById("key-1");
+        verify(idempotencyRecordRepository, times(2)).findById("key-2");
+    }
+
+    @Test
+    void markApplied_claimStillHoldingTheKey_shouldMarkIt() {
+
+        when(idempotencyRecordRepository.markApplied("key-1", "claim-1")).thenReturn(1);
+
+        idempotencyService.markApplied(CLAIM);
+
+        verify(idempotencyRecordRepository).markApplied("key-1", "claim-1");
+    }
+
+    @Test
+    void markApplied_claimTakenOver_shouldThrow() {
+
+        when(idempotencyRecordRepository.markApplied("key-1", "claim-1")).thenReturn(0);
+
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.markApplied(CLAIM));
+    }
+
+    @Test
+    void completeAndRelease_shouldOnlyTouchTheirOwnClaim() {
+
+        idempotencyService.complete(CLAIM, 200, "{}");
+        idempotencyService.release(CLAIM);
+
+        verify(idempotencyRecordRepository).complete("key-1", "claim-1", 200, "{}");
+        verify(idempotencyRecordRepository).release("key-1", "claim-1");
+    }
+
+    @Test
+    void bind_shouldExposeTheClaimOnTheCurrentThreadUntilCleared() {
+
+        idempotencyService.bind(CLAIM);
+        assertEquals(Optional.of(CLAIM), idempotencyService.boundClaim());
+
+        idempotencyService.bind(null);
+        assertTrue(idempotencyService.boundClaim().isEmpty());
+    }
+
+    @Test
+    void purgeExpired_shouldDeleteInBatchesUntilOneIsShort() {
+
+        when(idempotencyRecordRepository.deleteExpired(any(), anyInt())).thenReturn(2, 2, 1);
+
+        assertEquals(5, idempotencyService.purgeExpired());
+
+        verify(idempotencyRecordRepository, times(3)).deleteExpired(any(), eq(2));
+    }
+
+    private static IdempotencyRecord record(IdempotencyStatus status, String fingerprint, Instant expiresAt) {
+
+        IdempotencyRecord record = new IdempotencyRecord();
+
+        record.setKey("key");
+        record.setStatus(status);
+        record.setRequestFingerprint(fingerprint);
+        record.setResponseStatus(200);
+        record.setExpiresAt(expiresAt);
+
+        return record;
+    }
+}
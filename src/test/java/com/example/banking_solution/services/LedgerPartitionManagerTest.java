@@ -0,0 +1,89 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.services.impl.LedgerPartitionManager;
+import com.example.banking_solution.utils.DatabaseShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LedgerPartitionManagerTest {
+
+    static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    JdbcTemplate jdbcTemplate;
+    String currentPartition;
+    String nextPartition;
+
+    @BeforeEach
+    void beforeEach() {
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        currentPartition = "transactions_" + currentMonth.format(SUFFIX);
+        nextPartition = "transactions_" + currentMonth.plusMonths(1).format(SUFFIX);
+    }
+
+    @Test
+    void maintainPartitions_shouldMoveDefaultRowsBeforeAttachingNewPartition() {
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(currentPartition))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(nextPartition))).thenReturn(false);
+        when(jdbcTemplate.update(contains("INSERT INTO " + nextPartition), any(), any())).thenReturn(3);
+
+        manager(1, 0).maintainPartitions();
+
+        var inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE TABLE " + nextPartition + " (LIKE transactions"));
+        inOrder.verify(jdbcTemplate).update(contains("DELETE FROM transactions_default"), any(), any());
+        inOrder.verify(jdbcTemplate).execute(startsWith("ALTER TABLE transactions ATTACH PARTITION " + nextPartition));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE " + currentPartition));
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+    }
+
+    @Test
+    void maintainPartitions_shouldDetachPartitionsOutsideRetentionUnderLockTimeout() {
+
+        String expired = "transactions_" + YearMonth.now(ZoneOffset.UTC).minusMonths(4).format(SUFFIX);
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyString())).thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("transactions_default", expired, currentPartition));
+
+        manager(0, 3).maintainPartitions();
+
+        verify(jdbcTemplate, atLeastOnce()).execute("SET LOCAL lock_timeout = 5000");
+        verify(jdbcTemplate, times(1)).execute("ALTER TABLE transactions DETACH PARTITION " + expired);
+        verify(jdbcTemplate, never()).execute("ALTER TABLE transactions DETACH PARTITION " + currentPartition);
+        verify(jdbcTemplate, never()).execute("ALTER TABLE transactions DETACH PARTITION transactions_default");
+    }
+
+    @Test
+    void maintainPartitions_whenOneMonthFails_shouldStillCreateTheOthers() {
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyString())).thenReturn(false);
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jdbcTemplate).execute(startsWith("ALTER TABLE transactions ATTACH PARTITION " + currentPartition));
+
+        manager(1, 0).maintainPartitions();
+
+        verify(jdbcTemplate, times(1)).execute(startsWith("ALTER TABLE transactions ATTACH PARTITION " + nextPartition));
+    }
+
+    private LedgerPartitionManager manager(int monthsAhead, int retentionMonths) {
+        return new LedgerPartitionManager(jdbcTemplate, TransactionOperations.withoutTransaction(),
+                new DatabaseShards(1, TransactionOperations.withoutTransaction()), monthsAhead, retentionMonths, 5000);
+    }
+}
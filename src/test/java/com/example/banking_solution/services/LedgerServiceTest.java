@@ -0,0 +1,77 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.LedgerEntry;
+import com.example.banking_solution.repositories.LedgerEntryRepository;
+import com.example.banking_solution.services.impl.LedgerServiceImpl;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+class LedgerServiceTest {
+
+    LedgerEntryRepository ledgerEntryRepository;
+    LedgerService ledgerService;
+
+    @BeforeEach
+    void beforeEach() {
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        ledgerService = new LedgerServiceImpl(ledgerEntryRepository);
+    }
+
+    @Test
+    void recordDeposit_shouldSaveDepositEntry() {
+
+        ledgerService.recordDeposit("000000001", Money.valueOf("10.00"), Money.valueOf("110.00"));
+
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(ledgerEntryRepository).save(entry.capture());
+
+        assertEquals(LedgerEntryType.DEPOSIT, entry.getValue().getType());
+        assertEquals("000000001", entry.getValue().getAccountNumber());
+        assertNull(entry.getValue().getCounterpartyAccountNumber());
+        assertEquals(Money.valueOf("10.00"), entry.getValue().getAmount());
+        assertEquals(Money.valueOf("110.00"), entry.getValue().getBalanceAfter());
+    }
+
+    @Test
+    void recordTransfers_shouldSaveBothSidesOfEveryTransfer() {
+
+        ledgerService.recordTransfers(List.of(new LedgerService.Transfer("000000001", "000000002",
+                Money.valueOf("5.00"), Money.valueOf("95.00"), Money.valueOf("55.00"))));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(entries.capture());
+
+        LedgerEntry out = entries.getValue().get(0);
+        LedgerEntry in = entries.getValue().get(1);
+
+        assertEquals(LedgerEntryType.TRANSFER_OUT, out.getType());
+        assertEquals("000000001", out.getAccountNumber());
+        assertEquals("000000002", out.getCounterpartyAccountNumber());
+        assertEquals(Money.valueOf("95.00"), out.getBalanceAfter());
+        assertEquals(LedgerEntryType.TRANSFER_IN, in.getType());
+        assertEquals("000000002", in.getAccountNumber());
+        assertEquals(Money.valueOf("55.00"), in.getBalanceAfter());
+        assertEquals(out.getCreatedAt(), in.getCreatedAt());
+    }
+
+    @Test
+    void recordDeposits_shouldSaveOneEntryPerDepositInOneBatch() {
+
+        ledgerService.recordDeposits(List.of(
+                new LedgerService.Deposit("000000001", Money.valueOf("1.00"), Money.valueOf("1.00")),
+                new LedgerService.Deposit("000000001", Money.valueOf("2.00"), Money.valueOf("3.00"))));
+
+        verify(ledgerEntryRepository, times(1)).saveAll(argThat(entries -> ((List<?>) entries).size() == 2));
+        verify(ledgerEntryRepository, never()).save(any());
+    }
+}
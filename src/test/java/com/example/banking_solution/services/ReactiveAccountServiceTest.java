@@ -0,0 +1,137 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.ReactiveAccountRepository;
+import com.example.banking_solution.repositories.ReactiveLedgerEntryRepository;
+import com.example.banking_solution.services.impl.ReactiveAccountServiceImpl;
+import com.example.banking_solution.utils.AccountNumberGenerator;
+import com.example.banking_solution.utils.AuditLog;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.PasswordHasher;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveAccountServiceTest {
+
+    ReactiveAccountRepository accountRepository;
+    ReactiveLedgerEntryRepository ledgerEntryRepository;
+    ReactiveAccountService accountService;
+
+    @BeforeEach
+    void beforeEach() {
+
+        accountRepository = mock(ReactiveAccountRepository.class);
+        ledgerEntryRepository = mock(ReactiveLedgerEntryRepository.class);
+
+        ReactiveTransactionManager transactionManager = mock(ReactiveTransactionManager.class);
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+
+        when(ledgerEntryRepository.insertAll(any())).thenReturn(Mono.empty());
+        when(accountRepository.updateBalance(any(), any())).thenReturn(Mono.just(1L));
+
+        accountService = new ReactiveAccountServiceImpl(accountRepository, ledgerEntryRepository,
+                mock(AccountNumberGenerator.class), mock(PasswordHasher.class), mock(AuditLog.class),
+                transactionManager, new SimpleMeterRegistry(), 3, 1, 10);
+    }
+
+    @Test
+    void withdraw_shardedAccountWithLowRowBalance_shouldDrainShards() {
+
+        Account account = account("000000001", "20.00", 4);
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", Money.valueOf("50.00"))).thenReturn(Mono.empty());
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001"))).thenReturn(Flux.just(account));
+        when(accountRepository.drainShards("000000001")).thenReturn(Mono.just(Money.valueOf("80.00")));
+
+        Account result = accountService.withdrawFundsFromAnAccount("000000001", BigDecimal.valueOf(50.00)).block();
+
+        assertEquals(Money.valueOf("50.00"), result.getBalance());
+        verify(accountRepository).updateBalance("000000001", Money.valueOf("50.00"));
+    }
+
+    @Test
+    void withdraw_shardedAccountWithInsufficientTotal_shouldThrow() {
+
+        Account account = account("000000001", "20.00", 4);
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", Money.valueOf("150.00"))).thenReturn(Mono.empty());
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001"))).thenReturn(Flux.just(account));
+        when(accountRepository.drainShards("000000001")).thenReturn(Mono.just(Money.valueOf("80.00")));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> accountService.withdrawFundsFromAnAccount("000000001", BigDecimal.valueOf(150.00)).block());
+
+        verify(accountRepository, never()).updateBalance(any(), any());
+    }
+
+    @Test
+    void withdraw_regularAccountWithInsufficientFunds_shouldNotDrain() {
+
+        Account account = account("000000001", "20.00", 0);
+
+        when(accountRepository.subtractFromBalanceIfSufficient("000000001", Money.valueOf("50.00"))).thenReturn(Mono.empty());
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001"))).thenReturn(Flux.just(account));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> accountService.withdrawFundsFromAnAccount("000000001", BigDecimal.valueOf(50.00)).block());
+
+        verify(accountRepository, never()).drainShards(any());
+    }
+
+    @Test
+    void transfer_shardedSenderWithLowRowBalance_shouldDrainShards() {
+
+        Account sender = account("000000001", "20.00", 4);
+        Account receiver = account("000000002", "0.00", 0);
+
+        when(accountRepository.lockAllByAccountNumberIn(any())).thenReturn(Flux.just(sender, receiver));
+        when(accountRepository.drainShards("000000001")).thenReturn(Mono.just(Money.valueOf("80.00")));
+
+        accountService.transferFundsBetweenTwoAccount("000000001", "000000002", BigDecimal.valueOf(50.00)).block();
+
+        verify(accountRepository).updateBalance("000000001", Money.valueOf("50.00"));
+        verify(accountRepository).updateBalance("000000002", Money.valueOf("50.00"));
+    }
+
+    @Test
+    void transfer_shardedSenderWithEnoughRowBalance_shouldNotDrain() {
+
+        Account sender = account("000000001", "100.00", 4);
+        Account receiver = account("000000002", "0.00", 0);
+
+        when(accountRepository.lockAllByAccountNumberIn(any())).thenReturn(Flux.just(sender, receiver));
+
+        accountService.transferFundsBetweenTwoAccount("000000001", "000000002", BigDecimal.valueOf(50.00)).block();
+
+        verify(accountRepository, never()).drainShards(any());
+        verify(accountRepository).updateBalance(eq("000000001"), eq(Money.valueOf("50.00")));
+    }
+
+    private static Account account(String accountNumber, String balance, int balanceShards) {
+
+        Account account = new Account();
+
+        account.setAccountNumber(accountNumber);
+        account.setBalance(Money.valueOf(balance));
+        account.setBalanceShards(balanceShards);
+
+        return account;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.services.impl.SnapshotExportServiceImpl;
+import com.example.banking_solution.utils.DatabaseShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class SnapshotExportServiceTest {
+
+    JdbcTemplate jdbcTemplate;
+    PlatformTransactionManager transactionManager;
+    SimpleMeterRegistry meterRegistry;
+    SnapshotExportService snapshotExportService;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        // a chunk smaller than the output, so it is written out several times
+        snapshotExportService = new SnapshotExportServiceImpl(jdbcTemplate,
+                new DatabaseShards(1, TransactionOperations.withoutTransaction()), transactionManager, meterRegistry, 100, 32);
+
+        ResultSet first = row("000000001", "first@email.com", new BigDecimal("100.50"));
+        ResultSet second = row("000000002", "\"second\",@email.com", new BigDecimal("0"));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(first);
+            handler.processRow(second);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void exportCsv_shouldWriteGzippedCsvFromConsistentSnapshot() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = snapshotExportService.exportCsv(Channels.newChannel(out), true, true);
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        assertEquals(2, rows);
+        assertEquals("""
+                account_number,email,role,balance
+                000000001,first@email.com,USER,100.50
+                000000002,\"""second"",@email.com",USER,0
+                """, csv);
+        assertEquals(2, meterRegistry.get("banking.export.rows").counter().count());
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    @Test
+    void exportCsv_withoutSnapshot_shouldReadCommittedUncompressed() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        snapshotExportService.exportCsv(Channels.newChannel(out), false, false);
+
+        assertEquals(3, out.toString(StandardCharsets.UTF_8).lines().count());
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getIsolationLevel() == TransactionDefinition.ISOLATION_READ_COMMITTED));
+    }
+
+    @Test
+    void exportCsv_whenReadFails_shouldNotFinishTheGzipStream() throws SQLException {
+
+        ResultSet row = row("000000001", "first@email.com", new BigDecimal("100.50"));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            throw new DataAccessResourceFailureException("connection lost");
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> snapshotExportService.exportCsv(Channels.newChannel(out), true, false));
+
+        assertThrows(EOFException.class, () -> {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                in.readAllBytes();
+            }
+        });
+        assertEquals(1, meterRegistry.get("banking.export").tag("outcome", "DataAccessResourceFailureException").timer().count());
+    }
+
+    private static ResultSet row(String accountNumber, String email, BigDecimal balance) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("account_number")).thenReturn(accountNumber);
+        when(resultSet.getString("email")).thenReturn(email);
+        when(resultSet.getString("role")).thenReturn("USER");
+        when(resultSet.getBigDecimal("balance")).thenReturn(balance);
+        return resultSet;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.dto.AccountRequestDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a handful of hot accounts with transfers in both directions and checks that no money is created or lost.
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class TransferConcurrencyTest {
+
+    static final int ACCOUNTS = 4;
+    static final int THREADS = 16;
+    static final int TRANSFERS_PER_THREAD = 250;
+    static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1000.00);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.7-alpine");
+
+    @TempDir
+    static Path auditDirectory;
+
+    @DynamicPropertySource
+    static void auditFile(DynamicPropertyRegistry registry) {
+        registry.add("banking.audit.file", () -> auditDirectory.resolve("audit.ndjson").toString());
+    }
+
+    @Autowired
+    AccountService accountService;
+
+    @Test
+    void concurrentTransfers_conserveMoney() throws Exception {
+
+        List<String> accountNumbers = new ArrayList<>();
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = accountService.createAccount(
+                    new AccountRequestDTO("hot%d@email.com".formatted(i), "password", "password"));
+            accountService.depositFundsIntoAnAccount(account.getAccountNumber(), INITIAL_BALANCE);
+            accountNumbers.add(account.getAccountNumber());
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long started = System.nanoTime();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        accountService.transferFundsBetweenTwoAccount(accountNumbers.get(from), accountNumbers.get(to),
+                                BigDecimal.valueOf(random.nextInt(1, 5000), 2));
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        log.info("{} transfers ({} rejected) in {} s: {} transfers/s",
+                completed.get(), rejected.get(), seconds, (long) (completed.get() / seconds));
+
+        Money total = Money.ZERO;
+
+        for (String accountNumber : accountNumbers) {
+            Money balance = accountService.findByAccountNumber(accountNumber).getBalance();
+            assertTrue(balance.signum() >= 0, "Balance must never go negative");
+            total = total.plus(balance);
+        }
+
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)).compareTo(total.toBigDecimal()));
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+    }
+}
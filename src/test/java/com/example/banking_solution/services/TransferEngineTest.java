@@ -0,0 +1,291 @@
+package com.example.banking_solution.services;
+
+import com.example.banking_solution.dto.TransferRequestDTO;
+import com.example.banking_solution.dto.TransferResultDTO;
+import com.example.banking_solution.models.Account;
+import com.example.banking_solution.repositories.AccountBalanceShardRepository;
+import com.example.banking_solution.repositories.AccountRepository;
+import com.example.banking_solution.repositories.TransferSagaRepository;
+import com.example.banking_solution.services.impl.TransferEngine;
+import com.example.banking_solution.utils.AccountCache;
+import com.example.banking_solution.utils.DatabaseShards;
+import com.example.banking_solution.utils.Money;
+import com.example.banking_solution.utils.TransactionRetryExecutor;
+import com.example.banking_solution.utils.enums.LedgerEntryType;
+import com.example.banking_solution.utils.enums.TransferLockingMode;
+import com.example.banking_solution.utils.enums.TransferSagaStatus;
+import com.example.banking_solution.utils.enums.TransferStatus;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class TransferEngineTest {
+
+    AccountRepository accountRepository;
+    AccountBalanceShardRepository balanceShardRepository;
+    TransferSagaRepository transferSagaRepository;
+    AccountCache accountCache;
+    LedgerService ledgerService;
+    SimpleMeterRegistry meterRegistry;
+    TransferEngine transferEngine;
+
+    Account senderAccount;
+    Account receiverAccount;
+
+    @BeforeEach
+    void beforeEach() {
+
+        accountRepository = mock(AccountRepository.class);
+        balanceShardRepository = mock(AccountBalanceShardRepository.class);
+        transferSagaRepository = mock(TransferSagaRepository.class);
+        accountCache = mock(AccountCache.class);
+        ledgerService = mock(LedgerService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        TransactionRetryExecutor transactionRetryExecutor = mock(TransactionRetryExecutor.class);
+        when(transactionRetryExecutor.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        transferEngine = new TransferEngine(accountRepository, balanceShardRepository, transferSagaRepository,
+                transactionRetryExecutor, accountCache, ledgerService, singleShard(), mock(IdempotencyService.class), meterRegistry,
+                TransferLockingMode.PESSIMISTIC, 30000, 100);
+
+        senderAccount = new Account();
+        senderAccount.setAccountNumber("000000001");
+        senderAccount.setBalance(Money.valueOf("100.00"));
+
+        receiverAccount = new Account();
+        receiverAccount.setAccountNumber("000000002");
+        receiverAccount.setBalance(Money.valueOf("50.00"));
+    }
+
+    @Test
+    void transfer_successfully() {
+
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001", "000000002")))
+                .thenReturn(List.of(senderAccount, receiverAccount));
+
+        transferEngine.transfer("000000001", "000000002", Money.valueOf("55.55"));
+
+        assertEquals(Money.valueOf("44.45"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("105.55"), receiverAccount.getBalance());
+        assertEquals(1, meterRegistry.timer("banking.transfer", "outcome", "success").count());
+        verify(accountRepository, times(1)).lockAllByAccountNumberIn(any());
+        verify(accountRepository, times(0)).save(any(Account.class));
+        verify(accountCache, times(1)).evictAfterCommit("000000001", "000000002");
+        verify(ledgerService, times(1)).recordTransfers(List.of(new LedgerService.Transfer("000000001", "000000002",
+                Money.valueOf("55.55"), Money.valueOf("44.45"), Money.valueOf("105.55"))));
+    }
+
+    @Test
+    void transfer_throwInsufficientFunds() {
+
+        when(accountRepository.lockAllByAccountNumberIn(any()))
+                .thenReturn(List.of(senderAccount, receiverAccount));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transferEngine.transfer("000000001", "000000002", Money.valueOf("300.00")));
+
+        assertEquals(Money.valueOf("100.00"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("50.00"), receiverAccount.getBalance());
+        verify(accountCache, times(0)).evictAfterCommit(any());
+        verify(ledgerService, times(0)).recordTransfers(any());
+        assertEquals(1, meterRegistry.timer("banking.transfer", "outcome", "InsufficientFundsException").count());
+    }
+
+    @Test
+    void transfer_fromShardedAccountWithLowRowBalance_shouldDrainShards() {
+
+        senderAccount.setBalanceShards(4);
+
+        when(accountRepository.lockAllByAccountNumberIn(any()))
+                .thenReturn(List.of(senderAccount, receiverAccount));
+        when(balanceShardRepository.drainShards("000000001")).thenReturn(BigDecimal.valueOf(200.00));
+
+        transferEngine.transfer("000000001", "000000002", Money.valueOf("250.00"));
+
+        assertEquals(Money.valueOf("50.00"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("300.00"), receiverAccount.getBalance());
+        verify(ledgerService, times(1)).recordTransfers(List.of(new LedgerService.Transfer("000000001", "000000002",
+                Money.valueOf("250.00"), null, Money.valueOf("300.00"))));
+    }
+
+    @Test
+    void transfer_throwWhenReceiverNotFound() {
+
+        when(accountRepository.lockAllByAccountNumberIn(any()))
+                .thenReturn(List.of(senderAccount));
+
+        assertThrows(AccountNotFoundException.class,
+                () -> transferEngine.transfer("000000001", "000000002", Money.valueOf("10.00")));
+
+        assertEquals(Money.valueOf("100.00"), senderAccount.getBalance());
+    }
+
+    @Test
+    void transfer_inOptimisticModeReadsWithoutLocks() {
+
+        TransactionRetryExecutor transactionRetryExecutor = mock(TransactionRetryExecutor.class);
+        when(transactionRetryExecutor.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        TransferEngine optimisticEngine = new TransferEngine(accountRepository, balanceShardRepository, transferSagaRepository,
+                transactionRetryExecutor, accountCache, ledgerService, singleShard(), mock(IdempotencyService.class), meterRegistry,
+                TransferLockingMode.OPTIMISTIC, 30000, 100);
+
+        when(accountRepository.findAllByAccountNumberInOrderByAccountNumber(any()))
+                .thenReturn(List.of(senderAccount, receiverAccount));
+
+        optimisticEngine.transfer("000000001", "000000002", Money.valueOf("10.00"));
+
+        assertEquals(Money.valueOf("90.00"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("60.00"), receiverAccount.getBalance());
+        verify(accountRepository, times(0)).lockAllByAccountNumberIn(any());
+    }
+
+    @Test
+    void transferBatch_appliesItemsInOrderAndRejectsUncoverable() {
+
+        Account thirdAccount = new Account();
+        thirdAccount.setAccountNumber("000000003");
+        thirdAccount.setBalance(Money.ZERO);
+
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO("000000001", "000000003", BigDecimal.valueOf(80.00)),
+                new TransferRequestDTO("000000003", "000000002", BigDecimal.valueOf(30.00)),
+                new TransferRequestDTO("000000001", "000000002", BigDecimal.valueOf(30.00)),
+                new TransferRequestDTO("000000001", "000000009", BigDecimal.valueOf(1.00)));
+
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001", "000000002", "000000003", "000000009")))
+                .thenReturn(List.of(senderAccount, receiverAccount, thirdAccount));
+
+        List<TransferResultDTO> results = transferEngine.transferBatch(transfers, List.of(0, 1, 2, 3));
+
+        assertEquals(TransferStatus.COMPLETED, results.get(0).status());
+        assertEquals(TransferStatus.COMPLETED, results.get(1).status());
+        assertEquals(TransferStatus.REJECTED, results.get(2).status());
+        assertEquals("Insufficient funds for transfer", results.get(2).message());
+        assertEquals(TransferStatus.REJECTED, results.get(3).status());
+        assertEquals(Money.valueOf("20.00"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("80.00"), receiverAccount.getBalance());
+        assertEquals(Money.valueOf("50.00"), thirdAccount.getBalance());
+        verify(accountRepository, times(1)).lockAllByAccountNumberIn(any());
+        verify(ledgerService, times(1)).recordTransfers(argThat(completed -> completed.size() == 2));
+    }
+
+    @Test
+    void transfer_acrossShards_shouldDebitCreditAndCompleteSaga() {
+
+        TransferEngine shardedEngine = shardedEngine();
+
+        when(accountRepository.existsAccountByAccountNumber("000000002")).thenReturn(true);
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001"))).thenReturn(List.of(senderAccount));
+        when(transferSagaRepository.recordCredit(anyString())).thenReturn(1);
+        when(accountRepository.addToBalance("000000002", new BigDecimal("10.00"))).thenAnswer(invocation -> {
+            receiverAccount.setBalance(receiverAccount.getBalance().plus(Money.valueOf("10.00")));
+            return Optional.of(receiverAccount);
+        });
+
+        shardedEngine.transfer("000000001", "000000002", Money.valueOf("10.00"));
+
+        assertEquals(Money.valueOf("90.00"), senderAccount.getBalance());
+        assertEquals(Money.valueOf("60.00"), receiverAccount.getBalance());
+        verify(transferSagaRepository, times(1)).insertPending(anyString(), eq("000000001"), eq("000000002"),
+                eq(new BigDecimal("10.00")), any(Instant.class));
+        verify(transferSagaRepository, times(1)).finish(anyString(), eq(TransferSagaStatus.COMPLETED.name()));
+        verify(ledgerService, times(1)).recordTransferLeg(LedgerEntryType.TRANSFER_OUT, "000000001", "000000002",
+                Money.valueOf("10.00"), Money.valueOf("90.00"));
+        verify(ledgerService, times(1)).recordTransferLeg(LedgerEntryType.TRANSFER_IN, "000000002", "000000001",
+                Money.valueOf("10.00"), Money.valueOf("60.00"));
+        assertEquals(1, meterRegistry.counter("banking.transfer.saga", "outcome", "completed").count());
+    }
+
+    @Test
+    void transfer_acrossShardsToVanishedReceiver_shouldRefundSender() {
+
+        TransferEngine shardedEngine = shardedEngine();
+
+        when(accountRepository.existsAccountByAccountNumber("000000002")).thenReturn(true);
+        when(accountRepository.lockAllByAccountNumberIn(List.of("000000001"))).thenReturn(List.of(senderAccount));
+        when(transferSagaRepository.recordCredit(anyString())).thenReturn(1);
+        when(accountRepository.addToBalance("000000002", new BigDecimal("10.00"))).thenReturn(Optional.empty());
+        when(balanceShardRepository.addToRandomShard(eq("000000002"), any(), anyInt())).thenReturn(Optional.empty());
+        when(transferSagaRepository.finish(anyString(), eq(TransferSagaStatus.COMPENSATED.name()))).thenReturn(1);
+        when(accountRepository.addToBalance("000000001", new BigDecimal("10.00"))).thenAnswer(invocation -> {
+            senderAccount.setBalance(senderAccount.getBalance().plus(Money.valueOf("10.00")));
+            return Optional.of(senderAccount);
+        });
+
+        assertThrows(AccountNotFoundException.class,
+                () -> shardedEngine.transfer("000000001", "000000002", Money.valueOf("10.00")));
+
+        assertEquals(Money.valueOf("100.00"), senderAccount.getBalance());
+        verify(ledgerService, times(1)).recordTransferLeg(LedgerEntryType.TRANSFER_REFUND, "000000001", "000000002",
+                Money.valueOf("10.00"), Money.valueOf("100.00"));
+        verify(transferSagaRepository, times(0)).finish(anyString(), eq(TransferSagaStatus.COMPLETED.name()));
+        assertEquals(1, meterRegistry.counter("banking.transfer.saga", "outcome", "compensated").count());
+    }
+
+    @Test
+    void transfer_acrossShardsToUnknownReceiver_shouldNotDebit() {
+
+        TransferEngine shardedEngine = shardedEngine();
+
+        when(accountRepository.existsAccountByAccountNumber("000000002")).thenReturn(false);
+
+        assertThrows(AccountNotFoundException.class,
+                () -> shardedEngine.transfer("000000001", "000000002", Money.valueOf("10.00")));
+
+        assertEquals(Money.valueOf("100.00"), senderAccount.getBalance());
+        verify(transferSagaRepository, times(0)).insertPending(any(), any(), any(), any(), any());
+    }
+
+    private static DatabaseShards singleShard() {
+        return new DatabaseShards(1, TransactionOperations.withoutTransaction());
+    }
+
+    /**
+     * An engine over two shards, whose retry executor runs each attempt with transaction synchronization
+     * active, so the engine can bind it to a shard.
+     */
+    private TransferEngine shardedEngine() {
+
+        TransactionRetryExecutor transactionRetryExecutor = mock(TransactionRetryExecutor.class);
+        when(transactionRetryExecutor.execute(anyString(), any())).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                return invocation.<Supplier<?>>getArgument(1).get();
+            } finally {
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationManager.clearSynchronization();
+                synchronizations.forEach(synchronization ->
+                        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            }
+        });
+
+        return new TransferEngine(accountRepository, balanceShardRepository, transferSagaRepository,
+                transactionRetryExecutor, accountCache, ledgerService,
+                new DatabaseShards(2, TransactionOperations.withoutTransaction()), mock(IdempotencyService.class), meterRegistry,
+                TransferLockingMode.PESSIMISTIC, 30000, 100);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.dto.AccountDTO;
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class AccountCacheTest {
+
+    AccountCache accountCache;
+    SimpleMeterRegistry meterRegistry;
+    AtomicInteger loads;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountCache = new AccountCache(meterRegistry, mock(ObjectProvider.class), 100, 60);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_shouldLoadOnceAndServeFromCache() {
+
+        AccountDTO first = accountCache.get("000000001", this::load);
+        AccountDTO second = accountCache.get("000000001", this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "accounts").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void evictAfterCommit_withoutTransaction_shouldEvictImmediately() {
+
+        accountCache.get("000000001", this::load);
+        accountCache.evictAfterCommit("000000001");
+        accountCache.get("000000001", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenLoaderFails_shouldNotCacheFailure() {
+
+        assertThrows(AccountNotFoundException.class, () -> accountCache.get("000000001", accountNumber -> {
+            throw new AccountNotFoundException("Account not found");
+        }));
+
+        accountCache.get("000000001", this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    private AccountDTO load(String accountNumber) {
+        loads.incrementAndGet();
+        return new AccountDTO("id", "email@gmail.com", accountNumber, Money.ZERO, "USER");
+    }
+}
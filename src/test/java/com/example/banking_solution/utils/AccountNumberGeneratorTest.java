@@ -2,12 +2,11 @@ package com.example.banking_solution.utils;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 import static org.springframework.test.util.AssertionErrors.assertNotNull;
 
 public class AccountNumberGeneratorTest {
@@ -15,17 +14,33 @@ public class AccountNumberGeneratorTest {
     @Test
     void generateAccountNumber_shouldReturn9DigitNumber() {
 
-        Random mockRandom = mock(Random.class);
+        AccountNumberGenerator accountNumberGenerator = new AccountNumberGenerator();
 
-        when(mockRandom.nextInt(999999999)).thenReturn(123456789);
+        for (int i = 0; i < 1000; i++) {
+            String accountNumber = accountNumberGenerator.generateAccountNumber();
 
-        AccountNumberGenerator accountNumberGenerator = new AccountNumberGenerator();
-        accountNumberGenerator.random = mockRandom;
+            assertNotNull(accountNumber, "Account number should not be null");
+            assertEquals(9, accountNumber.length(), "Account number should have 9 digits");
+            assertTrue(accountNumber.matches("\\d{9}"), "Account number should be a 9-digit number");
+            assertNotEquals("000000000", accountNumber);
+        }
+    }
+
+    @Test
+    void generateAccountNumbers_shouldReturnDistinctNumbers() {
+
+        Set<String> accountNumbers = new AccountNumberGenerator().generateAccountNumbers(10000);
+
+        assertEquals(10000, accountNumbers.size());
+        assertTrue(accountNumbers.stream().allMatch(AccountNumbers::isValid));
+    }
+
+    @Test
+    void generateAccountNumbers_onShard_shouldOnlyReturnNumbersOfThatShard() {
 
-        String accountNumber = accountNumberGenerator.generateAccountNumber();
+        Set<String> accountNumbers = new AccountNumberGenerator().generateAccountNumbers(1000, 2, 3);
 
-        assertNotNull(accountNumber, "Account number should not be null");
-        assertEquals(9, accountNumber.length(), "Account number should have 9 digits");
-        assertTrue(accountNumber.matches("\\d{9}"), "Account number should be a 9-digit number");
+        assertEquals(1000, accountNumbers.size());
+        assertTrue(accountNumbers.stream().allMatch(number -> AccountNumbers.parse(number) % 3 == 2));
     }
 }
@@ -0,0 +1,44 @@
+package com.example.banking_solution.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountNumbersTest {
+
+    @Test
+    void format_shouldZeroPadTo9Digits() {
+
+        assertEquals("000000001", AccountNumbers.format(1));
+        assertEquals("000123456", AccountNumbers.format(123456));
+        assertEquals("999999999", AccountNumbers.format(AccountNumbers.MAX));
+    }
+
+    @Test
+    void format_shouldRejectOutOfRangeNumbers() {
+
+        assertThrows(IllegalArgumentException.class, () -> AccountNumbers.format(-1));
+        assertThrows(IllegalArgumentException.class, () -> AccountNumbers.format(1_000_000_000));
+    }
+
+    @Test
+    void isValid_shouldMatchNineAsciiDigitsOnly() {
+
+        assertTrue(AccountNumbers.isValid("123456789"));
+        assertTrue(AccountNumbers.isValid("000000000"));
+        assertFalse(AccountNumbers.isValid(null));
+        assertFalse(AccountNumbers.isValid(""));
+        assertFalse(AccountNumbers.isValid("12345678"));
+        assertFalse(AccountNumbers.isValid("1234567890"));
+        assertFalse(AccountNumbers.isValid("12345678a"));
+        assertFalse(AccountNumbers.isValid("١٢٣٤٥٦٧٨٩"));
+    }
+
+    @Test
+    void parse_shouldInvertFormat() {
+
+        assertEquals(0, AccountNumbers.parse("000000000"));
+        assertEquals(123456, AccountNumbers.parse("000123456"));
+        assertEquals(AccountNumbers.MAX, AccountNumbers.parse(AccountNumbers.format(AccountNumbers.MAX)));
+    }
+}
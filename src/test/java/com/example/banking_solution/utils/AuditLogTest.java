@@ -0,0 +1,86 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.utils.enums.AuditEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void record_shouldAppendEventsAsJsonLines() throws Exception {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Path file = directory.resolve("audit/audit.ndjson");
+        AuditLog auditLog = new AuditLog(meterRegistry, true, file.toString(), 16, 4);
+
+        auditLog.record(AuditEventType.ACCOUNT_CREATED, "000000001", null, null);
+        auditLog.record(AuditEventType.DEPOSIT, "000000001", null, Money.valueOf("100.50"));
+        auditLog.record(AuditEventType.TRANSFER, "000000001", "000000002", Money.valueOf("20.00"));
+        auditLog.close();
+
+        List<String> lines = Files.readAllLines(file);
+
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("\"type\":\"ACCOUNT_CREATED\",\"accountNumber\":\"000000001\""));
+        assertTrue(lines.get(1).contains("\"amount\":100.50"));
+        assertTrue(lines.get(2).contains("\"counterpartyAccountNumber\":\"000000002\""));
+        assertEquals(3, meterRegistry.get("banking.audit.events").tag("result", "written").counter().count());
+        assertEquals(0, meterRegistry.get("banking.audit.events").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    void recordAfterCommit_shouldWaitForTheCommitAndSkipRollbacks() throws Exception {
+
+        Path file = directory.resolve("audit.ndjson");
+        AuditLog auditLog = new AuditLog(new SimpleMeterRegistry(), true, file.toString(), 16, 4);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditLog.recordAfterCommit(AuditEventType.WITHDRAWAL, "000000001", null, Money.valueOf("5.00"));
+            List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            rolledBack.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            TransactionSynchronizationManager.initSynchronization();
+            auditLog.recordAfterCommit(AuditEventType.WITHDRAWAL, "000000002", null, Money.valueOf("7.00"));
+            List<TransactionSynchronization> committed = TransactionSynchronizationManager.getSynchronizations();
+            committed.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+        auditLog.close();
+
+        List<String> lines = Files.readAllLines(file);
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"accountNumber\":\"000000002\""));
+    }
+
+    @Test
+    void record_whenDisabled_shouldWriteNothing() throws Exception {
+
+        Path file = directory.resolve("audit.ndjson");
+        AuditLog auditLog = new AuditLog(new SimpleMeterRegistry(), false, file.toString(), 16, 4);
+
+        auditLog.record(AuditEventType.DEPOSIT, "000000001", null, Money.valueOf("1.00"));
+        auditLog.close();
+
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.banking_solution.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DatabaseShardsTest {
+
+    DatabaseShards databaseShards = new DatabaseShards(4, TransactionOperations.withoutTransaction());
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(ShardRoutingDataSource.SHARD_RESOURCE);
+    }
+
+    @Test
+    void shardOf_shouldUseAccountNumberModuloShardCount() {
+
+        assertEquals(1, databaseShards.shardOf("000000001"));
+        assertEquals(3, databaseShards.shardOf("000000007"));
+        assertEquals(0, databaseShards.shardOf("000000012"));
+        assertEquals(0, new DatabaseShards(1, TransactionOperations.withoutTransaction()).shardOf("000000007"));
+    }
+
+    @Test
+    void bind_outsideTransaction_shouldThrow() {
+        assertThrows(IllegalStateException.class, () -> databaseShards.bind("000000001"));
+    }
+
+    @Test
+    void bind_accountsOnTwoShards_shouldThrow() {
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        databaseShards.bind("000000001");
+        databaseShards.bind("000000005");
+
+        assertThrows(IllegalStateException.class, () -> databaseShards.bind("000000002"));
+    }
+
+    @Test
+    void bind_shouldBeReleasedAfterCompletion() {
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        databaseShards.bind("000000003");
+        assertEquals(3, TransactionSynchronizationManager.getResource(ShardRoutingDataSource.SHARD_RESOURCE));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertNull(TransactionSynchronizationManager.getResource(ShardRoutingDataSource.SHARD_RESOURCE));
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.models.IdempotencyRecord;
+import com.example.banking_solution.services.IdempotencyService;
+import com.example.banking_solution.utils.enums.IdempotencyStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyFilterTest {
+
+    static final String FINGERPRINT = "/accounts/deposit&accountNumber=000000001&depositAmount=10.00";
+
+    IdempotencyService idempotencyService;
+    IdempotencyFilter idempotencyFilter;
+
+    @BeforeEach
+    void setup() {
+        idempotencyService = mock(IdempotencyService.class);
+        idempotencyFilter = new IdempotencyFilter(idempotencyService, new ObjectMapper());
+    }
+
+    @Test
+    void firstRequest_shouldRunChainAndStoreResponse() throws Exception {
+
+        when(idempotencyService.claim(argThat(claim -> claim.key().equals("key-1")), eq(FINGERPRINT))).thenReturn(Optional.empty());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest req, HttpServletResponse resp)
+                    throws java.io.IOException {
+                resp.setStatus(200);
+                resp.getWriter().write("{\"balance\":\"10.00\"}");
+            }
+        });
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{\"balance\":\"10.00\"}", response.getContentAsString());
+        verify(idempotencyService, times(1)).complete(argThat(claim -> claim.key().equals("key-1")
+                && claim.accountNumber().equals("000000001")), eq(200), eq("{\"balance\":\"10.00\"}"));
+    }
+
+    @Test
+    void repeatedRequest_shouldReplayStoredResponseWithoutRunningChain() throws Exception {
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey("key-1");
+        record.setRequestFingerprint(FINGERPRINT);
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponseStatus(200);
+        record.setResponseBody("{\"balance\":\"10.00\"}");
+
+        when(idempotencyService.claim(argThat(claim -> claim.key().equals("key-1")), eq(FINGERPRINT))).thenReturn(Optional.of(record));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"balance\":\"10.00\"}", response.getContentAsString());
+        assertNull(chain.getRequest());
+        verify(idempotencyService, times(0)).complete(any(), anyInt(), any());
+    }
+
+    @Test
+    void requestInProgress_shouldReturnConflict() throws Exception {
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestFingerprint(FINGERPRINT);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+
+        when(idempotencyService.claim(argThat(claim -> claim.key().equals("key-1")), eq(FINGERPRINT))).thenReturn(Optional.of(record));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), response, new MockFilterChain());
+
+        assertEquals(409, response.getStatus());
+    }
+
+    @Test
+    void appliedRequestWithExpiredLease_shouldReturnConflictWithoutRunningChain() throws Exception {
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestFingerprint(FINGERPRINT);
+        record.setStatus(IdempotencyStatus.APPLIED);
+        record.setLockedUntil(Instant.now().minusSeconds(1));
+
+        when(idempotencyService.claim(any(), eq(FINGERPRINT))).thenReturn(Optional.of(record));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), response, chain);
+
+        assertEquals(409, response.getStatus());
+        assertTrue(response.getContentAsString().contains("response was lost"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void chain_shouldRunWithTheClaimBound() throws Exception {
+
+        when(idempotencyService.claim(any(), eq(FINGERPRINT))).thenReturn(Optional.empty());
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        InOrder inOrder = inOrder(idempotencyService);
+        inOrder.verify(idempotencyService).bind(argThat(claim -> claim != null && claim.key().equals("key-1")));
+        inOrder.verify(idempotencyService).bind(null);
+        inOrder.verify(idempotencyService).complete(any(), anyInt(), any());
+    }
+
+    @Test
+    void keyReusedForDifferentRequest_shouldReturnUnprocessableEntity() throws Exception {
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestFingerprint("/accounts/withdraw&accountNumber=000000001&withdrawAmount=10.00");
+        record.setStatus(IdempotencyStatus.COMPLETED);
+
+        when(idempotencyService.claim(argThat(claim -> claim.key().equals("key-1")), eq(FINGERPRINT))).thenReturn(Optional.of(record));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), response, new MockFilterChain());
+
+        assertEquals(422, response.getStatus());
+        assertTrue(response.getContentAsString().contains("different request"));
+    }
+
+    @Test
+    void serverError_shouldReleaseKey() throws Exception {
+
+        when(idempotencyService.claim(argThat(claim -> claim.key().equals("key-1")), eq(FINGERPRINT))).thenReturn(Optional.empty());
+
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest req, HttpServletResponse resp) {
+                resp.setStatus(503);
+            }
+        });
+
+        idempotencyFilter.doFilter(depositRequest("key-1"), new MockHttpServletResponse(), chain);
+
+        verify(idempotencyService, times(1)).release(argThat(claim -> claim.key().equals("key-1")));
+        verify(idempotencyService, times(0)).complete(any(), anyInt(), any());
+    }
+
+    @Test
+    void requestWithoutKey_shouldPassThrough() throws Exception {
+
+        MockHttpServletRequest request = depositRequest(null);
+        MockFilterChain chain = new MockFilterChain();
+
+        idempotencyFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(request, chain.getRequest());
+        verify(idempotencyService, times(0)).claim(any(), any());
+    }
+
+    private static MockHttpServletRequest depositRequest(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/accounts/deposit");
+        request.addParameter("depositAmount", "10.00");
+        request.addParameter("accountNumber", "000000001");
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+}
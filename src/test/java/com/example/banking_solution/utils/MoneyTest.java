@@ -0,0 +1,76 @@
+package com.example.banking_solution.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void valueOf_shouldParsePlainDecimals() {
+
+        assertEquals(125075, Money.valueOf("1250.75").cents());
+        assertEquals(1200, Money.valueOf("12").cents());
+        assertEquals(1250, Money.valueOf("12.5").cents());
+        assertEquals(-50, Money.valueOf("-0.5").cents());
+        assertEquals(500, Money.valueOf("+5.").cents());
+        assertEquals(100000, Money.valueOf("1E+3").cents());
+        assertEquals(Long.MAX_VALUE, Money.valueOf("92233720368547758.07").cents());
+    }
+
+    @Test
+    void valueOf_shouldRejectInvalidAmounts() {
+
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf(""));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("-"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("1.2.3"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("0.005"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("92233720368547758.08"));
+    }
+
+    @Test
+    void of_shouldAgreeWithValueOf() {
+
+        assertEquals(Money.valueOf("1000.5"), Money.of(BigDecimal.valueOf(1000.50)));
+        assertEquals(Money.ZERO, Money.of(BigDecimal.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void toString_shouldAlwaysRenderTwoDecimals() {
+
+        assertEquals("0.00", Money.ZERO.toString());
+        assertEquals("1250.75", Money.ofCents(125075).toString());
+        assertEquals("-0.05", Money.ofCents(-5).toString());
+        assertEquals("-12.50", Money.ofCents(-1250).toString());
+        assertEquals("-92233720368547758.08", Money.ofCents(Long.MIN_VALUE).toString());
+        assertEquals(new BigDecimal("-12.50"), Money.ofCents(-1250).toBigDecimal());
+    }
+
+    @Test
+    void arithmetic_shouldFailInsteadOfOverflowing() {
+
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertEquals(Money.valueOf("30.50"), Money.valueOf("20.00").plus(Money.valueOf("10.50")));
+        assertEquals(Money.valueOf("-0.01"), Money.ZERO.minus(Money.ofCents(1)));
+        assertTrue(Money.valueOf("9.99").isLessThan(Money.valueOf("10")));
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).negate());
+    }
+
+    @Test
+    void json_shouldRoundTripAsString() throws Exception {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertEquals("\"1250.75\"", objectMapper.writeValueAsString(Money.valueOf("1250.75")));
+        assertEquals(Money.valueOf("1250.75"), objectMapper.readValue("\"1250.75\"", Money.class));
+        assertEquals(Money.valueOf("0.10"), objectMapper.readValue("0.1", Money.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"0.001\"", Money.class));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.banking_solution.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    void offerAndPoll_shouldPreserveOrder() {
+
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+
+        assertEquals(1, buffer.poll());
+        assertEquals(2, buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void offer_whenFull_shouldFailUntilConsumed() {
+
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+        assertEquals(2, buffer.size());
+
+        assertEquals(1, buffer.poll());
+        assertTrue(buffer.offer(3));
+    }
+
+    @Test
+    void constructor_shouldRejectCapacityThatIsNotAPowerOfTwo() {
+
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(3));
+    }
+
+    @Test
+    void concurrentProducers_shouldDeliverEveryElementOnce() throws InterruptedException {
+
+        int producers = 8;
+        int perProducer = 10_000;
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+
+        Set<Integer> received = new HashSet<>();
+        List<Integer> duplicates = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (received.size() + duplicates.size() < producers * perProducer && System.nanoTime() < deadline) {
+            buffer.drain(element -> {
+                if (!received.add(element)) {
+                    duplicates.add(element);
+                }
+            }, 256);
+        }
+
+        executor.shutdownNow();
+
+        assertEquals(producers * perProducer, received.size());
+        assertTrue(duplicates.isEmpty());
+    }
+}
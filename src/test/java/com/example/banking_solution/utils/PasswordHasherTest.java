@@ -0,0 +1,68 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PasswordHasher passwordHasher;
+
+    @AfterEach
+    void afterEach() {
+        passwordHasher.close();
+    }
+
+    @Test
+    void hash_shouldProduceSaltedBcryptHashThatMatches() {
+
+        passwordHasher = new PasswordHasher(meterRegistry, 4, 2, 16);
+
+        String first = passwordHasher.hash("password");
+        String second = passwordHasher.hash("password");
+
+        assertTrue(first.startsWith("$2a$04$"));
+        assertNotEquals(first, second);
+        assertTrue(passwordHasher.matches("password", first));
+        assertFalse(passwordHasher.matches("differentPassword", first));
+        assertEquals(2, meterRegistry.get("banking.password.hashing").tag("operation", "hash").timer().count());
+    }
+
+    @Test
+    void hashAll_shouldKeepRequestOrderAcrossWindows() {
+
+        passwordHasher = new PasswordHasher(meterRegistry, 4, 2, 16);
+
+        List<String> passwords = List.of("first", "second", "third", "fourth", "fifth");
+        List<String> hashes = passwordHasher.hashAll(passwords);
+
+        assertEquals(passwords.size(), hashes.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            assertTrue(passwordHasher.matches(passwords.get(i), hashes.get(i)));
+        }
+    }
+
+    @Test
+    void hashAsync_whenQueueIsFull_shouldRejectInsteadOfWaiting() {
+
+        passwordHasher = new PasswordHasher(meterRegistry, 10, 1, 1);
+
+        CompletableFuture<String> running = passwordHasher.hashAsync("first");
+        CompletableFuture<String> queued = passwordHasher.hashAsync("second");
+
+        assertThrows(RejectedExecutionException.class, () -> passwordHasher.hashAsync("third"));
+        assertTrue(passwordHasher.matches("second", queued.join()));
+        assertTrue(running.isDone());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.banking_solution.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    DataSource primary;
+    DataSource replica;
+    Connection primaryConnection;
+    Connection replicaConnection;
+    ResultSet replicaStatus;
+    SimpleMeterRegistry meterRegistry;
+    ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        replicaStatus = mock(ResultSet.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        Statement primaryStatement = mock(Statement.class);
+        ResultSet primaryPosition = mock(ResultSet.class);
+        PreparedStatement replicaStatement = mock(PreparedStatement.class);
+
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primaryConnection.createStatement()).thenReturn(primaryStatement);
+        when(primaryStatement.executeQuery(ReplicaRoutingDataSource.PRIMARY_POSITION_QUERY)).thenReturn(primaryPosition);
+        when(primaryPosition.next()).thenReturn(true);
+        when(primaryPosition.getString(1)).thenReturn("0/3000060");
+
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(replicaStatement);
+        when(replicaStatement.executeQuery()).thenReturn(replicaStatus);
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getBoolean(1)).thenReturn(true);
+        when(replicaStatus.getString(4)).thenReturn("0/3000060");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), 5000, 1000, meterRegistry);
+    }
+
+    @AfterEach
+    void cleanup() {
+        ReplicaRoutingDataSource.clearReadAfterWrite();
+    }
+
+    @Test
+    void getConnection_beforeFirstCheck_shouldUseReadOnlyPrimary() throws SQLException {
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(primaryConnection).setReadOnly(true);
+        assertEquals(1, reads("primary"));
+    }
+
+    @Test
+    void getConnection_withCaughtUpReplica_shouldUseReplica() throws SQLException {
+
+        when(replicaStatus.getBoolean(2)).thenReturn(true);
+        routingDataSource.checkReplicas();
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(1, reads("replica"));
+        assertEquals(1, meterRegistry.get("banking.datasource.replica.available").tag("replica", "replica-0")
+                .gauge().value());
+    }
+
+    @Test
+    void getConnection_withLagOverBound_shouldUsePrimary() throws SQLException {
+
+        when(replicaStatus.getBoolean(2)).thenReturn(false);
+        when(replicaStatus.getDouble(3)).thenReturn(8000.0);
+        when(replicaStatus.wasNull()).thenReturn(false);
+        routingDataSource.checkReplicas();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(8000, meterRegistry.get("banking.datasource.replica.lag").tag("replica", "replica-0")
+                .gauge().value());
+    }
+
+    @Test
+    void getConnection_afterWriteNotYetReplayed_shouldUsePrimary() throws SQLException {
+
+        when(replicaStatus.getBoolean(2)).thenReturn(true);
+        routingDataSource.checkReplicas();
+
+        ReplicaRoutingDataSource.readAfterWrite(ReplicaRoutingDataSource.parseLsn("0/3000061"));
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        ReplicaRoutingDataSource.readAfterWrite(ReplicaRoutingDataSource.parseLsn("0/3000060"));
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void primaryWalPosition_shouldOrderLikeTheWal() {
+
+        assertEquals(Long.valueOf(0x3000060L), routingDataSource.primaryWalPosition());
+        assertTrue(ReplicaRoutingDataSource.parseLsn("1/0") > ReplicaRoutingDataSource.parseLsn("0/FFFFFFFF"));
+    }
+
+    @Test
+    void getConnection_whenReplicaRefuses_shouldFallBackToPrimary() throws SQLException {
+
+        when(replicaStatus.getBoolean(2)).thenReturn(true);
+        routingDataSource.checkReplicas();
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(0, meterRegistry.get("banking.datasource.replica.available").tag("replica", "replica-0")
+                .gauge().value());
+    }
+
+    @Test
+    void checkReplicas_withReplicaNotInRecovery_shouldTakeItOut() throws SQLException {
+
+        when(replicaStatus.getBoolean(1)).thenReturn(false);
+        when(replicaStatus.getBoolean(2)).thenReturn(true);
+        routingDataSource.checkReplicas();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("banking.datasource.reads").tag("target", target).counter().count();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.banking_solution.utils;
+
+import com.example.banking_solution.models.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class TransactionRetryExecutorTest {
+
+    TransactionRetryExecutor transactionRetryExecutor;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionRetryExecutor = new TransactionRetryExecutor(mock(PlatformTransactionManager.class),
+                meterRegistry, 3, 1, 2);
+    }
+
+    @Test
+    void execute_shouldRetryLockFailuresUntilSuccess() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = transactionRetryExecutor.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.counter("banking.transaction.retries", "operation", "test").count());
+    }
+
+    @Test
+    void execute_shouldRetryOptimisticLockFailures() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = transactionRetryExecutor.execute("test", () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, "id");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(1, meterRegistry.counter("banking.transaction.conflicts",
+                "operation", "test", "type", "optimistic").count());
+    }
+
+    @Test
+    void execute_shouldGiveUpAfterMaxAttempts() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> transactionRetryExecutor.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock detected");
+        }));
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_shouldNotRetryOtherFailures() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> transactionRetryExecutor.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("invalid");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.exceptions.AccountNotFoundException;
+import com.example.banking_solution.utils.exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceEngineTest {
+
+    @TempDir
+    Path directory;
+
+    BalanceEngine engine;
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void operations_shouldMoveCentsBetweenAccountsWithoutCreatingOrLosingAny() throws Exception {
+
+        engine = start(500);
+
+        int first = engine.createAccount("id-1", "first@mail.com", "hash").join().accountNumber();
+        int second = engine.createAccount("id-2", "second@mail.com", "hash").join().accountNumber();
+
+        List<CompletableFuture<AccountState>> operations = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            operations.add(engine.deposit(first, 100));
+            operations.add(engine.transfer(first, second, 40));
+        }
+        operations.forEach(CompletableFuture::join);
+
+        assertEquals(60_000, engine.read(first).join().balanceCents());
+        assertEquals(40_000, engine.read(second).join().balanceCents());
+        assertEquals(2002, engine.durableSequence());
+    }
+
+    @Test
+    void operations_shouldRejectUnknownAccountsAndInsufficientFunds() throws Exception {
+
+        engine = start(500);
+
+        int account = engine.createAccount("id-1", "first@mail.com", "hash").join().accountNumber();
+
+        CompletionException withdrawal = assertThrows(CompletionException.class, () -> engine.withdraw(account, 1).join());
+        CompletionException transfer = assertThrows(CompletionException.class, () -> engine.transfer(account, 7, 1).join());
+
+        assertInstanceOf(InsufficientFundsException.class, withdrawal.getCause());
+        assertInstanceOf(AccountNotFoundException.class, transfer.getCause());
+        assertEquals("Account with number [000000007] not found", transfer.getCause().getMessage());
+    }
+
+    @Test
+    void start_shouldRecoverFromSnapshotAndLogWithoutSeedingAgain() throws Exception {
+
+        engine = start(100);
+
+        int account = engine.createAccount("id-1", "first@mail.com", "hash").join().accountNumber();
+        for (int i = 0; i < 250; i++) {
+            engine.deposit(account, 10).join();
+        }
+        engine.withdraw(7, 500).join();
+        long sequence = engine.durableSequence();
+        engine.close();
+
+        engine = new BalanceEngine(directory, 1024, 64, 4096, 100);
+        engine.start(() -> fail("an engine with state on disk must not be seeded"));
+
+        assertEquals(sequence, engine.durableSequence());
+        assertEquals(2500, engine.read(account).join().balanceCents());
+        assertEquals(500, engine.read(7).join().balanceCents());
+        assertEquals("first@mail.com", engine.read(account).join().profile().email());
+    }
+
+    private BalanceEngine start(long snapshotInterval) throws Exception {
+
+        BalanceEngine started = new BalanceEngine(directory, 4096, 64, 4096, snapshotInterval);
+
+        started.start(() -> {
+            BalanceBook seed = new BalanceBook(16);
+            seed.open(7, new BalanceBook.Profile("id-7", "seeded@mail.com", "hash", "USER"), 1000);
+            return seed;
+        });
+
+        return started;
+    }
+}
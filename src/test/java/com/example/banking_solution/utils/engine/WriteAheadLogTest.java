@@ -0,0 +1,121 @@
+package com.example.banking_solution.utils.engine;
+
+import com.example.banking_solution.utils.enums.WalRecordType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recover_shouldReplayRecordsAcrossSegments() throws Exception {
+
+        WriteAheadLog wal = new WriteAheadLog(directory, 256);
+        wal.recover(0, record -> fail("new log has no records"));
+
+        wal.append(WalRecord.accountCreated(1, 1L, 42, "id", "user@mail.com", "hash"));
+        for (long sequence = 2; sequence <= 20; sequence++) {
+            wal.append(WalRecord.balanceChange(sequence, WalRecordType.DEPOSIT, 1L, 42, 100, (sequence - 1) * 100));
+        }
+        wal.close();
+
+        assertTrue(segmentCount() > 1);
+
+        List<WalRecord> replayed = new ArrayList<>();
+        WriteAheadLog recovered = new WriteAheadLog(directory, 256);
+
+        assertEquals(20, recovered.recover(5, replayed::add));
+        assertEquals(15, replayed.size());
+        assertEquals(6, replayed.get(0).sequence());
+        assertEquals(1900, replayed.get(14).balanceAfterCents());
+    }
+
+    @Test
+    void recover_shouldStopAtATornRecordAndAppendBehindTheLastValidOne() throws Exception {
+
+        WriteAheadLog wal = new WriteAheadLog(directory, 4096);
+        wal.recover(0, record -> { });
+        wal.append(WalRecord.balanceChange(1, WalRecordType.DEPOSIT, 1L, 42, 100, 100));
+        wal.append(WalRecord.balanceChange(2, WalRecordType.DEPOSIT, 1L, 42, 100, 200));
+        wal.close();
+
+        // corrupt the payload of the second record, as if the crash happened while it was written
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int recordSize = 8 + file.readInt();
+            file.seek(recordSize + 20);
+            file.writeLong(-1);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        WriteAheadLog recovered = new WriteAheadLog(directory, 4096);
+
+        assertEquals(1, recovered.recover(0, replayed::add));
+        assertEquals(1, replayed.size());
+
+        recovered.append(WalRecord.balanceChange(2, WalRecordType.WITHDRAWAL, 1L, 42, 50, 50));
+        recovered.close();
+
+        List<WalRecord> afterAppend = new ArrayList<>();
+        new WriteAheadLog(directory, 4096).recover(0, afterAppend::add);
+
+        assertEquals(2, afterAppend.size());
+        assertEquals(WalRecordType.WITHDRAWAL, afterAppend.get(1).type());
+    }
+
+    @Test
+    void reader_shouldFollowTheLogUpToTheGivenSequence() throws Exception {
+
+        WriteAheadLog wal = new WriteAheadLog(directory, 256);
+        wal.recover(0, record -> { });
+        for (long sequence = 1; sequence <= 10; sequence++) {
+            wal.append(WalRecord.transfer(sequence, 1L, 1, 2, 10, 1000 - sequence * 10, sequence * 10));
+        }
+        wal.force();
+
+        WriteAheadLog.Reader reader = wal.openReader(2);
+        List<WalRecord> read = new ArrayList<>();
+
+        assertEquals(5, reader.read(7, 100, read::add));
+        assertEquals(3, reader.read(10, 100, read::add));
+        assertEquals(0, reader.read(10, 100, read::add));
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), read.stream().map(WalRecord::sequence).toList());
+    }
+
+    @Test
+    void deleteSegmentsUpTo_shouldKeepSegmentsWithLaterRecords() throws Exception {
+
+        WriteAheadLog wal = new WriteAheadLog(directory, 256);
+        wal.recover(0, record -> { });
+        for (long sequence = 1; sequence <= 20; sequence++) {
+            wal.append(WalRecord.balanceChange(sequence, WalRecordType.DEPOSIT, 1L, 42, 100, sequence * 100));
+        }
+        wal.force();
+
+        wal.deleteSegmentsUpTo(12);
+
+        List<WalRecord> replayed = new ArrayList<>();
+        assertEquals(20, new WriteAheadLog(directory, 256).recover(12, replayed::add));
+        assertEquals(13, replayed.get(0).sequence());
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -2,12 +2,11 @@ package com.example.banking_solution.utils.mappers;
 
 import com.example.banking_solution.dto.AccountDTO;
 import com.example.banking_solution.models.Account;
+import com.example.banking_solution.utils.Money;
 import com.example.banking_solution.utils.enums.RoleType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -22,7 +21,7 @@ public class AccountDTOMapperTest {
 
         Account newAccount = new Account();
         newAccount.setAccountNumber("123456789");
-        newAccount.setBalance(BigDecimal.valueOf(1000.50));
+        newAccount.setBalance(Money.valueOf("1000.50"));
         newAccount.setRole(RoleType.USER);
         account = newAccount;
     }
@@ -33,7 +32,7 @@ public class AccountDTOMapperTest {
 
         assertNotNull(accountDTO);
         assertEquals(account.getAccountNumber(), accountDTO.accountNumber());
-        assertEquals(account.getBalance().toString(), accountDTO.balance());
+        assertEquals(account.getBalance(), accountDTO.balance());
         assertEquals(account.getRole().toString(), accountDTO.role());
     }
 }